@@ -0,0 +1,58 @@
+package bartzmoveis.apigetitem.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import javax.sql.DataSource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import bartzmoveis.apigetitem.dto.ItemDTO;
+
+// Dados sintéticos no formato do catálogo da Bartz, sempre com a mesma semente para que
+// os resultados sejam comparáveis entre execuções
+final class CatalogData {
+
+    private static final String[] TIPOS = {"ARMARIO", "COMODA", "MESA", "CADEIRA", "RACK", "BALCAO", "CRIADO MUDO", "GUARDA ROUPA"};
+    private static final String[] DETALHES = {"2 PORTAS", "3 GAVETAS", "C/ ESPELHO", "MDF", "1,60M", "SUSPENSO", "MODULADO"};
+    private static final String[] CORES = {"BRANCO", "PRETO", "NOGUEIRA", "CINZA", "AMADEIRADO", "OFF WHITE"};
+
+    private CatalogData() {}
+
+    static List<ItemDTO> items(int count) {
+        Random random = new Random(42);
+        List<ItemDTO> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String code = String.format("%02d.%05d", i % 90 + 10, i);
+            String description = TIPOS[random.nextInt(TIPOS.length)] + " "
+                    + DETALHES[random.nextInt(DETALHES.length)] + " "
+                    + CORES[random.nextInt(CORES.length)];
+            String ref = random.nextInt(10) == 0 ? null : String.format("REF-%06d", random.nextInt(1_000_000));
+            items.add(new ItemDTO(code, description, ref));
+        }
+        return items;
+    }
+
+    // H2 em memória no modo DB2 com a SCHEMA.ITEM populada, para rodar sem acesso ao ERP
+    static DataSource seededDatabase(int rows) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:bench" + rows + ";MODE=DB2;DB_CLOSE_DELAY=-1");
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS SCHEMA");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS SCHEMA.ITEM");
+        jdbcTemplate.execute("CREATE TABLE SCHEMA.ITEM ("
+                + "ITEM CHAR(20) NOT NULL PRIMARY KEY, "
+                + "DESCRICAO VARCHAR(120), "
+                + "REF_COMERCIAL VARCHAR(30))");
+
+        List<Object[]> batch = new ArrayList<>(rows);
+        for (ItemDTO item : items(rows)) {
+            batch.add(new Object[] {item.getCodeItem(), item.getDescription(), item.getRefComercial()});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO SCHEMA.ITEM (ITEM, DESCRICAO, REF_COMERCIAL) VALUES (?, ?, ?)", batch);
+        return dataSource;
+    }
+}
@@ -0,0 +1,67 @@
+package bartzmoveis.apigetitem.benchmarks;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bartzmoveis.apigetitem.cache.CatalogSnapshot;
+import bartzmoveis.apigetitem.dto.ItemDTO;
+
+// Busca por descrição no catálogo em memória: índice de trigramas do snapshot contra
+// uma varredura linear com contains (o equivalente em memória do LIKE '%q%')
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CatalogSearchBenchmark {
+
+    @Param({"10000", "100000"})
+    public int size;
+
+    // Consulta curta (varredura), comum e seletiva
+    @Param({"AR", "BRANCO", "COMODA 3 GAVETAS"})
+    public String query;
+
+    private CatalogSnapshot snapshot;
+    private List<ItemDTO> items;
+
+    @Setup
+    public void setUp() {
+        items = CatalogData.items(size);
+        snapshot = new CatalogSnapshot(items, List.of(), Instant.now());
+    }
+
+    @Benchmark
+    public List<ItemDTO> ngramIndex() {
+        return snapshot.findItensByDescription(query);
+    }
+
+    // Busca livre ranqueada (/itens/search?q=), top 20
+    @Benchmark
+    public List<ItemDTO> rankedSearch() {
+        return snapshot.searchItens(query, 20);
+    }
+
+    @Benchmark
+    public List<ItemDTO> linearScan() {
+        String q = query.toUpperCase(Locale.ROOT);
+        return items.stream()
+                .filter(item -> item.getDescription() != null && item.getDescription().toUpperCase(Locale.ROOT).contains(q))
+                .toList();
+    }
+}
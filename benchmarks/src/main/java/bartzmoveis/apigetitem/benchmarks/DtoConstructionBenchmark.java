@@ -0,0 +1,56 @@
+package bartzmoveis.apigetitem.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import bartzmoveis.apigetitem.dto.ItemDTO;
+
+// Construção de 10 mil itens: @Value do Lombok contra record
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoConstructionBenchmark {
+
+    record ItemRecord(String codeItem, String description, String refComercial) {}
+
+    private String[] codes;
+    private String[] descriptions;
+    private String[] refs;
+
+    @Setup
+    public void setUp() {
+        List<ItemDTO> items = CatalogData.items(10_000);
+        codes = items.stream().map(ItemDTO::getCodeItem).toArray(String[]::new);
+        descriptions = items.stream().map(ItemDTO::getDescription).toArray(String[]::new);
+        refs = items.stream().map(ItemDTO::getRefComercial).toArray(String[]::new);
+    }
+
+    @Benchmark
+    public void lombokConstructor(Blackhole blackhole) {
+        for (int i = 0; i < codes.length; i++) {
+            blackhole.consume(new ItemDTO(codes[i], descriptions[i], refs[i]));
+        }
+    }
+
+    @Benchmark
+    public void record(Blackhole blackhole) {
+        for (int i = 0; i < codes.length; i++) {
+            blackhole.consume(new ItemRecord(codes[i], descriptions[i], refs[i]));
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package bartzmoveis.apigetitem.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+
+import bartzmoveis.apigetitem.config.ProtobufCatalogConverter;
+import bartzmoveis.apigetitem.dto.ItemDTO;
+
+// Tempo de codificação da lista completa de /itens em cada formato negociado pelo Accept.
+// O tamanho de cada payload sai no log do @Setup. A saída é um único buffer reaproveitado
+// entre as iterações, como o buffer de resposta do Tomcat, para medir só o encoder
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EncodingBenchmark {
+
+    @Param({"10000", "100000"})
+    public int size;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final ObjectMapper cbor = new CBORMapper();
+    private final ObjectMapper smile = new SmileMapper();
+
+    private List<ItemDTO> items;
+    private ByteArrayOutputStream out;
+
+    @Setup
+    public void setUp() throws IOException {
+        items = CatalogData.items(size);
+        out = new ByteArrayOutputStream(size * 128);
+
+        int jsonBytes = json.writeValueAsBytes(items).length;
+        int cborBytes = cbor.writeValueAsBytes(items).length;
+        int smileBytes = smile.writeValueAsBytes(items).length;
+        ProtobufCatalogConverter.encode(items, out);
+        int protobufBytes = out.size();
+
+        System.out.printf("%n%d itens: json=%d bytes, cbor=%d (%.0f%%), smile=%d (%.0f%%), protobuf=%d (%.0f%%)%n",
+                size, jsonBytes, cborBytes, 100.0 * cborBytes / jsonBytes, smileBytes, 100.0 * smileBytes / jsonBytes,
+                protobufBytes, 100.0 * protobufBytes / jsonBytes);
+    }
+
+    @Benchmark
+    public int json() throws IOException {
+        out.reset();
+        json.writeValue(out, items);
+        return out.size();
+    }
+
+    @Benchmark
+    public int cbor() throws IOException {
+        out.reset();
+        cbor.writeValue(out, items);
+        return out.size();
+    }
+
+    @Benchmark
+    public int smile() throws IOException {
+        out.reset();
+        smile.writeValue(out, items);
+        return out.size();
+    }
+
+    @Benchmark
+    public int protobuf() throws IOException {
+        out.reset();
+        ProtobufCatalogConverter.encode(items, out);
+        return out.size();
+    }
+}
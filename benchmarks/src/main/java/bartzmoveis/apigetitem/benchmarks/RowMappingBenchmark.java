@@ -0,0 +1,70 @@
+package bartzmoveis.apigetitem.benchmarks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import bartzmoveis.apigetitem.dto.ItemDTO;
+import bartzmoveis.apigetitem.service.FetchSettings;
+import bartzmoveis.apigetitem.service.ItemService;
+import bartzmoveis.apigetitem.service.QueryMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Custo do RowMapper do ItemService (ColumnMapping, índices resolvidos uma vez) contra
+// colunas por nome e por índice fixo em cada linha
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowMappingBenchmark {
+
+    private static final String SQL = "SELECT ITEM, DESCRICAO, REF_COMERCIAL FROM SCHEMA.ITEM";
+
+    @Param({"10000"})
+    public int rows;
+
+    private JdbcTemplate jdbcTemplate;
+    private ItemService itemService;
+
+    @Setup
+    public void setUp() {
+        jdbcTemplate = new JdbcTemplate(CatalogData.seededDatabase(rows));
+        itemService = new ItemService(jdbcTemplate, new QueryMetrics(new SimpleMeterRegistry()),
+                new FetchSettings(new StandardEnvironment(), 0, 0, Duration.ZERO));
+    }
+
+    // Caminho de produção, com o ColumnMapping e o fetch size do ItemService
+    @Benchmark
+    public List<ItemDTO> itemServiceListAll() {
+        return itemService.listAll();
+    }
+
+    @Benchmark
+    public List<ItemDTO> byName() {
+        return jdbcTemplate.query(SQL, (rs, rowNum) ->
+                new ItemDTO(rs.getString("ITEM"), rs.getString("DESCRICAO"), rs.getString("REF_COMERCIAL")));
+    }
+
+    // Mesmo construtor, muda só a forma de localizar a coluna
+    @Benchmark
+    public List<ItemDTO> byIndex() {
+        return jdbcTemplate.query(SQL, (rs, rowNum) ->
+                new ItemDTO(rs.getString(1), rs.getString(2), rs.getString(3)));
+    }
+}
@@ -0,0 +1,68 @@
+package bartzmoveis.apigetitem.benchmarks;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import bartzmoveis.apigetitem.dto.ItemDTO;
+
+// Serialização Jackson da lista completa de /itens, como acontece a cada requisição
+// sem o corpo pré-serializado, contra a simples cópia dos bytes já prontos
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    record ItemRecord(String codeItem, String description, String refComercial) {}
+
+    @Param({"10000", "100000"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private List<ItemDTO> items;
+    private List<ItemRecord> records;
+    private byte[] preEncoded;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        objectMapper = new ObjectMapper();
+        items = CatalogData.items(size);
+        records = items.stream()
+                .map(item -> new ItemRecord(item.getCodeItem(), item.getDescription(), item.getRefComercial()))
+                .toList();
+        preEncoded = objectMapper.writeValueAsBytes(items);
+    }
+
+    @Benchmark
+    public byte[] jacksonDto() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(items);
+    }
+
+    @Benchmark
+    public byte[] jacksonRecord() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(records);
+    }
+
+    @Benchmark
+    public byte[] preEncodedCopy() {
+        return Arrays.copyOf(preEncoded, preEncoded.length);
+    }
+}
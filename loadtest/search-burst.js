@@ -0,0 +1,78 @@
+// Teste de carga (k6) para comparar o modo padrão com o profile virtual-threads.
+//
+// Mistura dois tipos de requisição, como acontece em produção:
+//  - /itens/batch com códigos que não existem
+//  - /itens/search?descricao=
+//
+// Com o catálogo em memória as duas são respondidas sem ir ao DB2. Sem snapshot (a carga
+// inicial falhou e não há cópia em disco) as duas consultam o DB2: no modo padrão (pool de
+// threads do Tomcat) elas esperam por uma conexão do Hikari e a fila cresce; no modo
+// virtual-threads o excesso sobre o pool recebe 503 + Retry-After. Resultados medidos no README.
+//
+// Uso:
+//   k6 run -e BASE_URL=http://localhost:8081 -e TOKEN=<jwt> loadtest/search-burst.js
+// Rode uma vez com cada modo e compare http_reqs, search_duration e db_busy_503.
+
+import http from 'k6/http';
+import { check } from 'k6';
+import { Counter, Trend } from 'k6/metrics';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8081';
+const HEADERS = {
+    'Authorization': `Bearer ${__ENV.TOKEN}`,
+    'Content-Type': 'application/json',
+};
+
+const searchDuration = new Trend('search_duration', true);
+const dbDuration = new Trend('db_duration', true);
+const dbBusy = new Counter('db_busy_503');
+
+export const options = {
+    scenarios: {
+        // Rajada de requisições que precisam do DB2, bem acima do tamanho do pool
+        db_burst: {
+            executor: 'constant-arrival-rate',
+            exec: 'dbBound',
+            rate: 400,
+            timeUnit: '1s',
+            duration: '60s',
+            preAllocatedVUs: 400,
+            maxVUs: 1500,
+        },
+        // Autocomplete servido da memória, que não deveria sofrer com a rajada acima
+        autocomplete: {
+            executor: 'constant-arrival-rate',
+            exec: 'inMemory',
+            rate: 800,
+            timeUnit: '1s',
+            duration: '60s',
+            preAllocatedVUs: 200,
+            maxVUs: 1000,
+        },
+    },
+    thresholds: {
+        search_duration: ['p(95)<100'],
+    },
+};
+
+const DESCRICOES = ['ARM', 'COMODA', 'MESA', 'CAD', 'BRANCO', 'PRETO', 'RACK', 'BALC'];
+
+export function dbBound() {
+    // Códigos aleatórios que não existem, então nunca são resolvidos pelo snapshot
+    const codes = Array.from({ length: 50 }, () => `LT.${Math.floor(Math.random() * 1e9)}`);
+    const res = http.post(`${BASE_URL}/itens/batch`, JSON.stringify(codes), { headers: HEADERS });
+
+    dbDuration.add(res.timings.duration);
+    if (res.status === 503) {
+        dbBusy.add(1);
+        check(res, { 'Retry-After presente': (r) => r.headers['Retry-After'] !== undefined });
+    }
+}
+
+export function inMemory() {
+    const q = DESCRICOES[Math.floor(Math.random() * DESCRICOES.length)];
+    const res = http.get(`${BASE_URL}/itens/search?descricao=${q}&limit=20`, { headers: HEADERS });
+
+    searchDuration.add(res.timings.duration);
+    check(res, { 'busca 200/204': (r) => r.status === 200 || r.status === 204 });
+}
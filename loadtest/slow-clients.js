@@ -0,0 +1,67 @@
+// Teste de carga (k6) para comparar /itens em JSON (lista inteira) com o stream NDJSON
+// do profile reactive, com muitas conexões simultâneas baixando o catálogo completo.
+//
+//  - full_list: Accept: application/json, a resposta só começa depois da lista montada
+//  - ndjson_stream: Accept: application/x-ndjson, as linhas saem página a página
+//
+// Compare time_to_first_byte, download_duration e, no /actuator/prometheus, jvm_threads_live
+// e jvm_memory_used_bytes durante o teste. O profile reactive precisa estar ativo:
+//   SPRING_PROFILES_ACTIVE=reactive (ou reactive,virtual-threads)
+//
+// Uso:
+//   k6 run -e BASE_URL=http://localhost:8081 -e TOKEN=<jwt> loadtest/slow-clients.js
+
+import http from 'k6/http';
+import { check } from 'k6';
+import { Trend } from 'k6/metrics';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8081';
+
+const ttfb = {
+    json: new Trend('ttfb_json', true),
+    ndjson: new Trend('ttfb_ndjson', true),
+};
+const downloadDuration = {
+    json: new Trend('download_duration_json', true),
+    ndjson: new Trend('download_duration_ndjson', true),
+};
+
+export const options = {
+    scenarios: {
+        full_list: {
+            executor: 'constant-vus',
+            exec: 'fullList',
+            vus: 300,
+            duration: '60s',
+        },
+        // Começa depois do primeiro cenário para que os dois não disputem a mesma máquina
+        ndjson_stream: {
+            executor: 'constant-vus',
+            exec: 'ndjsonStream',
+            vus: 300,
+            duration: '60s',
+            startTime: '70s',
+        },
+    },
+};
+
+function download(accept, kind) {
+    const res = http.get(`${BASE_URL}/itens`, {
+        headers: { 'Authorization': `Bearer ${__ENV.TOKEN}`, 'Accept': accept },
+        // Sem compressão, para medir o envio das linhas e não o gzip pré-calculado
+        compression: '',
+        timeout: '120s',
+    });
+
+    ttfb[kind].add(res.timings.waiting);
+    downloadDuration[kind].add(res.timings.duration);
+    check(res, { 'status 200': (r) => r.status === 200 });
+}
+
+export function fullList() {
+    download('application/json', 'json');
+}
+
+export function ndjsonStream() {
+    download('application/x-ndjson', 'ndjson');
+}
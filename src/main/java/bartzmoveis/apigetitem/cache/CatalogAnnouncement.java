@@ -0,0 +1,18 @@
+package bartzmoveis.apigetitem.cache;
+
+// Aviso que o líder manda às demais instâncias a cada versão nova do catálogo: quem enviou,
+// até qual alteração da tabela de alterações ela vai e o ETag de cada tabela. Quem recebe
+// compara os ETags com os do próprio snapshot e só recarrega se forem diferentes
+public record CatalogAnnouncement(String origin, long changeSequence, String itensEtag, String coresEtag) {
+
+    static CatalogAnnouncement of(String origin, CatalogSnapshot snapshot) {
+        return new CatalogAnnouncement(origin, snapshot.changeSequence(),
+                snapshot.itensVersion().etag(), snapshot.coresVersion().etag());
+    }
+
+    boolean matches(CatalogSnapshot snapshot) {
+        return snapshot != null
+                && itensEtag.equals(snapshot.itensVersion().etag())
+                && coresEtag.equals(snapshot.coresVersion().etag());
+    }
+}
@@ -0,0 +1,13 @@
+package bartzmoveis.apigetitem.cache;
+
+import java.util.function.Consumer;
+
+// Transporte dos avisos de versão entre as instâncias (ver CatalogCoherence). Não precisa
+// garantir entrega: o líder repete o aviso periodicamente e quem perdeu um pega o próximo
+public interface CatalogBus {
+
+    void publish(CatalogAnnouncement announcement);
+
+    // Quem publica também pode receber o próprio aviso; o CatalogCoherence descarta pela origem
+    void subscribe(Consumer<CatalogAnnouncement> listener);
+}
@@ -0,0 +1,622 @@
+package bartzmoveis.apigetitem.cache;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import bartzmoveis.apigetitem.dto.CatalogChangeDTO;
+import bartzmoveis.apigetitem.dto.CorDTO;
+import bartzmoveis.apigetitem.dto.ItemCorDTO;
+import bartzmoveis.apigetitem.dto.ItemDTO;
+import bartzmoveis.apigetitem.dto.ItemDetalheDTO;
+import bartzmoveis.apigetitem.exceptions.Db2UnavailableException;
+import bartzmoveis.apigetitem.service.ChangeLogService;
+import bartzmoveis.apigetitem.service.CorService;
+import bartzmoveis.apigetitem.service.ItemCorService;
+import bartzmoveis.apigetitem.service.ItemService;
+
+// Mantém o catálogo (ITEM e COR) em memória para que /itens e /cores não precisem
+// fazer um full scan no DB2 a cada requisição. Os dados mudam poucas vezes ao dia,
+// então carregamos tudo na subida e recarregamos de tempos em tempos
+@Component
+public class CatalogCache {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogCache.class);
+
+    // Alterações lidas por ciclo de captura; se vier cheio, o ciclo busca o próximo bloco
+    static final int CHANGE_BATCH = 1000;
+
+    private final ItemService itemService;
+    private final CorService corService;
+    private final ItemCorService itemCorService;
+    private final ChangeLogService changeLog;
+
+    // Cópia local em disco, lida na subida e regravada periodicamente
+    private final SnapshotStore store;
+    private volatile CatalogSnapshot persisted;
+
+    // O mesmo ObjectMapper dos controllers, para que o JSON pré-serializado seja idêntico
+    private final ObjectMapper objectMapper;
+
+    // A troca do snapshot é atômica: leitores sempre veem o antigo ou o novo, nunca uma mistura
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>();
+
+    // Prepara cada snapshot novo fora da thread que o publicou (ver encodeLater)
+    private final ExecutorService encoder = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "catalog-encoder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Agrupa as consultas idênticas que caem no DB2 enquanto não há snapshot
+    private final SingleFlight singleFlight;
+
+    // Corta as consultas ao DB2 enquanto ele está fora do ar; nesse meio tempo as consultas que
+    // já deram certo antes são respondidas com o último resultado bom, marcado como velho
+    private final Db2CircuitBreaker breaker;
+    private final StaleResults staleResults;
+
+    // Avisos de versão entre as réplicas; numa seguidora, quem consulta o DB2 é o líder
+    private final CatalogCoherence coherence;
+
+    // Deltas de cada troca de snapshot, enviados aos clientes de /itens/changes e /cores/changes
+    private final CatalogEvents events;
+
+    // Consultas respondidas pelo snapshot (hit) ou pelo DB2 por falta dele (miss)
+    private final Counter itensHits;
+    private final Counter itensMisses;
+    private final Counter coresHits;
+    private final Counter coresMisses;
+    private final Timer refreshTimer;
+
+    public CatalogCache(ItemService itemService, CorService corService, ItemCorService itemCorService, ChangeLogService changeLog,
+                        SnapshotStore store, ObjectMapper objectMapper, SingleFlight singleFlight,
+                        Db2CircuitBreaker breaker, StaleResults staleResults, CatalogCoherence coherence,
+                        CatalogEvents events, MeterRegistry registry) {
+        this.itemService = itemService;
+        this.corService = corService;
+        this.itemCorService = itemCorService;
+        this.changeLog = changeLog;
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.singleFlight = singleFlight;
+        this.breaker = breaker;
+        this.staleResults = staleResults;
+        this.coherence = coherence;
+        this.events = events;
+        coherence.subscribe(this::follow);
+
+        this.itensHits = lookups(registry, "itens", "hit");
+        this.itensMisses = lookups(registry, "itens", "miss");
+        this.coresHits = lookups(registry, "cores", "hit");
+        this.coresMisses = lookups(registry, "cores", "miss");
+        this.refreshTimer = Timer.builder("catalog.refresh")
+                .description("Duração da recarga completa do catálogo (DB2, índices e JSON)")
+                .register(registry);
+
+        Gauge.builder("catalog.rows", snapshot, ref -> ref.get() != null ? ref.get().itens().size() : 0)
+                .description("Linhas no snapshot em memória")
+                .tag("table", "itens")
+                .register(registry);
+        Gauge.builder("catalog.rows", snapshot, ref -> ref.get() != null ? ref.get().cores().size() : 0)
+                .description("Linhas no snapshot em memória")
+                .tag("table", "cores")
+                .register(registry);
+        Gauge.builder("catalog.age", snapshot, CatalogCache::ageSeconds)
+                .description("Segundos desde a última carga bem-sucedida; NaN sem snapshot")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    // Lê a cópia em disco durante a criação do bean, antes de o Tomcat aceitar conexões,
+    // para que a primeira requisição já seja respondida da memória. Só as linhas e os ETags
+    // são montados aqui; índices de busca e corpos serializados ficam para o encodeLater
+    @PostConstruct
+    public void restore() {
+        SnapshotStore.Stored stored = store.load();
+        if (stored == null) {
+            return;
+        }
+        CatalogSnapshot restored = CatalogSnapshot.withoutIndexes(stored.itens(), stored.cores(),
+                ItemCores.of(stored.itemCores()), stored.loadedAt(), stored.changeSequence(), objectMapper);
+        if (snapshot.compareAndSet(null, restored)) {
+            persisted = restored;
+            encodeLater(restored);
+            events.publish(null, restored, null, null);
+            log.info("Catálogo restaurado do disco: {} itens, {} cores, carregado do DB2 em {}",
+                    restored.itens().size(), restored.cores().size(), restored.loadedAt());
+        }
+    }
+
+    // Primeira carga assim que a aplicação sobe. Se o catálogo veio do disco, a conferência
+    // com o DB2 roda em segundo plano: com a captura de alterações ligada, só o delta desde o
+    // changeSequence gravado no arquivo; sem ela, uma carga completa. Se não veio e o DB2
+    // estiver fora, seguimos sem snapshot e as consultas caem direto no banco até o próximo
+    // refresh dar certo
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (snapshot.get() != null) {
+            CompletableFuture.runAsync(changeLog.enabled() ? this::pollChanges : this::scheduledRefresh);
+            return;
+        }
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("Falha ao carregar o catálogo na inicialização, usando o DB2 diretamente", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.refresh-interval:PT5M}",
+               initialDelayString = "${catalog.refresh-interval:PT5M}")
+    public void scheduledRefresh() {
+        if (coherence.follows()) {
+            return;
+        }
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("Falha ao recarregar o catálogo, mantendo o snapshot anterior", e);
+        }
+    }
+
+    // Regrava a cópia em disco quando o catálogo mudou desde a última gravação
+    @Scheduled(fixedDelayString = "${catalog.snapshot.write-interval:PT1M}",
+               initialDelayString = "${catalog.snapshot.write-interval:PT1M}")
+    public void persist() {
+        CatalogSnapshot current = snapshot.get();
+        if (!store.enabled() || current == null || sameContent(current, persisted)) {
+            return;
+        }
+        try {
+            store.save(current);
+            persisted = current;
+        } catch (IOException e) {
+            log.warn("Falha ao gravar o catálogo em disco, tentando de novo no próximo ciclo", e);
+        }
+    }
+
+    // Com catalog.changes.enabled=true, aplica só o que mudou desde o último ciclo
+    @Scheduled(fixedDelayString = "${catalog.changes.poll-interval:PT5S}",
+               initialDelayString = "${catalog.changes.poll-interval:PT5S}")
+    public void pollChanges() {
+        if (!changeLog.enabled() || coherence.follows()) {
+            return;
+        }
+        try {
+            applyChanges();
+        } catch (RuntimeException e) {
+            log.warn("Falha ao aplicar as alterações do catálogo, tentando de novo no próximo ciclo", e);
+        }
+    }
+
+    // O líder repete o aviso da versão atual para quem perdeu o anterior ou acabou de subir
+    @Scheduled(fixedDelayString = "${catalog.coherence.heartbeat:PT30S}",
+               initialDelayString = "${catalog.coherence.heartbeat:PT30S}")
+    public void heartbeat() {
+        coherence.announce(snapshot.get());
+    }
+
+    // Aviso do líder recebido por uma seguidora. Com captura de alterações, o delta até a
+    // sequência do líder costuma bastar; a carga completa fica para quando ainda não há
+    // snapshot, quando não há captura ou quando o delta não chegou aos mesmos ETags
+    void follow(CatalogAnnouncement announcement) {
+        CatalogSnapshot current = snapshot.get();
+        if (announcement.matches(current)) {
+            return;
+        }
+        try {
+            if (current != null && changeLog.enabled() && current.changeSequence() < announcement.changeSequence()) {
+                current = applyChanges();
+            }
+            // Se o delta passou da sequência anunciada, o próximo aviso do líder vai alcançá-la
+            boolean behind = current == null || !changeLog.enabled()
+                    || current.changeSequence() <= announcement.changeSequence();
+            if (behind && !announcement.matches(current)) {
+                refresh();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Falha ao acompanhar a versão {} do catálogo, aguardando o próximo aviso", announcement.itensEtag(), e);
+        }
+    }
+
+    // Carga completa (ressincronização). synchronized para que um refresh agendado, um disparado
+    // manualmente e a aplicação de alterações não mexam no snapshot ao mesmo tempo
+    public synchronized CatalogSnapshot refresh() {
+        CatalogSnapshot previous = snapshot.get();
+        CatalogSnapshot loaded = refreshTimer.record(() -> breaker.call(() -> {
+            // A marca d'água é lida antes das tabelas: o que mudar durante a carga é reaplicado
+            // no próximo ciclo, o que não tem efeito, pois cada alteração relê a linha atual
+            long changeSequence = changeLog.enabled() ? changeLog.latestSequence() : 0;
+            List<ItemDTO> itens = itemService.listAll();
+            List<CorDTO> cores = corService.listAll();
+            ItemCores itemCores = ItemCores.of(itemCorService.enabled() ? itemCorService.listAll() : List.of());
+            return new CatalogSnapshot(itens, cores, itemCores, Instant.now(), changeSequence, previous, objectMapper);
+        }));
+        snapshot.set(loaded);
+        encodeLater(loaded);
+        events.publish(previous, loaded, null, null);
+        coherence.announce(loaded);
+
+        log.info("Catálogo carregado: {} itens, {} cores", loaded.itens().size(), loaded.cores().size());
+        return loaded;
+    }
+
+    // Lê a tabela de alterações a partir da marca d'água do snapshot e busca no DB2 só as
+    // chaves citadas. Sem snapshot não há base para os deltas; o refresh completo resolve.
+    // Um acúmulo de alterações (depois de uma queda, por exemplo) é lido em blocos de
+    // CHANGE_BATCH, mas as chaves de todos os blocos são juntadas e aplicadas de uma vez,
+    // em um único snapshot novo
+    public synchronized CatalogSnapshot applyChanges() {
+        CatalogSnapshot before = snapshot.get();
+        if (before == null) {
+            return null;
+        }
+
+        Set<String> itemCodes = new LinkedHashSet<>();
+        Set<String> corSiglas = new LinkedHashSet<>();
+        long lastSequence = before.changeSequence();
+        List<CatalogChangeDTO> changes;
+        do {
+            long since = lastSequence;
+            changes = breaker.call(() -> changeLog.changesSince(since, CHANGE_BATCH));
+            for (CatalogChangeDTO change : changes) {
+                if ("ITEM".equals(change.getTable())) {
+                    itemCodes.add(change.getKey());
+                } else if ("COR".equals(change.getTable())) {
+                    corSiglas.add(change.getKey());
+                }
+                lastSequence = change.getSequence();
+            }
+        } while (changes.size() == CHANGE_BATCH);
+
+        if (lastSequence == before.changeSequence()) {
+            return before;
+        }
+
+        List<ItemDTO> itens = itemCodes.isEmpty() ? List.of() : breaker.call(() -> itemService.findByCodes(new ArrayList<>(itemCodes)));
+        List<CorDTO> cores = corSiglas.isEmpty() ? List.of() : breaker.call(() -> corService.findBySiglas(new ArrayList<>(corSiglas)));
+        // O trigger da tabela de vínculo grava o ITEM, então os vínculos são relidos junto com o item
+        List<ItemCorDTO> links = itemCodes.isEmpty() || !itemCorService.enabled() ? List.of()
+                : breaker.call(() -> itemCorService.findByCodes(new ArrayList<>(itemCodes)));
+
+        CatalogSnapshot current = before.withChanges(itemCodes, itens, links, corSiglas, cores, lastSequence, Instant.now(), objectMapper);
+        snapshot.set(current);
+        encodeLater(current);
+        events.publish(before, current, itemCodes, corSiglas);
+        coherence.announce(current);
+
+        log.info("Alterações aplicadas ao catálogo: {} itens, {} cores (até {})",
+                itemCodes.size(), corSiglas.size(), lastSequence);
+        return current;
+    }
+
+    @PreDestroy
+    public void close() {
+        encoder.shutdownNow();
+    }
+
+    // O JSON e o gzip das listas completas, e os índices de busca de um snapshot restaurado do
+    // disco, ficam fora da subida, do refresh e do ciclo de alterações, numa thread só. Se outro
+    // snapshot entrou antes de a vez deste chegar, ele é pulado: o que vale é o mais novo, que já
+    // está na fila. Enquanto isso /itens e /cores são serializados na própria requisição
+    private void encodeLater(CatalogSnapshot published) {
+        encoder.execute(() -> {
+            if (snapshot.get() != published) {
+                return;
+            }
+            try {
+                published.buildIndexes();
+                published.encodeBodies();
+            } catch (RuntimeException e) {
+                log.warn("Falha ao preparar o catálogo; as listas completas serão serializadas a cada requisição", e);
+            }
+        });
+    }
+
+    // Retorna null enquanto nenhuma carga tiver dado certo
+    public CatalogSnapshot current() {
+        return snapshot.get();
+    }
+
+    // Versões usadas no GET condicional; null enquanto o catálogo não estiver em memória
+    public CatalogVersion itensVersion() {
+        CatalogSnapshot current = snapshot.get();
+        return current != null ? current.itensVersion() : null;
+    }
+
+    public CatalogVersion coresVersion() {
+        CatalogSnapshot current = snapshot.get();
+        return current != null ? current.coresVersion() : null;
+    }
+
+    public List<ItemDTO> itens() {
+        CatalogSnapshot current = lookupItens();
+        return current != null ? current.itens() : coalesce("item.listAll", null, null, 0, itemService::listAll);
+    }
+
+    public List<CorDTO> cores() {
+        CatalogSnapshot current = lookupCores();
+        return current != null ? current.cores() : coalesce("cor.listAll", null, null, 0, corService::listAll);
+    }
+
+    // Corpo pré-serializado das listas completas; null enquanto o catálogo não estiver em memória.
+    // Só conta o hit: sem corpo o controller cai em itens()/cores(), que contam o miss
+    public EncodedBody itensBody() {
+        CatalogSnapshot current = snapshot.get();
+        EncodedBody body = current != null ? current.itensBody() : null;
+        if (body != null) {
+            itensHits.increment();
+            markIfDegraded(current);
+        }
+        return body;
+    }
+
+    public EncodedBody coresBody() {
+        CatalogSnapshot current = snapshot.get();
+        EncodedBody body = current != null ? current.coresBody() : null;
+        if (body != null) {
+            coresHits.increment();
+            markIfDegraded(current);
+        }
+        return body;
+    }
+
+    // As buscas usam os índices de trigramas do snapshot; sem snapshot, o LIKE no DB2
+    public List<ItemDTO> findItensByCode(String query) {
+        CatalogSnapshot current = lookupItens();
+        return current != null
+                ? current.findItensByCode(query)
+                : coalesce("item.findByCode", query, null, 0, () -> itemService.findByCode(query));
+    }
+
+    public List<ItemDTO> findItensByDescription(String query) {
+        CatalogSnapshot current = lookupItens();
+        return current != null
+                ? current.findItensByDescription(query)
+                : coalesce("item.findByDescription", query, null, 0, () -> itemService.findByDescription(query));
+    }
+
+    public List<ItemDTO> findItensByRefComercial(String query) {
+        CatalogSnapshot current = lookupItens();
+        return current != null
+                ? current.findItensByRefComercial(query)
+                : coalesce("item.findByRefComercial", query, null, 0, () -> itemService.findByRefComercial(query));
+    }
+
+    // Busca livre ranqueada. Depende do snapshot; sem ele, o melhor que o DB2 oferece é o
+    // LIKE na descrição, sem tolerância a erros nem relevância, cortado em limit
+    public List<ItemDTO> searchItens(String query, int limit) {
+        CatalogSnapshot current = lookupItens();
+        if (current != null) {
+            return current.searchItens(query, limit);
+        }
+        List<ItemDTO> rows = coalesce("item.findByDescription", query, null, 0, () -> itemService.findByDescription(query));
+        return rows.size() > limit ? rows.subList(0, limit) : rows;
+    }
+
+    public List<CorDTO> findCoresBySigla(String query) {
+        CatalogSnapshot current = lookupCores();
+        return current != null
+                ? current.findCoresBySigla(query)
+                : coalesce("cor.findBySiglaCor", query, null, 0, () -> corService.findBySiglaCor(query));
+    }
+
+    public List<CorDTO> findCoresByDescricao(String query) {
+        CatalogSnapshot current = lookupCores();
+        return current != null
+                ? current.findCoresByDescricao(query)
+                : coalesce("cor.findByDescricao", query, null, 0, () -> corService.findByDescricao(query));
+    }
+
+    // Lote de chaves exatas, devolvido na ordem pedida e sem as chaves que não existem.
+    // Com snapshot é só uma consulta ao HashMap por chave; sem snapshot, um IN (...) em blocos
+    public Map<String, ItemDTO> findItensByCodes(List<String> codes) {
+        CatalogSnapshot current = lookupItens();
+        Function<String, ItemDTO> lookup = current != null
+                ? current::itemByCode
+                : byKey(breaker.call(() -> itemService.findByCodes(distinct(codes))), ItemDTO::getCodeItem)::get;
+        return collect(codes, lookup);
+    }
+
+    public Map<String, CorDTO> findCoresBySiglas(List<String> siglas) {
+        CatalogSnapshot current = lookupCores();
+        Function<String, CorDTO> lookup = current != null
+                ? current::corBySigla
+                : byKey(breaker.call(() -> corService.findBySiglas(distinct(siglas))), CorDTO::getSiglaCor)::get;
+        return collect(siglas, lookup);
+    }
+
+    // Itens com as cores vinculadas, na ordem pedida e sem os códigos que não existem. Com
+    // snapshot, o join usa os HashMaps do próprio snapshot; sem ele, o mesmo join é feito sobre
+    // as linhas dos códigos pedidos lidas do DB2 (item, vínculos e cores, cada um num IN (...))
+    public Map<String, ItemDetalheDTO> findItensDetalhe(List<String> codes) {
+        CatalogSnapshot current = lookupItens();
+        if (current != null) {
+            return collect(codes, current::itemDetalhe);
+        }
+
+        List<String> keys = distinct(codes);
+        Map<String, ItemDTO> itens = byKey(breaker.call(() -> itemService.findByCodes(keys)), ItemDTO::getCodeItem);
+        ItemCores links = ItemCores.of(itemCorService.enabled() && !itens.isEmpty()
+                ? breaker.call(() -> itemCorService.findByCodes(new ArrayList<>(itens.keySet())))
+                : List.of());
+        List<String> siglas = links.rows().stream().map(ItemCorDTO::getSiglaCor).distinct().toList();
+        Map<String, CorDTO> cores = siglas.isEmpty() ? Map.of()
+                : byKey(breaker.call(() -> corService.findBySiglas(siglas)), CorDTO::getSiglaCor);
+
+        return collect(codes, code -> {
+            ItemDTO item = itens.get(code);
+            return item != null ? links.detalhe(item, cores::get) : null;
+        });
+    }
+
+    // Páginas por keyset. Com snapshot, a página sai da lista ordenada em memória;
+    // sem snapshot, o DB2 é consultado com FETCH FIRST limit + 1 ROWS ONLY
+    public CatalogPage<ItemDTO> pageItens(String afterCode, int limit) {
+        CatalogSnapshot current = lookupItens();
+        return current != null
+                ? CatalogPage.of(current.itens(), ItemDTO::getCodeItem, afterCode, limit)
+                : CatalogPage.fromLookahead(coalesce("item.listPage", null, afterCode, limit + 1, () -> itemService.listPage(afterCode, limit + 1)), ItemDTO::getCodeItem, limit);
+    }
+
+    public CatalogPage<ItemDTO> pageItensByCode(String query, String afterCode, int limit) {
+        CatalogSnapshot current = lookupItens();
+        return current != null
+                ? CatalogPage.of(current.findItensByCode(query), ItemDTO::getCodeItem, afterCode, limit)
+                : CatalogPage.fromLookahead(coalesce("item.findByCodePage", query, afterCode, limit + 1, () -> itemService.findByCodePage(query, afterCode, limit + 1)), ItemDTO::getCodeItem, limit);
+    }
+
+    public CatalogPage<ItemDTO> pageItensByDescription(String query, String afterCode, int limit) {
+        CatalogSnapshot current = lookupItens();
+        return current != null
+                ? CatalogPage.of(current.findItensByDescription(query), ItemDTO::getCodeItem, afterCode, limit)
+                : CatalogPage.fromLookahead(coalesce("item.findByDescriptionPage", query, afterCode, limit + 1, () -> itemService.findByDescriptionPage(query, afterCode, limit + 1)), ItemDTO::getCodeItem, limit);
+    }
+
+    public CatalogPage<ItemDTO> pageItensByRefComercial(String query, String afterCode, int limit) {
+        CatalogSnapshot current = lookupItens();
+        return current != null
+                ? CatalogPage.of(current.findItensByRefComercial(query), ItemDTO::getCodeItem, afterCode, limit)
+                : CatalogPage.fromLookahead(coalesce("item.findByRefComercialPage", query, afterCode, limit + 1, () -> itemService.findByRefComercialPage(query, afterCode, limit + 1)), ItemDTO::getCodeItem, limit);
+    }
+
+    public CatalogPage<CorDTO> pageCores(String afterSigla, int limit) {
+        CatalogSnapshot current = lookupCores();
+        return current != null
+                ? CatalogPage.of(current.cores(), CorDTO::getSiglaCor, afterSigla, limit)
+                : CatalogPage.fromLookahead(coalesce("cor.listPage", null, afterSigla, limit + 1, () -> corService.listPage(afterSigla, limit + 1)), CorDTO::getSiglaCor, limit);
+    }
+
+    public CatalogPage<CorDTO> pageCoresBySigla(String query, String afterSigla, int limit) {
+        CatalogSnapshot current = lookupCores();
+        return current != null
+                ? CatalogPage.of(current.findCoresBySigla(query), CorDTO::getSiglaCor, afterSigla, limit)
+                : CatalogPage.fromLookahead(coalesce("cor.findBySiglaCorPage", query, afterSigla, limit + 1, () -> corService.findBySiglaCorPage(query, afterSigla, limit + 1)), CorDTO::getSiglaCor, limit);
+    }
+
+    public CatalogPage<CorDTO> pageCoresByDescricao(String query, String afterSigla, int limit) {
+        CatalogSnapshot current = lookupCores();
+        return current != null
+                ? CatalogPage.of(current.findCoresByDescricao(query), CorDTO::getSiglaCor, afterSigla, limit)
+                : CatalogPage.fromLookahead(coalesce("cor.findByDescricaoPage", query, afterSigla, limit + 1, () -> corService.findByDescricaoPage(query, afterSigla, limit + 1)), CorDTO::getSiglaCor, limit);
+    }
+
+    private CatalogSnapshot lookupItens() {
+        CatalogSnapshot current = snapshot.get();
+        (current != null ? itensHits : itensMisses).increment();
+        markIfDegraded(current);
+        return current;
+    }
+
+    private CatalogSnapshot lookupCores() {
+        CatalogSnapshot current = snapshot.get();
+        (current != null ? coresHits : coresMisses).increment();
+        markIfDegraded(current);
+        return current;
+    }
+
+    // Com o disjuntor aberto o snapshot não está sendo atualizado: avisa o cliente
+    private void markIfDegraded(CatalogSnapshot current) {
+        if (current != null && breaker.state() != Db2CircuitBreaker.State.CLOSED) {
+            StaleResponses.mark(current.loadedAt());
+        }
+    }
+
+    // A chave usa o termo normalizado: o DB2 compara com UPPER dos dois lados, então
+    // "branco" e "BRANCO" são a mesma consulta. O cursor entra como veio, pois ITEM > ? diferencia caixa
+    // Se o DB2 falhar (ou o disjuntor estiver aberto) e a mesma consulta já tiver dado certo antes,
+    // a resposta sai com aquele resultado e com Warning/Age, em vez de um erro
+    @SuppressWarnings("unchecked")
+    private <T> T coalesce(String operation, String query, String afterKey, int limit, Supplier<T> loader) {
+        List<Object> key = Arrays.asList(operation, query != null ? NgramIndex.normalize(query) : null, afterKey, limit);
+        try {
+            T value = singleFlight.execute(key, () -> breaker.call(loader));
+            staleResults.remember(key, value);
+            return value;
+        } catch (RuntimeException e) {
+            boolean dbDown = e instanceof Db2UnavailableException || Db2CircuitBreaker.isDatabaseFailure(e);
+            StaleResults.Entry stale = dbDown ? staleResults.lookup(key) : null;
+            if (stale == null) {
+                throw e;
+            }
+            StaleResponses.mark(stale.storedAt());
+            return (T) stale.value();
+        }
+    }
+
+    // Versões reaproveitadas indicam tabela sem mudança, então comparar a referência basta
+    private static boolean sameContent(CatalogSnapshot current, CatalogSnapshot saved) {
+        return saved != null
+                && current.itensVersion() == saved.itensVersion()
+                && current.coresVersion() == saved.coresVersion()
+                && current.changeSequence() == saved.changeSequence();
+    }
+
+    private static Counter lookups(MeterRegistry registry, String table, String result) {
+        return Counter.builder("catalog.lookups")
+                .description("Consultas ao catálogo, por tabela e por origem da resposta")
+                .tag("table", table)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private static double ageSeconds(AtomicReference<CatalogSnapshot> ref) {
+        CatalogSnapshot current = ref.get();
+        return current != null ? Duration.between(current.loadedAt(), Instant.now()).toMillis() / 1000.0 : Double.NaN;
+    }
+
+    private static List<String> distinct(List<String> keys) {
+        return keys.stream().filter(Objects::nonNull).distinct().toList();
+    }
+
+    private static <T> Map<String, T> byKey(List<T> rows, Function<T, String> key) {
+        Map<String, T> map = new HashMap<>();
+        for (T row : rows) {
+            map.put(key.apply(row), row);
+        }
+        return map;
+    }
+
+    private static <T> Map<String, T> collect(List<String> keys, Function<String, T> lookup) {
+        Map<String, T> result = new LinkedHashMap<>();
+        for (String key : keys) {
+            T row = key != null ? lookup.apply(key) : null;
+            if (row != null) {
+                result.put(key, row);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,94 @@
+package bartzmoveis.apigetitem.cache;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Coerência do catálogo entre réplicas atrás do balanceador. Com catalog.coherence.enabled=true,
+// só a instância líder (catalog.coherence.leader=true) recarrega e consulta a tabela de
+// alterações; a cada versão nova ela avisa as demais pelo CatalogBus, e quem recebe aplica o
+// delta ou recarrega até ficar com os mesmos ETags. Assim todas servem a mesma versão e o DB2
+// é consultado por uma instância só. Se o líder ficar mudo por mais que leader-timeout,
+// as seguidoras voltam a recarregar sozinhas até ele reaparecer
+@Component
+public class CatalogCoherence {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogCoherence.class);
+
+    // Identifica esta instância nos avisos, para ignorar os que ela mesma enviou
+    private final String origin = UUID.randomUUID().toString();
+
+    private final CatalogBus bus;
+    private final boolean enabled;
+    private final boolean leader;
+    private final long leaderTimeoutNanos;
+
+    // Último aviso recebido do líder; começa na criação para dar tempo ao primeiro aviso chegar
+    private volatile long lastHeard = System.nanoTime();
+
+    private final Counter sent;
+    private final Counter received;
+
+    public CatalogCoherence(CatalogBus bus,
+                            @Value("${catalog.coherence.enabled:false}") boolean enabled,
+                            @Value("${catalog.coherence.leader:true}") boolean leader,
+                            @Value("${catalog.coherence.leader-timeout:PT2M}") Duration leaderTimeout,
+                            MeterRegistry registry) {
+        this.bus = bus;
+        this.enabled = enabled;
+        this.leader = leader;
+        this.leaderTimeoutNanos = leaderTimeout.toNanos();
+        this.sent = messages(registry, "sent");
+        this.received = messages(registry, "received");
+    }
+
+    // Instância sozinha, sem outras réplicas para avisar
+    public static CatalogCoherence standalone(MeterRegistry registry) {
+        return new CatalogCoherence(new LocalCatalogBus(), false, true, Duration.ZERO, registry);
+    }
+
+    // true quando esta instância deve esperar o aviso do líder em vez de consultar o DB2
+    public boolean follows() {
+        return enabled && !leader && System.nanoTime() - lastHeard < leaderTimeoutNanos;
+    }
+
+    // Avisa as demais instâncias da versão atual; só o líder avisa
+    public void announce(CatalogSnapshot snapshot) {
+        if (!enabled || !leader || snapshot == null) {
+            return;
+        }
+        try {
+            bus.publish(CatalogAnnouncement.of(origin, snapshot));
+            sent.increment();
+        } catch (RuntimeException e) {
+            log.warn("Falha ao avisar as demais instâncias da nova versão do catálogo", e);
+        }
+    }
+
+    // Recebe os avisos do líder (os próprios e os de outras seguidoras são descartados)
+    public void subscribe(Consumer<CatalogAnnouncement> listener) {
+        bus.subscribe(announcement -> {
+            if (!enabled || leader || origin.equals(announcement.origin())) {
+                return;
+            }
+            lastHeard = System.nanoTime();
+            received.increment();
+            listener.accept(announcement);
+        });
+    }
+
+    private static Counter messages(MeterRegistry registry, String direction) {
+        return Counter.builder("catalog.coherence.messages")
+                .description("Avisos de versão do catálogo enviados (líder) e recebidos (seguidoras)")
+                .tag("direction", direction)
+                .register(registry);
+    }
+}
@@ -0,0 +1,246 @@
+package bartzmoveis.apigetitem.cache;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.LongSupplier;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+// Eventos de uma tabela do catálogo (itens ou cores) e os clientes SSE conectados a ela.
+// Guarda os últimos capacity eventos numa fila limitada, para que quem reconecta com
+// Last-Event-ID receba só o que perdeu. Os dados de cada evento já vêm serializados e são
+// enviados iguais para todos os clientes. Cliente parado não ocupa thread do Tomcat: a conexão
+// fica em modo assíncrono e só é escrita quando há evento ou heartbeat.
+// Cada cliente tem a própria fila, limitada a client-queue eventos além do histórico inicial,
+// escrita por uma thread do pool de envio de cada vez (a ordem dos eventos se mantém). Um cliente
+// lento prende no máximo uma thread do pool e só atrasa a si mesmo. Quem estoura a fila, ou fica
+// mais que send-timeout preso numa escrita, é desconectado e reconecta com o Last-Event-ID
+public final class CatalogEventLog {
+
+    static final String CHANGE = "change";
+    static final String VERSION = "version";
+
+    // Evento já serializado; o id enviado ao cliente é boot-sequence
+    record Event(long sequence, String name, String data) {
+    }
+
+    // Comentário vazio do heartbeat, enfileirado como os eventos
+    private static final Event HEARTBEAT = new Event(0, null, null);
+
+    private final String boot;
+    private final int capacity;
+    private final long timeoutMillis;
+    private final int clientQueue;
+    private final long sendTimeoutNanos;
+    private final LongSupplier nanoTime;
+
+    // Pool compartilhado que esvazia as filas dos clientes; a troca do snapshot só enfileira
+    private final Executor sender;
+
+    private final ArrayDeque<Event> events;
+    private long sequence;
+
+    // Evento version da versão atual, mandado a quem conecta sem Last-Event-ID; null sem snapshot
+    private String versionData;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    // O boot entra no id para que um id de antes de um restart (ou de outra réplica) não
+    // seja confundido com um da sequência atual
+    CatalogEventLog(String boot, int capacity, long timeoutMillis, int clientQueue, long sendTimeoutNanos,
+                    Executor sender, LongSupplier nanoTime) {
+        this.boot = boot;
+        this.capacity = capacity;
+        this.timeoutMillis = timeoutMillis;
+        this.clientQueue = clientQueue;
+        this.sendTimeoutNanos = sendTimeoutNanos;
+        this.sender = sender;
+        this.nanoTime = nanoTime;
+        this.events = new ArrayDeque<>(Math.min(capacity, 1024));
+    }
+
+    // Conecta um cliente. Com um Last-Event-ID ainda guardado, recebe os eventos seguintes a ele;
+    // sem id, ou com um id que já saiu da fila, recebe um version com o ETag atual
+    public SseEmitter subscribe(String lastEventId) {
+        return subscribe(new SseEmitter(timeoutMillis), lastEventId);
+    }
+
+    SseEmitter subscribe(SseEmitter emitter, String lastEventId) {
+        // O histórico entra na fila do cliente na mesma trava do append, então sai sempre antes
+        // dos eventos publicados depois dele
+        synchronized (this) {
+            List<Event> backlog = since(lastEventId);
+            if (backlog == null) {
+                backlog = versionData == null ? List.of() : List.of(new Event(sequence, VERSION, versionData));
+            }
+            Subscriber subscriber = new Subscriber(emitter, backlog);
+            emitter.onCompletion(() -> subscriber.drop());
+            emitter.onError(e -> subscriber.drop());
+            subscribers.add(subscriber);
+            subscriber.start();
+        }
+        return emitter;
+    }
+
+    // Registra um evento e o envia a todos os clientes conectados
+    synchronized void append(String name, String data, String version) {
+        Event event = new Event(++sequence, name, data);
+        events.addLast(event);
+        if (events.size() > capacity) {
+            events.removeFirst();
+        }
+        this.versionData = version;
+
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(event);
+        }
+    }
+
+    // Comentário vazio para manter a conexão viva nos proxies e descobrir os clientes que caíram.
+    // Também é o que desconecta, a cada ciclo, quem ficou preso numa escrita sem eventos novos
+    void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(HEARTBEAT);
+        }
+    }
+
+    void close() {
+        List<Subscriber> targets = List.copyOf(subscribers);
+        subscribers.clear();
+        targets.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    int subscribers() {
+        return subscribers.size();
+    }
+
+    // Eventos posteriores ao id, ou null quando o id é desconhecido, de outro boot ou já saiu
+    // da fila (o cliente perdeu eventos e precisa comparar a versão)
+    synchronized List<Event> since(String lastEventId) {
+        if (lastEventId == null || !lastEventId.startsWith(boot + "-")) {
+            return null;
+        }
+        long last;
+        try {
+            last = Long.parseLong(lastEventId.substring(boot.length() + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        long oldest = events.isEmpty() ? sequence + 1 : events.peekFirst().sequence();
+        if (last > sequence || last < oldest - 1) {
+            return null;
+        }
+        List<Event> missed = new ArrayList<>((int) (sequence - last));
+        for (Event event : events) {
+            if (event.sequence() > last) {
+                missed.add(event);
+            }
+        }
+        return missed;
+    }
+
+    synchronized String lastEventId() {
+        return id(sequence);
+    }
+
+    private String id(long sequence) {
+        return boot + "-" + sequence;
+    }
+
+    // Um cliente conectado: a fila dos eventos ainda não escritos e quem está escrevendo nela.
+    // Só uma thread do pool esvazia a fila de cada vez (draining), na ordem de chegada
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final ArrayDeque<Event> queue;
+        private final int limit;
+
+        private boolean draining;
+        private boolean closed;
+        // nanoTime do início da escrita em andamento; 0 quando não está escrevendo
+        private volatile long sendingSince;
+
+        Subscriber(SseEmitter emitter, List<Event> backlog) {
+            this.emitter = emitter;
+            this.queue = new ArrayDeque<>(backlog);
+            // O histórico de quem reconecta não conta para o limite da fila
+            this.limit = backlog.size() + clientQueue;
+        }
+
+        synchronized void start() {
+            if (!queue.isEmpty()) {
+                draining = true;
+                sender.execute(this::drain);
+            }
+        }
+
+        // Chamado pelo append e pelo heartbeat: só enfileira, nunca escreve na conexão
+        void offer(Event event) {
+            long since = sendingSince;
+            boolean stuck = since != 0 && nanoTime.getAsLong() - since > sendTimeoutNanos;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (!stuck && queue.size() < limit) {
+                    queue.addLast(event);
+                    if (!draining) {
+                        draining = true;
+                        sender.execute(this::drain);
+                    }
+                    return;
+                }
+            }
+            // Preso numa escrita ou com a fila cheia
+            drop();
+        }
+
+        // Tira o cliente do feed. A conexão é encerrada pela thread que esvazia a fila, e não
+        // aqui: quem chama pode ser a troca do snapshot, que não espera uma escrita presa
+        void drop() {
+            synchronized (this) {
+                closed = true;
+                queue.clear();
+            }
+            subscribers.remove(this);
+        }
+
+        private void drain() {
+            while (true) {
+                Event event;
+                synchronized (this) {
+                    event = closed ? null : queue.pollFirst();
+                    if (event == null) {
+                        draining = false;
+                        break;
+                    }
+                }
+                sendingSince = nanoTime.getAsLong();
+                try {
+                    if (event == HEARTBEAT) {
+                        emitter.send(SseEmitter.event().comment(""));
+                    } else {
+                        emitter.send(SseEmitter.event().id(id(event.sequence())).name(event.name()).data(event.data()));
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    // Conexão fechada pelo cliente ou emitter já encerrado (timeout)
+                    drop();
+                    return;
+                } finally {
+                    sendingSince = 0;
+                }
+            }
+            synchronized (this) {
+                if (!closed) {
+                    return;
+                }
+            }
+            emitter.complete();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package bartzmoveis.apigetitem.cache;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import bartzmoveis.apigetitem.dto.CatalogDeltaDTO;
+import bartzmoveis.apigetitem.dto.CorDTO;
+import bartzmoveis.apigetitem.dto.ItemDTO;
+
+// Feed de alterações do catálogo para /itens/changes e /cores/changes (Server-Sent Events).
+// A cada troca de snapshot no CatalogCache, compara a versão anterior com a nova e publica um
+// evento change com as linhas incluídas, alteradas e excluídas. Os clientes mantêm uma cópia
+// local e aplicam os deltas, em vez de baixar a lista inteira de tempos em tempos. Quando o
+// delta passa de max-rows (uma ressincronização que mudou metade da tabela), o evento é só um
+// version com o novo ETag, e o cliente baixa a lista de novo com If-None-Match
+@Component
+public class CatalogEvents {
+
+    private static final Comparator<String> KEY_ORDER = Comparator.nullsFirst(Comparator.naturalOrder());
+
+    private final ObjectMapper objectMapper;
+    private final int maxRows;
+
+    private final ExecutorService sender;
+    private final CatalogEventLog itens;
+    private final CatalogEventLog cores;
+
+    public CatalogEvents(ObjectMapper objectMapper,
+                         @Value("${catalog.events.capacity:1000}") int capacity,
+                         @Value("${catalog.events.max-rows:1000}") int maxRows,
+                         @Value("${catalog.events.timeout:PT30M}") Duration timeout,
+                         @Value("${catalog.events.client-queue:100}") int clientQueue,
+                         @Value("${catalog.events.send-timeout:PT10S}") Duration sendTimeout,
+                         @Value("${catalog.events.senders:4}") int senders,
+                         MeterRegistry registry) {
+        this.objectMapper = objectMapper;
+        this.maxRows = maxRows;
+        AtomicInteger threads = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(senders, task -> {
+            Thread thread = new Thread(task, "catalog-events-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        String boot = Long.toString(System.currentTimeMillis(), 36);
+        this.itens = new CatalogEventLog(boot, capacity, timeout.toMillis(), clientQueue, sendTimeout.toNanos(), sender, System::nanoTime);
+        this.cores = new CatalogEventLog(boot, capacity, timeout.toMillis(), clientQueue, sendTimeout.toNanos(), sender, System::nanoTime);
+
+        Gauge.builder("catalog.events.subscribers", itens, CatalogEventLog::subscribers)
+                .description("Clientes conectados ao feed de alterações")
+                .tag("table", "itens")
+                .register(registry);
+        Gauge.builder("catalog.events.subscribers", cores, CatalogEventLog::subscribers)
+                .description("Clientes conectados ao feed de alterações")
+                .tag("table", "cores")
+                .register(registry);
+    }
+
+    public CatalogEventLog itens() {
+        return itens;
+    }
+
+    public CatalogEventLog cores() {
+        return cores;
+    }
+
+    // Chamado pelo CatalogCache logo depois de trocar o snapshot. itemKeys e corKeys são as
+    // chaves citadas na tabela de alterações; null numa carga completa, quando o delta sai da
+    // comparação das duas listas inteiras (ambas ordenadas pela chave)
+    void publish(CatalogSnapshot before, CatalogSnapshot after, Set<String> itemKeys, Set<String> corKeys) {
+        if (after == null) {
+            return;
+        }
+        String itensEtag = after.itensVersion().etag();
+        String previousItens = before == null ? null : before.itensVersion().etag();
+        if (!itensEtag.equals(previousItens)) {
+            CatalogDeltaDTO<ItemDTO> delta = before == null ? null : itemKeys != null
+                    ? byKeys(previousItens, itensEtag, itemKeys, before::itemByCode, after::itemByCode)
+                    : bySortedRows(previousItens, itensEtag, before.itens(), after.itens(), ItemDTO::getCodeItem);
+            append(itens, delta, itensEtag);
+        }
+
+        String coresEtag = after.coresVersion().etag();
+        String previousCores = before == null ? null : before.coresVersion().etag();
+        if (!coresEtag.equals(previousCores)) {
+            CatalogDeltaDTO<CorDTO> delta = before == null ? null : corKeys != null
+                    ? byKeys(previousCores, coresEtag, corKeys, before::corBySigla, after::corBySigla)
+                    : bySortedRows(previousCores, coresEtag, before.cores(), after.cores(), CorDTO::getSiglaCor);
+            append(cores, delta, coresEtag);
+        }
+    }
+
+    // Mantém as conexões vivas nos proxies e libera as dos clientes que sumiram
+    @Scheduled(fixedDelayString = "${catalog.events.heartbeat:PT30S}",
+               initialDelayString = "${catalog.events.heartbeat:PT30S}")
+    public void heartbeat() {
+        itens.heartbeat();
+        cores.heartbeat();
+    }
+
+    @PreDestroy
+    public void close() {
+        itens.close();
+        cores.close();
+        sender.shutdown();
+    }
+
+    private void append(CatalogEventLog log, CatalogDeltaDTO<?> delta, String etag) {
+        String versionData = json(Map.of("version", etag));
+        if (delta == null) {
+            log.append(CatalogEventLog.VERSION, versionData, versionData);
+        } else {
+            log.append(CatalogEventLog.CHANGE, json(delta), versionData);
+        }
+    }
+
+    // Delta da captura de alterações: só as chaves citadas são procuradas nos dois snapshots
+    private <T> CatalogDeltaDTO<T> byKeys(String previousEtag, String etag, Set<String> keys,
+                                          Function<String, T> previousRow, Function<String, T> currentRow) {
+        if (keys.size() > maxRows) {
+            return null;
+        }
+        List<T> upserts = new ArrayList<>();
+        List<String> deletes = new ArrayList<>();
+        for (String key : keys) {
+            T previous = previousRow.apply(key);
+            T current = currentRow.apply(key);
+            if (current == null && previous != null) {
+                deletes.add(key);
+            } else if (current != null && !current.equals(previous)) {
+                upserts.add(current);
+            }
+        }
+        return new CatalogDeltaDTO<>(previousEtag, etag, upserts, deletes);
+    }
+
+    // Delta de uma carga completa: merge das duas listas ordenadas, O(n) e sem mapas auxiliares.
+    // null quando passa de max-rows
+    private <T> CatalogDeltaDTO<T> bySortedRows(String previousEtag, String etag,
+                                                List<T> previousRows, List<T> currentRows, Function<T, String> key) {
+        List<T> upserts = new ArrayList<>();
+        List<String> deletes = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i < previousRows.size() || j < currentRows.size()) {
+            if (upserts.size() + deletes.size() > maxRows) {
+                return null;
+            }
+            T previous = i < previousRows.size() ? previousRows.get(i) : null;
+            T current = j < currentRows.size() ? currentRows.get(j) : null;
+            int order = previous == null ? 1 : current == null ? -1 : KEY_ORDER.compare(key.apply(previous), key.apply(current));
+            if (order < 0) {
+                deletes.add(key.apply(previous));
+                i++;
+            } else if (order > 0) {
+                upserts.add(current);
+                j++;
+            } else {
+                if (!current.equals(previous)) {
+                    upserts.add(current);
+                }
+                i++;
+                j++;
+            }
+        }
+        return upserts.size() + deletes.size() > maxRows ? null : new CatalogDeltaDTO<>(previousEtag, etag, upserts, deletes);
+    }
+
+    private String json(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao serializar o evento do catálogo", e);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package bartzmoveis.apigetitem.cache;
+
+import java.util.List;
+import java.util.function.Function;
+
+// Uma página de resultados ordenados pela chave (ITEM ou SIGLA_COR).
+// nextKey é a chave da última linha devolvida, ou null quando não há mais páginas
+public record CatalogPage<T>(List<T> rows, String nextKey) {
+
+    // Página sobre uma lista já ordenada pela chave, como as do snapshot
+    public static <T> CatalogPage<T> of(List<T> sorted, Function<T, String> key, String afterKey, int limit) {
+        int from = afterKey == null ? 0 : firstAfter(sorted, key, afterKey);
+        int to = Math.min(sorted.size(), from + limit);
+
+        String nextKey = to < sorted.size() && to > from ? key.apply(sorted.get(to - 1)) : null;
+        return new CatalogPage<>(List.copyOf(sorted.subList(from, to)), nextKey);
+    }
+
+    // Página vinda do DB2, que foi consultado com limit + 1 linhas para saber se existe uma próxima
+    public static <T> CatalogPage<T> fromLookahead(List<T> rows, Function<T, String> key, int limit) {
+        if (rows.size() <= limit) {
+            return new CatalogPage<>(rows, null);
+        }
+        List<T> page = rows.subList(0, limit);
+        return new CatalogPage<>(List.copyOf(page), key.apply(page.get(limit - 1)));
+    }
+
+    // Busca binária pela primeira linha com chave maior que afterKey
+    private static <T> int firstAfter(List<T> sorted, Function<T, String> key, String afterKey) {
+        int low = 0;
+        int high = sorted.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (key.apply(sorted.get(mid)).compareTo(afterKey) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
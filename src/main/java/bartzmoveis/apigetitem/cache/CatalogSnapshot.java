@@ -0,0 +1,416 @@
+package bartzmoveis.apigetitem.cache;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import bartzmoveis.apigetitem.dto.CorDTO;
+import bartzmoveis.apigetitem.dto.ItemCorDTO;
+import bartzmoveis.apigetitem.dto.ItemDTO;
+import bartzmoveis.apigetitem.dto.ItemDetalheDTO;
+
+// Fotografia imutável das tabelas SCHEMA.ITEM e SCHEMA.COR em um dado momento.
+// Uma nova instância é montada a cada refresh e trocada de forma atômica no CatalogCache,
+// então quem já pegou uma referência nunca vê dados pela metade
+public final class CatalogSnapshot {
+
+    // As linhas ficam ordenadas pela chave para permitir a paginação por keyset em memória
+    private static final Comparator<ItemDTO> ITEM_ORDER =
+            Comparator.comparing(ItemDTO::getCodeItem, Comparator.nullsFirst(Comparator.naturalOrder()));
+    private static final Comparator<CorDTO> COR_ORDER =
+            Comparator.comparing(CorDTO::getSiglaCor, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    // Corpo de um snapshot montado sem ObjectMapper
+    private static final CompletableFuture<EncodedBody> NOT_ENCODED = CompletableFuture.completedFuture(null);
+
+    // Colunas que entram no hash de cada tabela (ver CatalogVersion)
+    private static final List<Function<ItemDTO, String>> ITEM_COLUMNS =
+            List.of(ItemDTO::getCodeItem, ItemDTO::getDescription, ItemDTO::getRefComercial);
+    private static final List<Function<ItemCorDTO, String>> ITEM_COR_COLUMNS =
+            List.of(ItemCorDTO::getCodeItem, ItemCorDTO::getSiglaCor);
+    private static final List<Function<CorDTO, String>> COR_COLUMNS =
+            List.of(CorDTO::getSiglaCor, CorDTO::getDescricao);
+
+    // Itens em colunas (ver ItemColumns); os DTOs só existem na hora de responder
+    private final ItemColumns itens;
+    private final List<CorDTO> cores;
+    private final Instant loadedAt;
+
+    // Vínculos item–cor; vazio com catalog.item-cores.enabled=false
+    private final ItemCores itemCores;
+
+    // Última alteração da tabela de alterações já refletida aqui (0 sem captura de alterações)
+    private final long changeSequence;
+
+    // Versão de cada tabela, exposta como ETag / Last-Modified pelos controllers.
+    // A de itens cobre também os vínculos item–cor, que só mudam o /itens/{codigo}/detalhe
+    private final CatalogVersion itensVersion;
+    private final CatalogVersion coresVersion;
+
+    // Listas completas já serializadas. A serialização e o gzip não rodam na montagem do
+    // snapshot, e sim depois, em encodeBodies; até lá (ou sem ObjectMapper) o corpo é null e o
+    // controller serializa a lista na própria requisição
+    private final ObjectMapper mapper;
+    private final CompletableFuture<EncodedBody> itensBody;
+    private final CompletableFuture<EncodedBody> coresBody;
+
+    // Busca exata por SIGLA_COR, usada no endpoint de lote (a de ITEM fica no próprio ItemColumns)
+    private final Map<String, CorDTO> coresBySigla;
+
+    // Índices de busca de cada tabela (ver ItemIndexes e CorIndexes). Null num snapshot
+    // restaurado do disco até a primeira busca ou até buildIndexes, para não atrasar a subida
+    private volatile ItemIndexes itemIndexes;
+    private volatile CorIndexes corIndexes;
+
+    public CatalogSnapshot(List<ItemDTO> itens, List<CorDTO> cores, Instant loadedAt) {
+        this(itens, cores, ItemCores.EMPTY, loadedAt, 0, null, null);
+    }
+
+    // Quando uma tabela não mudou em relação ao snapshot anterior (mesmo hash), a versão
+    // e os índices dela são reaproveitados em vez de serem montados de novo. Se a lista
+    // recebida é a própria lista do snapshot anterior, nem a ordenação nem o hash são refeitos
+    CatalogSnapshot(List<ItemDTO> itens, List<CorDTO> cores, ItemCores itemCores, Instant loadedAt,
+                    long changeSequence, CatalogSnapshot previous, ObjectMapper mapper) {
+        this(itens, cores, itemCores, loadedAt, changeSequence, previous, mapper, null, null, false);
+    }
+
+    // Snapshot da cópia em disco: sem os índices de busca, que são montados depois (ver buildIndexes)
+    static CatalogSnapshot withoutIndexes(List<ItemDTO> itens, List<CorDTO> cores, ItemCores itemCores,
+                                          Instant loadedAt, long changeSequence, ObjectMapper mapper) {
+        return new CatalogSnapshot(itens, cores, itemCores, loadedAt, changeSequence, null, mapper, null, null, true);
+    }
+
+    // itensChanged e coresChanged trazem as chaves alteradas em relação a previous e a versão já
+    // recalculada só com elas (aplicação de alterações); null numa carga completa, em que tudo
+    // pode ter mudado
+    private CatalogSnapshot(List<ItemDTO> itens, List<CorDTO> cores, ItemCores itemCores, Instant loadedAt,
+                            long changeSequence, CatalogSnapshot previous, ObjectMapper mapper,
+                            Changed itensChanged, Changed coresChanged, boolean deferIndexes) {
+        boolean keptItens = previous != null && itens == previous.itens && itemCores == previous.itemCores;
+        boolean keptCores = previous != null && cores == previous.cores;
+
+        ItemColumns columns = keptItens ? previous.itens : itens instanceof ItemColumns packed ? packed
+                : ItemColumns.of(itens.stream().sorted(ITEM_ORDER).toList());
+        this.cores = keptCores ? previous.cores : cores.stream().sorted(COR_ORDER).toList();
+        this.loadedAt = loadedAt;
+        this.changeSequence = changeSequence;
+
+        this.itensVersion = keptItens ? previous.itensVersion
+                : itensChanged != null ? itensChanged.version()
+                : CatalogVersion.of(columns, ITEM_COLUMNS, itemCores.rows(), ITEM_COR_COLUMNS,
+                        loadedAt, previous != null ? previous.itensVersion : null);
+        this.coresVersion = keptCores ? previous.coresVersion
+                : coresChanged != null ? coresChanged.version()
+                : CatalogVersion.of(this.cores, COR_COLUMNS, loadedAt, previous != null ? previous.coresVersion : null);
+
+        boolean sameItens = previous != null && previous.itensVersion == this.itensVersion;
+        boolean sameCores = previous != null && previous.coresVersion == this.coresVersion;
+
+        // Mesmo conteúdo: fica com as colunas antigas, às quais os índices reaproveitados se referem
+        this.itens = sameItens ? previous.itens : columns;
+        this.itemCores = sameItens ? previous.itemCores : itemCores;
+
+        if (!deferIndexes) {
+            this.itemIndexes = sameItens ? previous.itemIndexes()
+                    : itensChanged != null ? previous.itemIndexes().withChanges(itensChanged.keys(), this.itens)
+                    : ItemIndexes.build(this.itens);
+            this.corIndexes = sameCores ? previous.corIndexes()
+                    : coresChanged != null ? previous.corIndexes().withChanges(coresChanged.keys(), this.cores)
+                    : CorIndexes.build(this.cores);
+        }
+
+        this.coresBySigla = sameCores ? previous.coresBySigla : byKey(this.cores, CorDTO::getSiglaCor);
+
+        this.mapper = mapper;
+        this.itensBody = mapper == null ? NOT_ENCODED
+                : sameItens && previous.itensBody != NOT_ENCODED ? previous.itensBody : new CompletableFuture<>();
+        this.coresBody = mapper == null ? NOT_ENCODED
+                : sameCores && previous.coresBody != NOT_ENCODED ? previous.coresBody : new CompletableFuture<>();
+    }
+
+    public List<ItemDTO> itens() {
+        return itens;
+    }
+
+    public List<CorDTO> cores() {
+        return cores;
+    }
+
+    public Instant loadedAt() {
+        return loadedAt;
+    }
+
+    public long changeSequence() {
+        return changeSequence;
+    }
+
+    public CatalogVersion itensVersion() {
+        return itensVersion;
+    }
+
+    public CatalogVersion coresVersion() {
+        return coresVersion;
+    }
+
+    // null enquanto encodeBodies não rodou
+    public EncodedBody itensBody() {
+        return itensBody.getNow(null);
+    }
+
+    public EncodedBody coresBody() {
+        return coresBody.getNow(null);
+    }
+
+    // Serializa as listas que ainda não têm corpo (a tabela que não mudou herda o do snapshot
+    // anterior). O JSON e o gzip em compressão máxima de uma tabela grande levam centenas de
+    // milissegundos, então o CatalogCache chama isto fora da thread que trocou o snapshot
+    void encodeBodies() {
+        encode(itensBody, itens);
+        encode(coresBody, cores);
+    }
+
+    // Corpos ainda por serializar, para quem precisa esperar por eles
+    CompletableFuture<EncodedBody> encodedItens() {
+        return itensBody;
+    }
+
+    CompletableFuture<EncodedBody> encodedCores() {
+        return coresBody;
+    }
+
+    // Monta os índices que ainda faltam. Num snapshot restaurado do disco, o CatalogCache chama
+    // isto fora da subida; uma busca que chegue antes monta o índice que precisa e espera por ele
+    void buildIndexes() {
+        itemIndexes();
+        corIndexes();
+    }
+
+    private ItemIndexes itemIndexes() {
+        ItemIndexes indexes = itemIndexes;
+        if (indexes == null) {
+            synchronized (this) {
+                indexes = itemIndexes;
+                if (indexes == null) {
+                    indexes = ItemIndexes.build(itens);
+                    itemIndexes = indexes;
+                }
+            }
+        }
+        return indexes;
+    }
+
+    private CorIndexes corIndexes() {
+        CorIndexes indexes = corIndexes;
+        if (indexes == null) {
+            synchronized (this) {
+                indexes = corIndexes;
+                if (indexes == null) {
+                    indexes = CorIndexes.build(cores);
+                    corIndexes = indexes;
+                }
+            }
+        }
+        return indexes;
+    }
+
+    public ItemDTO itemByCode(String code) {
+        int row = itens.rowOf(code);
+        return row < 0 ? null : itens.get(row);
+    }
+
+    public CorDTO corBySigla(String sigla) {
+        return coresBySigla.get(sigla);
+    }
+
+    // Item com as cores vinculadas, juntadas pelo HashMap de SIGLA_COR deste mesmo snapshot
+    public ItemDetalheDTO itemDetalhe(String code) {
+        ItemDTO item = itemByCode(code);
+        return item == null ? null : itemCores.detalhe(item, coresBySigla::get);
+    }
+
+    ItemCores itemCores() {
+        return itemCores;
+    }
+
+    public List<ItemDTO> findItensByCode(String query) {
+        return select(itens, itemIndexes().code.search(query));
+    }
+
+    public List<ItemDTO> findItensByDescription(String query) {
+        return select(itens, itemIndexes().description.search(query));
+    }
+
+    public List<ItemDTO> findItensByRefComercial(String query) {
+        return select(itens, itemIndexes().refComercial.search(query));
+    }
+
+    public List<ItemDTO> searchItens(String query, int limit) {
+        return itemIndexes().search.search(query, limit);
+    }
+
+    public List<CorDTO> findCoresBySigla(String query) {
+        return select(cores, corIndexes().sigla.search(query));
+    }
+
+    public List<CorDTO> findCoresByDescricao(String query) {
+        return select(cores, corIndexes().descricao.search(query));
+    }
+
+    // Novo snapshot com as alterações aplicadas. changedKeys são as chaves citadas na tabela de
+    // alterações e currentRows o estado atual delas no DB2: chave citada sem linha foi excluída.
+    // Os vínculos dos itens citados são trocados por itemCorRows. A tabela que não teve
+    // alteração é reaproveitada inteira, com índices e JSON; na que teve, os índices de
+    // substring ganham só uma camada com as linhas das chaves citadas
+    CatalogSnapshot withChanges(Set<String> itemKeys, List<ItemDTO> itemRows, List<ItemCorDTO> itemCorRows,
+                                Set<String> corKeys, List<CorDTO> corRows,
+                                long changeSequence, Instant loadedAt, ObjectMapper mapper) {
+        ItemColumns nextItens = itemKeys.isEmpty() ? itens : itens.withChanges(itemKeys, itemRows);
+        ItemCores nextItemCores = itemKeys.isEmpty() ? itemCores : itemCores.withChanges(itemKeys, itemCorRows);
+        List<CorDTO> nextCores = corKeys.isEmpty() ? cores : merge(cores, CorDTO::getSiglaCor, corKeys, corRows);
+
+        // As versões trocam só o hash das linhas das chaves citadas: as de antes pelas de agora
+        Changed itensChanged = itemKeys.isEmpty() ? null : new Changed(itemKeys, CatalogVersion.withChanges(itensVersion,
+                itens.rowsWithCodes(itemKeys), nextItens.rowsWithCodes(itemKeys), ITEM_COLUMNS,
+                itemCores.rowsOf(itemKeys), nextItemCores.rowsOf(itemKeys), ITEM_COR_COLUMNS, loadedAt));
+        Changed coresChanged = corKeys.isEmpty() ? null : new Changed(corKeys, CatalogVersion.withChanges(coresVersion,
+                withKeys(cores, CorDTO::getSiglaCor, corKeys), withKeys(nextCores, CorDTO::getSiglaCor, corKeys),
+                COR_COLUMNS, loadedAt));
+        return new CatalogSnapshot(nextItens, nextCores, nextItemCores, loadedAt, changeSequence, this, mapper,
+                itensChanged, coresChanged, false);
+    }
+
+    private static <T> List<T> merge(List<T> rows, Function<T, String> key, Set<String> changedKeys, List<T> currentRows) {
+        List<T> merged = new ArrayList<>(rows.size() + currentRows.size());
+        for (T row : rows) {
+            if (!changedKeys.contains(key.apply(row))) {
+                merged.add(row);
+            }
+        }
+        merged.addAll(currentRows);
+        return merged;
+    }
+
+    private static <T> List<T> withKeys(List<T> rows, Function<T, String> key, Set<String> keys) {
+        List<T> result = new ArrayList<>();
+        for (T row : rows) {
+            if (keys.contains(key.apply(row))) {
+                result.add(row);
+            }
+        }
+        return result;
+    }
+
+    private static <T> Map<String, T> byKey(List<T> rows, Function<T, String> key) {
+        Map<String, T> map = new HashMap<>(rows.size() * 4 / 3 + 1);
+        for (T row : rows) {
+            map.put(key.apply(row), row);
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    private void encode(CompletableFuture<EncodedBody> body, List<?> rows) {
+        if (!body.isDone()) {
+            body.complete(EncodedBody.encode(mapper, rows));
+        }
+    }
+
+    private static NgramIndex index(int size, IntFunction<String> column) {
+        List<String> values = new ArrayList<>(size);
+        for (int row = 0; row < size; row++) {
+            values.add(column.apply(row));
+        }
+        return NgramIndex.build(values);
+    }
+
+    private static <T> List<T> select(List<T> rows, int[] ids) {
+        List<T> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            result.add(rows.get(id));
+        }
+        return result;
+    }
+
+    private record Changed(Set<String> keys, CatalogVersion version) {
+    }
+
+    // Índices de substring e busca livre dos itens. indexed é a tabela sobre a qual foram montados
+    // do zero e delta as alterações desde então. Delta null: os índices são exatamente desta
+    // tabela. Com delta, cada índice é a base mais um índice pequeno das linhas alteradas, até
+    // que RowDelta.shouldRebuild peça um novo
+    private static final class ItemIndexes {
+
+        private final ItemColumns indexed;
+        private final RowDelta delta;
+        private final NgramIndex code;
+        private final NgramIndex description;
+        private final NgramIndex refComercial;
+        private final ItemSearchIndex search;
+
+        private ItemIndexes(ItemColumns indexed, RowDelta delta, NgramIndex code, NgramIndex description,
+                            NgramIndex refComercial, ItemSearchIndex search) {
+            this.indexed = indexed;
+            this.delta = delta;
+            this.code = code;
+            this.description = description;
+            this.refComercial = refComercial;
+            this.search = search;
+        }
+
+        static ItemIndexes build(ItemColumns itens) {
+            return new ItemIndexes(itens, null, index(itens.size(), itens::code), index(itens.size(), itens::description),
+                    index(itens.size(), itens::refComercial), ItemSearchIndex.build(itens));
+        }
+
+        // Índices de itens, a tabela depois de alterar as chaves keys
+        ItemIndexes withChanges(Set<String> keys, ItemColumns itens) {
+            RowDelta next = RowDelta.of(delta, keys, indexed.size(), indexed::code, itens.size(), itens::code);
+            if (next.shouldRebuild()) {
+                return build(itens);
+            }
+            return new ItemIndexes(indexed, next, code.withChanges(next, itens::code),
+                    description.withChanges(next, itens::description), refComercial.withChanges(next, itens::refComercial),
+                    search.withChanges(next, itens));
+        }
+    }
+
+    // O mesmo para as cores
+    private static final class CorIndexes {
+
+        private final List<CorDTO> indexed;
+        private final RowDelta delta;
+        private final NgramIndex sigla;
+        private final NgramIndex descricao;
+
+        private CorIndexes(List<CorDTO> indexed, RowDelta delta, NgramIndex sigla, NgramIndex descricao) {
+            this.indexed = indexed;
+            this.delta = delta;
+            this.sigla = sigla;
+            this.descricao = descricao;
+        }
+
+        static CorIndexes build(List<CorDTO> cores) {
+            return new CorIndexes(cores, null, index(cores.size(), row -> cores.get(row).getSiglaCor()),
+                    index(cores.size(), row -> cores.get(row).getDescricao()));
+        }
+
+        CorIndexes withChanges(Set<String> keys, List<CorDTO> cores) {
+            RowDelta next = RowDelta.of(delta, keys, indexed.size(), row -> indexed.get(row).getSiglaCor(),
+                    cores.size(), row -> cores.get(row).getSiglaCor());
+            if (next.shouldRebuild()) {
+                return build(cores);
+            }
+            return new CorIndexes(indexed, next, sigla.withChanges(next, row -> cores.get(row).getSiglaCor()),
+                    descricao.withChanges(next, row -> cores.get(row).getDescricao()));
+        }
+    }
+}
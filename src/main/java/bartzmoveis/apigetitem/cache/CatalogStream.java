@@ -0,0 +1,64 @@
+package bartzmoveis.apigetitem.cache;
+
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import bartzmoveis.apigetitem.dto.CorDTO;
+import bartzmoveis.apigetitem.dto.ItemDTO;
+import jakarta.annotation.PreDestroy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+// Leitura do catálogo como Flux, para o profile reactive. As linhas saem em páginas por
+// keyset (as mesmas do CatalogCache: da memória quando há snapshot, do DB2 quando não há),
+// e a próxima página só é pedida quando o cliente consumiu a anterior. Um cliente lento
+// segura no máximo uma página, nunca um cursor nem uma conexão do DB2 aberta. A escrita na
+// conexão, porém, é bloqueante: o Spring MVC a faz numa thread do applicationTaskExecutor, que
+// fica presa enquanto o cliente não lê (o tamanho desse pool está no application-reactive).
+// O JDBC é bloqueante, então cada página roda num scheduler bounded-elastic com no máximo
+// catalog.reactive.db-threads threads, e as threads do servidor nunca esperam o DB2
+@Component
+@ConditionalOnProperty(name = "catalog.reactive.enabled", havingValue = "true")
+public class CatalogStream {
+
+    private final CatalogCache catalog;
+    private final int pageSize;
+    private final Scheduler scheduler;
+
+    public CatalogStream(CatalogCache catalog,
+                         @Value("${catalog.reactive.page-size:500}") int pageSize,
+                         @Value("${catalog.reactive.db-threads:10}") int dbThreads) {
+        this.catalog = catalog;
+        this.pageSize = pageSize;
+        this.scheduler = Schedulers.newBoundedElastic(dbThreads, Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE, "catalog-db");
+    }
+
+    public Flux<ItemDTO> itens() {
+        return rows(afterCode -> catalog.pageItens(afterCode, pageSize));
+    }
+
+    public Flux<CorDTO> cores() {
+        return rows(afterSigla -> catalog.pageCores(afterSigla, pageSize));
+    }
+
+    @PreDestroy
+    public void close() {
+        scheduler.dispose();
+    }
+
+    private <T> Flux<T> rows(Function<String, CatalogPage<T>> loader) {
+        // expand busca a página seguinte a partir do nextKey da anterior, conforme a demanda
+        return page(loader, null)
+                .expand(page -> page.nextKey() == null ? Mono.empty() : page(loader, page.nextKey()))
+                .concatMapIterable(CatalogPage::rows);
+    }
+
+    private <T> Mono<CatalogPage<T>> page(Function<String, CatalogPage<T>> loader, String afterKey) {
+        return Mono.fromCallable(() -> loader.apply(afterKey)).subscribeOn(scheduler);
+    }
+}
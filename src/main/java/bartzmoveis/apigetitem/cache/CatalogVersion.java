@@ -0,0 +1,126 @@
+package bartzmoveis.apigetitem.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Function;
+
+// Versão do conteúdo de uma tabela do catálogo: um hash das linhas (usado como ETag)
+// e o momento em que esse conteúdo apareceu pela primeira vez (usado como Last-Modified).
+// O hash é a soma, módulo 2^128, dos 128 primeiros bits do SHA-256 de cada linha. A soma não
+// depende da ordem e deixa trocar algumas linhas sem reler a tabela: subtrai-se o hash das
+// linhas que saíram e soma-se o das que entraram (ver withChanges)
+public record CatalogVersion(String etag, Instant modifiedAt) {
+
+    // Marcam de qual lista veio a linha, para que uma linha ligada nunca anule uma da tabela
+    private static final byte ROW = 1;
+    private static final byte LINKED = 2;
+
+    // O modifiedAt só avança quando o hash muda; um refresh que traz os mesmos dados
+    // mantém a versão anterior para não invalidar o cache dos clientes à toa
+    static <T> CatalogVersion of(List<T> rows, List<Function<T, String>> columns, Instant loadedAt, CatalogVersion previous) {
+        return of(rows, columns, List.<T>of(), List.of(), loadedAt, previous);
+    }
+
+    // Versão que cobre também linhas de outra tabela ligadas a estas (os vínculos item–cor no
+    // ETag de /itens). Sem linhas ligadas, o hash é o mesmo da versão acima
+    static <T, U> CatalogVersion of(List<T> rows, List<Function<T, String>> columns,
+                                    List<U> linked, List<Function<U, String>> linkedColumns,
+                                    Instant loadedAt, CatalogVersion previous) {
+        Sum sum = new Sum(0, 0);
+        sum.add(ROW, rows, columns, 1);
+        sum.add(LINKED, linked, linkedColumns, 1);
+        return sum.version(loadedAt, previous);
+    }
+
+    static <T> CatalogVersion withChanges(CatalogVersion current, List<T> removed, List<T> added,
+                                          List<Function<T, String>> columns, Instant loadedAt) {
+        return withChanges(current, removed, added, columns, List.<T>of(), List.of(), List.of(), loadedAt);
+    }
+
+    // Versão depois de trocar as linhas removed por added (e removedLinked por addedLinked), com
+    // custo proporcional só a elas. Dá o mesmo hash de recalcular a tabela inteira com of()
+    static <T, U> CatalogVersion withChanges(CatalogVersion current, List<T> removed, List<T> added,
+                                             List<Function<T, String>> columns,
+                                             List<U> removedLinked, List<U> addedLinked,
+                                             List<Function<U, String>> linkedColumns, Instant loadedAt) {
+        Sum sum = new Sum(HexFormat.fromHexDigitsToLong(current.etag, 0, 16), HexFormat.fromHexDigitsToLong(current.etag, 16, 32));
+        sum.add(ROW, removed, columns, -1);
+        sum.add(ROW, added, columns, 1);
+        sum.add(LINKED, removedLinked, linkedColumns, -1);
+        sum.add(LINKED, addedLinked, linkedColumns, 1);
+        return sum.version(loadedAt, current);
+    }
+
+    // Acumulador de 128 bits em dois long, com o vai-um da parte baixa para a alta
+    private static final class Sum {
+
+        private final MessageDigest digest = sha256();
+        private long high;
+        private long low;
+
+        Sum(long high, long low) {
+            this.high = high;
+            this.low = low;
+        }
+
+        // sign = 1 soma as linhas, sign = -1 subtrai
+        <T> void add(byte list, List<T> rows, List<Function<T, String>> columns, int sign) {
+            for (T row : rows) {
+                digest.update(list);
+                for (Function<T, String> column : columns) {
+                    String value = column.apply(row);
+                    // Separadores fora do texto normal para que ("AB", "C") e ("A", "BC") não colidam
+                    if (value == null) {
+                        digest.update((byte) 0);
+                    } else {
+                        digest.update((byte) 1);
+                        digest.update(value.getBytes(StandardCharsets.UTF_8));
+                    }
+                    digest.update((byte) 0x1F);
+                }
+                byte[] hash = digest.digest();
+                long rowHigh = toLong(hash, 0);
+                long rowLow = toLong(hash, 8);
+                if (sign < 0) {
+                    // Subtrair é somar o complemento de dois do valor de 128 bits
+                    rowHigh = ~rowHigh;
+                    rowLow = ~rowLow + 1;
+                    if (rowLow == 0) {
+                        rowHigh++;
+                    }
+                }
+                long sumLow = low + rowLow;
+                high += rowHigh + (Long.compareUnsigned(sumLow, low) < 0 ? 1 : 0);
+                low = sumLow;
+            }
+        }
+
+        CatalogVersion version(Instant loadedAt, CatalogVersion previous) {
+            String etag = String.format("%016x%016x", high, low);
+            if (previous != null && previous.etag.equals(etag)) {
+                return previous;
+            }
+            return new CatalogVersion(etag, loadedAt);
+        }
+
+        private static long toLong(byte[] bytes, int from) {
+            long value = 0;
+            for (int i = from; i < from + 8; i++) {
+                value = (value << 8) | (bytes[i] & 0xFF);
+            }
+            return value;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível na JVM", e);
+        }
+    }
+}
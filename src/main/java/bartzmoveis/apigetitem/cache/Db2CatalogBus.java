@@ -0,0 +1,86 @@
+package bartzmoveis.apigetitem.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import bartzmoveis.apigetitem.service.FetchSettings;
+import bartzmoveis.apigetitem.service.QueryMetrics;
+
+// Transporte por uma tabela de uma linha só no DB2 (DDL no README). O líder grava o aviso
+// e incrementa VERSAO; as demais instâncias leem essa linha a cada poll-interval e avisam
+// os ouvintes quando a VERSAO muda. Ler uma linha pela chave primária custa bem menos que
+// cada instância consultar a tabela de alterações ou recarregar ITEM e COR por conta própria.
+// Leitura e gravação passam pelo FetchSettings e pelo QueryMetrics (operações coherence.poll e
+// coherence.publish), com o mesmo query-timeout das demais consultas
+public class Db2CatalogBus implements CatalogBus {
+
+    private static final Logger log = LoggerFactory.getLogger(Db2CatalogBus.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final QueryMetrics metrics;
+    private final FetchSettings fetch;
+    private final String table;
+    private final List<Consumer<CatalogAnnouncement>> listeners = new CopyOnWriteArrayList<>();
+
+    // Última VERSAO entregue; começa em -1 para que a primeira leitura já sincronize a instância
+    private volatile long lastVersion = -1;
+
+    public Db2CatalogBus(JdbcTemplate jdbcTemplate, QueryMetrics metrics, FetchSettings fetch, String table) {
+        // O nome vai direto no SQL, então só aceitamos SCHEMA.TABELA
+        if (!table.matches("[A-Za-z0-9_]+(\\.[A-Za-z0-9_]+)?")) {
+            throw new IllegalArgumentException("catalog.coherence.db2.table inválido: " + table);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.metrics = metrics;
+        this.fetch = fetch;
+        this.table = table;
+    }
+
+    @Override
+    public void publish(CatalogAnnouncement announcement) {
+        Object[] args = {announcement.origin(), announcement.changeSequence(), announcement.itensEtag(), announcement.coresEtag()};
+        String update = "UPDATE " + table + " SET VERSAO = VERSAO + 1, ORIGEM = ?, SEQ = ?, ITENS = ?, CORES = ? WHERE ID = 1";
+        String insert = "INSERT INTO " + table + " (ID, VERSAO, ORIGEM, SEQ, ITENS, CORES) VALUES (1, 1, ?, ?, ?, ?)";
+
+        int updated = metrics.update("coherence.publish",
+                () -> jdbcTemplate.update(update, fetch.complete("coherence.publish", 0, args)));
+        if (updated == 0) {
+            metrics.update("coherence.publish",
+                    () -> jdbcTemplate.update(insert, fetch.complete("coherence.publish", 0, args)));
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<CatalogAnnouncement> listener) {
+        listeners.add(listener);
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.coherence.poll-interval:PT2S}",
+               initialDelayString = "${catalog.coherence.poll-interval:PT2S}")
+    public void poll() {
+        try {
+            String sql = "SELECT VERSAO, ORIGEM, SEQ, ITENS, CORES FROM " + table + " WHERE ID = 1";
+            List<Row> rows = metrics.query("coherence.poll", (rs, rowNum) -> new Row(rs.getLong(1), new CatalogAnnouncement(
+                            rs.getString(2), rs.getLong(3), rs.getString(4).trim(), rs.getString(5).trim())),
+                    mapper -> jdbcTemplate.query(sql, fetch.complete("coherence.poll", 1), mapper));
+            if (rows.isEmpty() || rows.get(0).version() == lastVersion) {
+                return;
+            }
+            lastVersion = rows.get(0).version();
+            for (Consumer<CatalogAnnouncement> listener : listeners) {
+                listener.accept(rows.get(0).announcement());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Falha ao ler a versão do catálogo em {}, tentando de novo no próximo ciclo", table, e);
+        }
+    }
+
+    private record Row(long version, CatalogAnnouncement announcement) {
+    }
+}
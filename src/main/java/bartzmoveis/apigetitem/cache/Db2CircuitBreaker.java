@@ -0,0 +1,147 @@
+package bartzmoveis.apigetitem.cache;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import bartzmoveis.apigetitem.exceptions.Db2BusyException;
+import bartzmoveis.apigetitem.exceptions.Db2UnavailableException;
+
+// Disjuntor na frente das consultas ao DB2 feitas pelo CatalogCache. Depois de failureThreshold
+// falhas seguidas (timeout, conexão recusada ou perdida) ele abre, e por openFor as consultas
+// falham na hora com Db2UnavailableException, sem ocupar thread nem conexão esperando um banco
+// que não responde. Passado esse tempo, uma única consulta de teste (half-open) é liberada:
+// se der certo o disjuntor fecha, se falhar abre de novo
+public class Db2CircuitBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(Db2CircuitBreaker.class);
+
+    public enum State { CLOSED, HALF_OPEN, OPEN }
+
+    private final int failureThreshold;
+    private final long openForNanos;
+    private final LongSupplier clock;
+
+    private volatile State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probing;
+
+    private final Counter rejected;
+
+    public Db2CircuitBreaker(int failureThreshold, Duration openFor, LongSupplier clock, MeterRegistry registry) {
+        this.failureThreshold = failureThreshold;
+        this.openForNanos = openFor.toNanos();
+        this.clock = clock;
+        this.rejected = Counter.builder("catalog.db.breaker.rejected")
+                .description("Consultas ao DB2 recusadas na hora porque o disjuntor estava aberto")
+                .register(registry);
+        Gauge.builder("catalog.db.breaker.state", this, breaker -> breaker.state.ordinal())
+                .description("Estado do disjuntor do DB2: 0 fechado, 1 meio-aberto, 2 aberto")
+                .register(registry);
+    }
+
+    public <T> T call(Supplier<T> query) {
+        if (!tryAcquire()) {
+            rejected.increment();
+            throw new Db2UnavailableException("DB2 indisponível no momento, tente novamente em instantes", retryAfterSeconds());
+        }
+        try {
+            T result = query.get();
+            onSuccess();
+            return result;
+        } catch (RuntimeException e) {
+            if (isDatabaseFailure(e)) {
+                onFailure(e);
+            } else {
+                // O DB2 respondeu (ou nem foi consultado, no caso do Db2BusyException): não conta
+                releaseProbe();
+            }
+            throw e;
+        }
+    }
+
+    public State state() {
+        return state;
+    }
+
+    public synchronized int consecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    // Segundos até o disjuntor aceitar a próxima consulta de teste (no mínimo 1)
+    public synchronized long retryAfterSeconds() {
+        long remaining = state == State.OPEN ? openForNanos - (clock.getAsLong() - openedAt) : 0;
+        return Math.max(1, Duration.ofNanos(remaining).toSeconds());
+    }
+
+    // Falhas do banco ou da rede; erros de SQL e a fila local cheia não dizem nada sobre a saúde do DB2
+    public static boolean isDatabaseFailure(Throwable e) {
+        if (e instanceof CannotCreateTransactionException) {
+            Throwable cause = e.getCause();
+            while (cause != null && !(cause instanceof Db2BusyException)) {
+                cause = cause.getCause();
+            }
+            return cause == null;
+        }
+        return e instanceof TransientDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof RecoverableDataAccessException;
+    }
+
+    private synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (clock.getAsLong() - openedAt < openForNanos) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probing = true;
+                return true;
+            default:
+                // Meio-aberto: só uma consulta de teste por vez
+                if (probing) {
+                    return false;
+                }
+                probing = true;
+                return true;
+        }
+    }
+
+    private synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        probing = false;
+        if (state != State.CLOSED) {
+            state = State.CLOSED;
+            log.info("DB2 respondendo de novo, disjuntor fechado");
+        }
+    }
+
+    private synchronized void onFailure(RuntimeException e) {
+        probing = false;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAt = clock.getAsLong();
+            log.warn("Disjuntor do DB2 aberto após {} falhas seguidas; nova tentativa em {}s: {}",
+                    consecutiveFailures, Duration.ofNanos(openForNanos).toSeconds(), e.getMessage());
+        }
+    }
+
+    private synchronized void releaseProbe() {
+        probing = false;
+    }
+}
@@ -0,0 +1,38 @@
+package bartzmoveis.apigetitem.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Corpo JSON de uma lista completa do catálogo, serializado uma única vez por versão
+// dos dados e guardado também comprimido em gzip. As requisições de lista completa só
+// copiam estes bytes para o socket, sem passar pelo Jackson
+public record EncodedBody(int rows, byte[] json, byte[] gzip) {
+
+    static EncodedBody encode(ObjectMapper mapper, List<?> rows) {
+        try {
+            byte[] json = mapper.writeValueAsBytes(rows);
+            return new EncodedBody(rows.size(), json, gzip(json));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao serializar o catálogo", e);
+        }
+    }
+
+    // Compressão máxima: o custo é pago uma vez no refresh, e o ganho em toda resposta
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,204 @@
+package bartzmoveis.apigetitem.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
+
+import bartzmoveis.apigetitem.dto.ItemDTO;
+
+// Tabela SCHEMA.ITEM guardada em colunas: ITEM, DESCRICAO e REF_COMERCIAL ficam cada uma
+// em um PackedStrings e a busca por código usa uma tabela de endereçamento aberto de int.
+// Com 100 mil itens isso troca algumas centenas de milhares de objetos de vida longa
+// (DTO, três Strings e os nós do HashMap) por meia dúzia de arrays, o que diminui o heap
+// e o trabalho do GC a cada coleta completa. O ItemDTO só é criado em get(), na hora de
+// responder, e morre logo em seguida, ainda na geração jovem
+final class ItemColumns extends AbstractList<ItemDTO> implements RandomAccess {
+
+    private static final Comparator<String> CODE_ORDER = Comparator.nullsFirst(Comparator.naturalOrder());
+
+    private final PackedStrings codes;
+    private final PackedStrings descriptions;
+    private final PackedStrings refsComerciais;
+
+    // Código -> linha + 1 (0 é posição livre), com sondagem linear e no máximo metade ocupada
+    private final int[] slots;
+
+    private ItemColumns(PackedStrings codes, PackedStrings descriptions, PackedStrings refsComerciais) {
+        this.codes = codes;
+        this.descriptions = descriptions;
+        this.refsComerciais = refsComerciais;
+        this.slots = new int[Math.max(2, Integer.highestOneBit(Math.max(1, codes.size()) * 2 - 1) << 1)];
+
+        int mask = slots.length - 1;
+        for (int row = 0; row < codes.size(); row++) {
+            if (codes.isNull(row)) {
+                continue;
+            }
+            int slot = codes.hashAt(row) & mask;
+            // Código repetido fica com a última linha, como fazia o HashMap
+            while (slots[slot] != 0 && !codes.sameAt(slots[slot] - 1, row)) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = row + 1;
+        }
+    }
+
+    // As linhas precisam vir ordenadas pelo código
+    static ItemColumns of(List<ItemDTO> sortedRows) {
+        Builder builder = new Builder(sortedRows.size());
+        for (ItemDTO item : sortedRows) {
+            builder.add(item);
+        }
+        return builder.build();
+    }
+
+    @Override
+    public ItemDTO get(int row) {
+        return new ItemDTO(codes.get(row), descriptions.get(row), refsComerciais.get(row));
+    }
+
+    @Override
+    public int size() {
+        return codes.size();
+    }
+
+    String code(int row) {
+        return codes.get(row);
+    }
+
+    String description(int row) {
+        return descriptions.get(row);
+    }
+
+    String refComercial(int row) {
+        return refsComerciais.get(row);
+    }
+
+    // Linha do item com o código, ou -1
+    int rowOf(String code) {
+        if (code == null) {
+            return -1;
+        }
+        byte[] key = code.getBytes(StandardCharsets.UTF_8);
+        int mask = slots.length - 1;
+        int slot = PackedStrings.hash(key, 0, key.length) & mask;
+        while (slots[slot] != 0) {
+            int row = slots[slot] - 1;
+            if (codes.equalsAt(row, key)) {
+                return row;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    // Nova tabela sem as linhas de changedKeys e com currentRows (o estado atual dessas chaves
+    // no DB2) nas posições certas. As linhas mantidas são copiadas byte a byte, sem virar DTO
+    ItemColumns withChanges(Set<String> changedKeys, List<ItemDTO> currentRows) {
+        BitSet removed = new BitSet(size());
+        for (String key : changedKeys) {
+            markRows(key, removed);
+        }
+
+        List<ItemDTO> added = currentRows.stream()
+                .sorted(Comparator.comparing(ItemDTO::getCodeItem, CODE_ORDER))
+                .toList();
+
+        Builder builder = new Builder(size() - removed.cardinality() + added.size());
+        int row = 0;
+        for (ItemDTO item : added) {
+            for (int until = upperBound(item.getCodeItem()); row < until; row++) {
+                if (!removed.get(row)) {
+                    builder.copy(this, row);
+                }
+            }
+            builder.add(item);
+        }
+        for (; row < size(); row++) {
+            if (!removed.get(row)) {
+                builder.copy(this, row);
+            }
+        }
+        return builder.build();
+    }
+
+    // Todas as linhas com os códigos informados (um código pode se repetir na tabela)
+    List<ItemDTO> rowsWithCodes(Set<String> keys) {
+        BitSet rows = new BitSet(size());
+        for (String key : keys) {
+            markRows(key, rows);
+        }
+        List<ItemDTO> result = new ArrayList<>(rows.cardinality());
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            result.add(get(row));
+        }
+        return result;
+    }
+
+    private void markRows(String key, BitSet rows) {
+        int row = rowOf(key);
+        if (row < 0) {
+            return;
+        }
+        // Como a tabela é ordenada, códigos repetidos ficam lado a lado
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        int from = row;
+        while (from > 0 && codes.equalsAt(from - 1, bytes)) {
+            from--;
+        }
+        int to = row + 1;
+        while (to < size() && codes.equalsAt(to, bytes)) {
+            to++;
+        }
+        rows.set(from, to);
+    }
+
+    // Primeira linha com código maior que o informado
+    private int upperBound(String code) {
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (CODE_ORDER.compare(codes.get(mid), code) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static final class Builder {
+
+        private final PackedStrings.Builder codes;
+        private final PackedStrings.Builder descriptions;
+        private final PackedStrings.Builder refsComerciais;
+
+        Builder(int expectedRows) {
+            this.codes = new PackedStrings.Builder(expectedRows);
+            this.descriptions = new PackedStrings.Builder(expectedRows);
+            this.refsComerciais = new PackedStrings.Builder(expectedRows);
+        }
+
+        void add(ItemDTO item) {
+            codes.add(item.getCodeItem());
+            descriptions.add(item.getDescription());
+            refsComerciais.add(item.getRefComercial());
+        }
+
+        void copy(ItemColumns source, int row) {
+            source.codes.copyTo(row, codes);
+            source.descriptions.copyTo(row, descriptions);
+            source.refsComerciais.copyTo(row, refsComerciais);
+        }
+
+        ItemColumns build() {
+            return new ItemColumns(codes.build(), descriptions.build(), refsComerciais.build());
+        }
+    }
+}
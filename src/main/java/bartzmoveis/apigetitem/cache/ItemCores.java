@@ -0,0 +1,102 @@
+package bartzmoveis.apigetitem.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import bartzmoveis.apigetitem.dto.CorDTO;
+import bartzmoveis.apigetitem.dto.ItemCorDTO;
+import bartzmoveis.apigetitem.dto.ItemDTO;
+import bartzmoveis.apigetitem.dto.ItemDetalheDTO;
+
+// Vínculos item–cor do snapshot, agrupados por ITEM num HashMap. O detalhe de um item é um
+// hash join: as siglas saem deste índice e cada uma é procurada no índice de cores por
+// SIGLA_COR do mesmo snapshot, então itens, cores e vínculos nunca vêm de cargas diferentes
+final class ItemCores {
+
+    static final ItemCores EMPTY = new ItemCores(List.of());
+
+    private static final Comparator<ItemCorDTO> LINK_ORDER = Comparator
+            .comparing(ItemCorDTO::getCodeItem, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(ItemCorDTO::getSiglaCor, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    // Ordenadas e sem repetição, para que o hash da versão e a cópia em disco não dependam
+    // da ordem em que o DB2 devolveu as linhas
+    private final List<ItemCorDTO> rows;
+
+    private final Map<String, List<String>> siglasByItem;
+
+    private ItemCores(List<ItemCorDTO> sortedRows) {
+        this.rows = sortedRows;
+
+        Map<String, List<String>> grouped = new HashMap<>();
+        for (ItemCorDTO row : sortedRows) {
+            grouped.computeIfAbsent(row.getCodeItem(), code -> new ArrayList<>(2)).add(row.getSiglaCor());
+        }
+        this.siglasByItem = grouped;
+    }
+
+    static ItemCores of(List<ItemCorDTO> rows) {
+        if (rows.isEmpty()) {
+            return EMPTY;
+        }
+        List<ItemCorDTO> sorted = rows.stream()
+                .filter(row -> row.getCodeItem() != null && row.getSiglaCor() != null)
+                .sorted(LINK_ORDER)
+                .distinct()
+                .toList();
+        return new ItemCores(sorted);
+    }
+
+    List<ItemCorDTO> rows() {
+        return rows;
+    }
+
+    List<String> siglasOf(String code) {
+        return siglasByItem.getOrDefault(code, List.of());
+    }
+
+    // Vínculos dos códigos informados, como linhas
+    List<ItemCorDTO> rowsOf(Set<String> codes) {
+        List<ItemCorDTO> result = new ArrayList<>();
+        for (String code : codes) {
+            for (String sigla : siglasOf(code)) {
+                result.add(new ItemCorDTO(code, sigla));
+            }
+        }
+        return result;
+    }
+
+    // Novo índice sem os vínculos dos códigos alterados e com o estado atual deles no DB2
+    ItemCores withChanges(Set<String> changedCodes, List<ItemCorDTO> currentRows) {
+        List<ItemCorDTO> merged = new ArrayList<>(rows.size() + currentRows.size());
+        for (ItemCorDTO row : rows) {
+            if (!changedCodes.contains(row.getCodeItem())) {
+                merged.add(row);
+            }
+        }
+        merged.addAll(currentRows);
+        return of(merged);
+    }
+
+    // Vínculo com sigla que não existe em SCHEMA.COR é ignorado, como num INNER JOIN
+    ItemDetalheDTO detalhe(ItemDTO item, Function<String, CorDTO> corBySigla) {
+        List<String> siglas = siglasOf(item.getCodeItem());
+        if (siglas.isEmpty()) {
+            return new ItemDetalheDTO(item, List.of());
+        }
+        List<CorDTO> cores = new ArrayList<>(siglas.size());
+        for (String sigla : siglas) {
+            CorDTO cor = corBySigla.apply(sigla);
+            if (cor != null) {
+                cores.add(cor);
+            }
+        }
+        return new ItemDetalheDTO(item, Collections.unmodifiableList(cores));
+    }
+}
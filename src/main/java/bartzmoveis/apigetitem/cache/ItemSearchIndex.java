@@ -0,0 +1,434 @@
+package bartzmoveis.apigetitem.cache;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.IntUnaryOperator;
+import java.util.regex.Pattern;
+
+import bartzmoveis.apigetitem.dto.ItemDTO;
+
+// Índice da busca livre de /itens/search?q=. Diferente do NgramIndex (que imita o LIKE do DB2),
+// aqui o texto é quebrado em palavras sem acento e em maiúsculas ("CÔMODA" vira "COMODA"), cada
+// palavra da consulta casa por igualdade, por prefixo ou com erro de digitação, e o resultado
+// vem ordenado por relevância. Só os k melhores são mantidos, em um heap de tamanho k.
+// Uma consulta só toca as palavras do dicionário que podem casar e os itens que as contêm:
+// igualdade e prefixo saem de uma busca binária no dicionário ordenado, e os candidatos a erro
+// de digitação, das palavras de tamanho parecido que passam pelo filtro de letras (ver signature).
+// Depois de alterações pontuais o índice vira uma camada, como o NgramIndex: o índice da base
+// mais um índice só das linhas que entraram, pontuados juntos na mesma consulta
+public final class ItemSearchIndex {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    // Peso de cada coluna: acertar a referência comercial costuma ser intencional
+    private static final int FIELD_DESCRIPTION = 0;
+    private static final int FIELD_REF_COMERCIAL = 1;
+    private static final float[] FIELD_WEIGHT = {1.0f, 1.2f};
+
+    // Peso de cada forma de casamento da palavra
+    private static final float EXACT = 1.0f;
+    private static final float PREFIX = 0.8f;
+    private static final float ONE_TYPO = 0.6f;
+    private static final float TWO_TYPOS = 0.4f;
+
+    // Bônus para quem casou todas as palavras da consulta, que assim fica sempre à frente
+    private static final float ALL_TERMS_BONUS = 10.0f;
+
+    // Palavras da consulta além desta quantidade são ignoradas (cabem na máscara de bits)
+    private static final int MAX_QUERY_TERMS = 16;
+
+    private static final int[] EMPTY = new int[0];
+
+    // Linhas na ordem do snapshot, ou seja, já ordenadas pelo código
+    private final List<ItemDTO> rows;
+
+    // Tamanho da descrição de cada linha, para desempatar sem materializar o item
+    private final int[] descriptionLength;
+
+    // Dicionário em ordem alfabética: palavra -> linhas onde aparece, codificadas como (linha << 1) | coluna
+    private final String[] terms;
+    private final int[][] postings;
+
+    // Ids das palavras agrupados pelo tamanho e a assinatura de letras de cada uma,
+    // usados para separar os candidatos a erro de digitação sem calcular a distância de todas
+    private final int[][] termsByLength;
+    private final long[] signatures;
+
+    // Só nas camadas: o dicionário fica null e a pontuação vem de base e added
+    private final ItemSearchIndex base;
+    private final RowDelta delta;
+    private final ItemSearchIndex added;
+
+    private ItemSearchIndex(List<ItemDTO> rows, ItemSearchIndex base, RowDelta delta, ItemSearchIndex added) {
+        this.rows = rows;
+        this.descriptionLength = null;
+        this.terms = null;
+        this.postings = null;
+        this.termsByLength = null;
+        this.signatures = null;
+        this.base = base;
+        this.delta = delta;
+        this.added = added;
+    }
+
+    private ItemSearchIndex(List<ItemDTO> rows, int[] descriptionLength, String[] terms, int[][] postings) {
+        this.base = null;
+        this.delta = null;
+        this.added = null;
+        this.rows = rows;
+        this.descriptionLength = descriptionLength;
+        this.terms = terms;
+        this.postings = postings;
+
+        int longest = 0;
+        for (String term : terms) {
+            longest = Math.max(longest, term.length());
+        }
+        IntList[] buckets = new IntList[longest + 1];
+        this.signatures = new long[terms.length];
+        for (int t = 0; t < terms.length; t++) {
+            int length = terms[t].length();
+            if (buckets[length] == null) {
+                buckets[length] = new IntList();
+            }
+            buckets[length].add(t);
+            signatures[t] = signature(terms[t]);
+        }
+        this.termsByLength = new int[buckets.length][];
+        for (int length = 0; length < buckets.length; length++) {
+            termsByLength[length] = buckets[length] == null ? EMPTY : buckets[length].toArray();
+        }
+    }
+
+    public static ItemSearchIndex build(List<ItemDTO> rows) {
+        Map<String, IntList> dictionary = new HashMap<>();
+        int[] descriptionLength = new int[rows.size()];
+        for (int row = 0; row < rows.size(); row++) {
+            ItemDTO item = rows.get(row);
+            descriptionLength[row] = length(item.getDescription());
+            addTokens(dictionary, item.getDescription(), row, FIELD_DESCRIPTION);
+            addTokens(dictionary, item.getRefComercial(), row, FIELD_REF_COMERCIAL);
+        }
+
+        String[] terms = dictionary.keySet().toArray(new String[0]);
+        Arrays.sort(terms);
+        int[][] postings = new int[terms.length][];
+        for (int i = 0; i < terms.length; i++) {
+            postings[i] = dictionary.get(terms[i]).toArray();
+        }
+        return new ItemSearchIndex(rows, descriptionLength, terms, postings);
+    }
+
+    // Índice de rows, a tabela depois das alterações em delta, que precisa ser relativo à mesma
+    // base deste índice. Só as linhas que entraram são indexadas; a base é compartilhada
+    ItemSearchIndex withChanges(RowDelta delta, List<ItemDTO> rows) {
+        List<ItemDTO> changed = new ArrayList<>(delta.added().length);
+        for (int row : delta.added()) {
+            changed.add(rows.get(row));
+        }
+        return new ItemSearchIndex(rows, base != null ? base : this, delta, build(changed));
+    }
+
+    // Os k itens mais relevantes, do mais para o menos relevante
+    public List<ItemDTO> search(String query, int limit) {
+        List<String> queryTerms = tokenize(query);
+        if (queryTerms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        if (queryTerms.size() > MAX_QUERY_TERMS) {
+            queryTerms = queryTerms.subList(0, MAX_QUERY_TERMS);
+        }
+
+        // Pontuação só dos itens que casaram alguma palavra, em vez de arrays do tamanho do catálogo.
+        // Numa camada, cada linha está só na base ou só entre as que entraram, então as duas
+        // partes somam na mesma tabela sem se misturar
+        Scores scores = new Scores();
+        if (delta != null) {
+            int[] addedRows = delta.added();
+            base.score(queryTerms, scores, delta::toCurrent);
+            added.score(queryTerms, scores, row -> addedRows[row]);
+        } else {
+            score(queryTerms, scores, row -> row);
+        }
+
+        // Ordem crescente de relevância (o menor é o pior): pontuação, depois descrição mais
+        // curta (casou uma fração maior do texto) e por fim o menor código, que é a menor linha.
+        // Só os k itens devolvidos chegam a ser materializados
+        int allTerms = (1 << queryTerms.size()) - 1;
+        Comparator<Integer> ranking = Comparator
+                .<Integer>comparingDouble(entry -> scores.score(entry, allTerms))
+                .thenComparingInt(entry -> -scores.length[entry])
+                .thenComparingInt(entry -> -scores.rows[entry]);
+
+        // Heap com o pior dos k melhores no topo: cada candidato custa O(log k), sem ordenar todos
+        PriorityQueue<Integer> top = new PriorityQueue<>(limit + 1, ranking);
+        for (int entry = 0; entry < scores.size; entry++) {
+            top.add(entry);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+
+        ItemDTO[] result = new ItemDTO[top.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = rows.get(scores.rows[top.poll()]);
+        }
+        return Arrays.asList(result);
+    }
+
+    // Pontua as linhas deste índice em scores. toRow converte a linha daqui para a da tabela
+    // atual (-1 para as que saíram dela)
+    private void score(List<String> queryTerms, Scores scores, IntUnaryOperator toRow) {
+        IntList touched = new IntList();
+        int longestTerm = 0;
+        for (String queryTerm : queryTerms) {
+            longestTerm = Math.max(longestTerm, queryTerm.length());
+        }
+        // Linhas da matriz da distância, reaproveitadas por todas as palavras candidatas da consulta
+        int[][] rowsOfDistance = new int[3][longestTerm + 3];
+
+        for (int q = 0; q < queryTerms.size(); q++) {
+            String queryTerm = queryTerms.get(q);
+            // Só a última palavra é tratada como prefixo: é a que o usuário ainda está digitando
+            boolean last = q == queryTerms.size() - 1;
+
+            int exact = Arrays.binarySearch(terms, queryTerm);
+            if (exact >= 0) {
+                collect(exact, EXACT, scores, touched, toRow);
+            }
+            int prefixEnd = exact >= 0 ? exact + 1 : -exact - 1;
+            if (last) {
+                while (prefixEnd < terms.length && terms[prefixEnd].startsWith(queryTerm)) {
+                    collect(prefixEnd++, PREFIX, scores, touched, toRow);
+                }
+            }
+            collectTypos(queryTerm, exact, last, prefixEnd, rowsOfDistance, scores, touched, toRow);
+
+            // Cada palavra da consulta conta uma vez por item, pela melhor forma em que casou
+            for (int i = 0; i < touched.size; i++) {
+                int entry = touched.values[i];
+                scores.total[entry] += scores.best[entry];
+                scores.matched[entry] |= 1 << q;
+                scores.best[entry] = 0;
+            }
+            touched.size = 0;
+        }
+    }
+
+    // Sem acento, em maiúsculas e quebrado em palavras por qualquer caractere que não seja letra ou dígito
+    static List<String> tokenize(String value) {
+        if (value == null || value.isEmpty()) {
+            return List.of();
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("")
+                .toUpperCase(Locale.ROOT);
+
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean letter = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                tokens.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    // Palavras com até maxTypos erros em relação à consulta. Uma edição muda o tamanho em no
+    // máximo 1 e o conjunto de letras em no máximo 2, então só entram na conta da distância as
+    // palavras de tamanho próximo cuja assinatura difere em até 2 * maxTypos letras. As que já
+    // casaram por igualdade ou prefixo ficam de fora
+    private void collectTypos(String query, int exact, boolean last, int prefixEnd, int[][] buffers,
+                              Scores scores, IntList touched, IntUnaryOperator toRow) {
+        // Erros de digitação só a partir de 4 letras; em palavras curtas quase tudo viraria resultado
+        int maxTypos = query.length() >= 8 ? 2 : query.length() >= 4 ? 1 : 0;
+        if (maxTypos == 0) {
+            return;
+        }
+        int prefixStart = exact >= 0 ? exact + 1 : -exact - 1;
+        long signature = signature(query);
+        int from = Math.max(0, query.length() - maxTypos);
+        int to = Math.min(termsByLength.length - 1, query.length() + maxTypos);
+        for (int length = from; length <= to; length++) {
+            for (int t : termsByLength[length]) {
+                if (t == exact || (last && t >= prefixStart && t < prefixEnd)
+                        || Long.bitCount(signatures[t] ^ signature) > 2 * maxTypos) {
+                    continue;
+                }
+                int distance = distance(query, terms[t], maxTypos, buffers[0], buffers[1], buffers[2]);
+                if (distance <= maxTypos) {
+                    collect(t, distance == 1 ? ONE_TYPO : TWO_TYPOS, scores, touched, toRow);
+                }
+            }
+        }
+    }
+
+    // Soma a forma de casamento da palavra t a cada item que a contém, guardando só a melhor por item
+    private void collect(int t, float score, Scores scores, IntList touched, IntUnaryOperator toRow) {
+        for (int posting : postings[t]) {
+            int row = toRow.applyAsInt(posting >>> 1);
+            if (row < 0) {
+                continue;
+            }
+            int entry = scores.entry(row, descriptionLength[posting >>> 1]);
+            float weighted = score * FIELD_WEIGHT[posting & 1];
+            if (scores.best[entry] == 0) {
+                touched.add(entry);
+            }
+            if (weighted > scores.best[entry]) {
+                scores.best[entry] = weighted;
+            }
+        }
+    }
+
+    static int distance(String a, String b, int max) {
+        return distance(a, b, max, new int[b.length() + 1], new int[b.length() + 1], new int[b.length() + 1]);
+    }
+
+    // Distância de Damerau-Levenshtein (com troca de letras vizinhas) limitada a max:
+    // devolve max + 1 assim que uma linha inteira da matriz passa do limite. As três linhas
+    // da matriz vêm de fora, com pelo menos b.length() + 1 posições
+    private static int distance(String a, String b, int max, int[] previous2, int[] previous, int[] current) {
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+
+    // Conjunto de letras da palavra em 64 bits: A-Z e 0-9 têm um bit cada, o resto divide os demais
+    private static long signature(String term) {
+        long bits = 0;
+        for (int i = 0; i < term.length(); i++) {
+            char c = term.charAt(i);
+            int bit = c >= 'A' && c <= 'Z' ? c - 'A' : c >= '0' && c <= '9' ? 26 + c - '0' : 36 + c % 28;
+            bits |= 1L << bit;
+        }
+        return bits;
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private static void addTokens(Map<String, IntList> dictionary, String value, int row, int field) {
+        for (String token : tokenize(value)) {
+            IntList list = dictionary.computeIfAbsent(token, key -> new IntList());
+            int posting = (row << 1) | field;
+            // A mesma palavra repetida na mesma coluna entra uma vez só
+            if (list.size == 0 || list.values[list.size - 1] != posting) {
+                list.add(posting);
+            }
+        }
+    }
+
+    // Pontuação dos itens tocados por uma consulta. Cada item ganha uma entrada, na ordem em que
+    // apareceu, e uma tabela de endereçamento aberto (linha -> entrada + 1) encontra a entrada dele.
+    // Tudo cresce com o número de itens que casaram, não com o tamanho do catálogo
+    private static final class Scores {
+
+        private int[] slots = new int[64];
+        private int[] rows = new int[32];
+        private int[] length = new int[32];
+        private float[] total = new float[32];
+        private int[] matched = new int[32];
+        private float[] best = new float[32];
+        private int size;
+
+        // Entrada da linha, criada na primeira vez com o tamanho da descrição (usado no desempate)
+        int entry(int row, int descriptionLength) {
+            int mask = slots.length - 1;
+            int slot = hash(row) & mask;
+            while (slots[slot] != 0) {
+                int entry = slots[slot] - 1;
+                if (rows[entry] == row) {
+                    return entry;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+                length = Arrays.copyOf(length, size * 2);
+                total = Arrays.copyOf(total, size * 2);
+                matched = Arrays.copyOf(matched, size * 2);
+                best = Arrays.copyOf(best, size * 2);
+            }
+            rows[size] = row;
+            length[size] = descriptionLength;
+            slots[slot] = ++size;
+            // No máximo metade da tabela ocupada, para as sondagens continuarem curtas
+            if (size * 2 > slots.length) {
+                rehash();
+            }
+            return size - 1;
+        }
+
+        float score(int entry, int allTerms) {
+            return total[entry] + (matched[entry] == allTerms ? ALL_TERMS_BONUS : 0);
+        }
+
+        private void rehash() {
+            slots = new int[slots.length * 2];
+            int mask = slots.length - 1;
+            for (int entry = 0; entry < size; entry++) {
+                int slot = hash(rows[entry]) & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = entry + 1;
+            }
+        }
+
+        private static int hash(int row) {
+            int h = row * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+
+    private static final class IntList {
+
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package bartzmoveis.apigetitem.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Transporte dentro da própria JVM: entrega o aviso na hora, na thread de quem publicou.
+// É o padrão de uma instância só e permite simular várias instâncias nos testes
+public class LocalCatalogBus implements CatalogBus {
+
+    private final List<Consumer<CatalogAnnouncement>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(CatalogAnnouncement announcement) {
+        for (Consumer<CatalogAnnouncement> listener : listeners) {
+            listener.accept(announcement);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<CatalogAnnouncement> listener) {
+        listeners.add(listener);
+    }
+}
@@ -0,0 +1,92 @@
+package bartzmoveis.apigetitem.cache;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Transporte por UDP multicast na rede local: cada aviso é um datagrama com o JSON do
+// CatalogAnnouncement. Não passa pelo DB2, mas datagramas podem se perder; o aviso periódico
+// do líder (catalog.coherence.heartbeat) cobre essas perdas
+public class MulticastCatalogBus implements CatalogBus, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(MulticastCatalogBus.class);
+
+    // Um aviso tem bem menos que isso; o que passar é descartado pelo receive
+    private static final int MAX_DATAGRAM = 1024;
+
+    private final InetSocketAddress group;
+    private final MulticastSocket socket;
+    private final ObjectMapper objectMapper;
+    private final List<Consumer<CatalogAnnouncement>> listeners = new CopyOnWriteArrayList<>();
+    private final Thread receiver;
+
+    public MulticastCatalogBus(InetAddress group, int port, NetworkInterface networkInterface, int ttl,
+                               ObjectMapper objectMapper) throws IOException {
+        this.group = new InetSocketAddress(group, port);
+        this.objectMapper = objectMapper;
+        this.socket = new MulticastSocket(port);
+        this.socket.setTimeToLive(ttl);
+        if (networkInterface != null) {
+            this.socket.setNetworkInterface(networkInterface);
+        }
+        this.socket.joinGroup(this.group, networkInterface);
+
+        this.receiver = new Thread(this::receive, "catalog-multicast");
+        this.receiver.setDaemon(true);
+        this.receiver.start();
+    }
+
+    @Override
+    public void publish(CatalogAnnouncement announcement) {
+        try {
+            byte[] bytes = objectMapper.writeValueAsBytes(announcement);
+            socket.send(new DatagramPacket(bytes, bytes.length, group));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao enviar o aviso do catálogo para " + group, e);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<CatalogAnnouncement> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void close() {
+        // Fechar o socket interrompe o receive bloqueado e encerra a thread
+        socket.close();
+    }
+
+    private void receive() {
+        byte[] buffer = new byte[MAX_DATAGRAM];
+        while (!socket.isClosed()) {
+            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            try {
+                socket.receive(packet);
+                CatalogAnnouncement announcement = objectMapper.readValue(
+                        packet.getData(), packet.getOffset(), packet.getLength(), CatalogAnnouncement.class);
+                for (Consumer<CatalogAnnouncement> listener : listeners) {
+                    listener.accept(announcement);
+                }
+            } catch (IOException e) {
+                if (!socket.isClosed()) {
+                    log.warn("Aviso do catálogo inválido recebido de {}", packet.getSocketAddress(), e);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Falha ao aplicar o aviso do catálogo", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package bartzmoveis.apigetitem.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.IntFunction;
+
+// Índice de trigramas sobre uma coluna do catálogo. Substitui o
+// UPPER(col) LIKE UPPER('%q%') do DB2, que não usa índice e faz full scan a cada tecla
+// do autocomplete. A semântica é a mesma: contém o texto, sem diferenciar maiúsculas.
+// Depois de alterações pontuais o índice vira uma camada: o índice da base, montado na última
+// carga completa, mais um índice só das linhas que entraram desde então (ver RowDelta)
+public final class NgramIndex {
+
+    private static final int N = 3;
+    private static final int[] EMPTY = new int[0];
+
+    // Valores já em maiúsculas, na mesma ordem das linhas do snapshot, empacotados em
+    // UTF-8 para não manter uma segunda cópia da coluna como String
+    private final PackedStrings values;
+
+    // Cada trigrama (3 chars empacotados em um long) aponta para as linhas que o contêm, em ordem crescente
+    private final Map<Long, int[]> postings;
+
+    // Só nas camadas: values e postings ficam null e as buscas vão para base e added
+    private final NgramIndex base;
+    private final RowDelta delta;
+    private final NgramIndex added;
+
+    private NgramIndex(PackedStrings values, Map<Long, int[]> postings) {
+        this.values = values;
+        this.postings = postings;
+        this.base = null;
+        this.delta = null;
+        this.added = null;
+    }
+
+    private NgramIndex(NgramIndex base, RowDelta delta, NgramIndex added) {
+        this.values = null;
+        this.postings = null;
+        this.base = base;
+        this.delta = delta;
+        this.added = added;
+    }
+
+    public static NgramIndex build(List<String> column) {
+        PackedStrings.Builder values = new PackedStrings.Builder(column.size());
+        Map<Long, IntList> builder = new HashMap<>();
+
+        for (int row = 0; row < column.size(); row++) {
+            String value = column.get(row);
+            if (value == null) {
+                values.add(null);
+                continue;
+            }
+            String normalized = normalize(value);
+            values.add(normalized);
+            for (int i = 0; i + N <= normalized.length(); i++) {
+                // Como as linhas são percorridas em ordem, basta olhar o último id para evitar repetição
+                builder.computeIfAbsent(gram(normalized, i), k -> new IntList()).addIfLast(row);
+            }
+        }
+
+        Map<Long, int[]> postings = new HashMap<>(builder.size() * 4 / 3 + 1);
+        builder.forEach((gram, rows) -> postings.put(gram, rows.toArray()));
+        return new NgramIndex(values.build(), postings);
+    }
+
+    // Índice da coluna depois das alterações em delta, que precisa ser relativo à mesma base
+    // deste índice. Só as linhas que entraram são indexadas; a base é compartilhada
+    NgramIndex withChanges(RowDelta delta, IntFunction<String> column) {
+        List<String> values = new ArrayList<>(delta.added().length);
+        for (int row : delta.added()) {
+            values.add(column.apply(row));
+        }
+        return new NgramIndex(base != null ? base : this, delta, build(values));
+    }
+
+    public int size() {
+        return delta != null ? delta.size() : values.size();
+    }
+
+    // Ids das linhas cujo valor contém a consulta, em ordem crescente
+    public int[] search(String query) {
+        if (delta != null) {
+            return delta.merge(base.search(query), added.search(query));
+        }
+        String q = normalize(query);
+
+        if (q.length() < N) {
+            return scan(q);
+        }
+
+        List<int[]> lists = new ArrayList<>();
+        for (int i = 0; i + N <= q.length(); i++) {
+            int[] rows = postings.get(gram(q, i));
+            if (rows == null) {
+                return EMPTY;
+            }
+            lists.add(rows);
+        }
+
+        // Começa pela lista mais curta para que as interseções encolham o mais rápido possível
+        lists.sort(Comparator.comparingInt(rows -> rows.length));
+        int[] candidates = lists.get(0);
+        for (int i = 1; i < lists.size() && candidates.length > 0; i++) {
+            candidates = intersect(candidates, lists.get(i));
+        }
+
+        // Os trigramas garantem só que as partes existem; a ordem é confirmada aqui
+        return verify(candidates, q.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String normalize(String value) {
+        return Objects.requireNonNullElse(value, "").toUpperCase(Locale.ROOT);
+    }
+
+    private int[] scan(String q) {
+        byte[] needle = q.getBytes(StandardCharsets.UTF_8);
+        IntList rows = new IntList();
+        for (int row = 0; row < values.size(); row++) {
+            if (values.contains(row, needle)) {
+                rows.add(row);
+            }
+        }
+        return rows.toArray();
+    }
+
+    private int[] verify(int[] candidates, byte[] needle) {
+        IntList rows = new IntList();
+        for (int row : candidates) {
+            if (values.contains(row, needle)) {
+                rows.add(row);
+            }
+        }
+        return rows.toArray();
+    }
+
+    private static long gram(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, k = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[k++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, k);
+    }
+
+    // Lista de int sem boxing, usada só durante a montagem do índice
+    private static final class IntList {
+        private int[] data = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = value;
+        }
+
+        void addIfLast(int value) {
+            if (size == 0 || data[size - 1] != value) {
+                add(value);
+            }
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+}
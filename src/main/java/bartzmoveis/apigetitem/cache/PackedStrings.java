@@ -0,0 +1,140 @@
+package bartzmoveis.apigetitem.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+// Coluna de textos empacotada: todos os valores em UTF-8 num único byte[] e um int[] com
+// o início de cada um. Em vez de um String por linha (cabeçalho, array e referência, uns
+// 40 bytes além do texto), cada linha custa só 4 bytes de offset
+final class PackedStrings {
+
+    private final byte[] data;
+
+    // offsets[i] até offsets[i + 1] são os bytes da linha i
+    private final int[] offsets;
+
+    // Linhas cujo valor é null (o trecho delas em data fica vazio)
+    private final BitSet nulls;
+
+    private PackedStrings(byte[] data, int[] offsets, BitSet nulls) {
+        this.data = data;
+        this.offsets = offsets;
+        this.nulls = nulls;
+    }
+
+    static PackedStrings of(List<String> values) {
+        Builder builder = new Builder(values.size());
+        for (String value : values) {
+            builder.add(value);
+        }
+        return builder.build();
+    }
+
+    int size() {
+        return offsets.length - 1;
+    }
+
+    String get(int row) {
+        if (nulls.get(row)) {
+            return null;
+        }
+        return new String(data, offsets[row], offsets[row + 1] - offsets[row], StandardCharsets.UTF_8);
+    }
+
+    boolean isNull(int row) {
+        return nulls.get(row);
+    }
+
+    boolean equalsAt(int row, byte[] value) {
+        return !nulls.get(row)
+                && Arrays.equals(data, offsets[row], offsets[row + 1], value, 0, value.length);
+    }
+
+    boolean sameAt(int a, int b) {
+        return nulls.get(a) == nulls.get(b)
+                && Arrays.equals(data, offsets[a], offsets[a + 1], data, offsets[b], offsets[b + 1]);
+    }
+
+    // Busca de substring direto nos bytes. Como nenhum caractere em UTF-8 começa no meio
+    // de outro, achar os bytes da consulta equivale a achar o texto
+    boolean contains(int row, byte[] needle) {
+        if (nulls.get(row)) {
+            return false;
+        }
+        int last = offsets[row + 1] - needle.length;
+        outer:
+        for (int i = offsets[row]; i <= last; i++) {
+            for (int j = 0; j < needle.length; j++) {
+                if (data[i + j] != needle[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    int hashAt(int row) {
+        return hash(data, offsets[row], offsets[row + 1]);
+    }
+
+    // Cópia dos bytes de uma linha para outra coluna, sem passar por String
+    void copyTo(int row, Builder target) {
+        if (nulls.get(row)) {
+            target.add(null);
+        } else {
+            target.addBytes(data, offsets[row], offsets[row + 1] - offsets[row]);
+        }
+    }
+
+    static int hash(byte[] bytes, int from, int to) {
+        int h = 1;
+        for (int i = from; i < to; i++) {
+            h = 31 * h + bytes[i];
+        }
+        // Espalha os bits baixos, que são os usados pela tabela de endereçamento aberto
+        return h ^ (h >>> 16);
+    }
+
+    static final class Builder {
+
+        private byte[] data;
+        private int[] offsets;
+        private final BitSet nulls = new BitSet();
+        private int size;
+
+        Builder(int expectedRows) {
+            this.data = new byte[Math.max(16, expectedRows * 16)];
+            this.offsets = new int[expectedRows + 1];
+        }
+
+        void add(String value) {
+            if (value == null) {
+                nulls.set(size);
+                addBytes(data, 0, 0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            addBytes(bytes, 0, bytes.length);
+        }
+
+        void addBytes(byte[] source, int from, int length) {
+            int start = offsets[size];
+            if (start + length > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, start + length));
+            }
+            System.arraycopy(source, from, data, start, length);
+            if (size + 2 > offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[++size] = start + length;
+        }
+
+        PackedStrings build() {
+            // Corta a folga dos arrays de montagem para que o snapshot guarde só o necessário
+            return new PackedStrings(Arrays.copyOf(data, offsets[size]), Arrays.copyOf(offsets, size + 1), nulls);
+        }
+    }
+}
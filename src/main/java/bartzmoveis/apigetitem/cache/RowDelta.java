@@ -0,0 +1,189 @@
+package bartzmoveis.apigetitem.cache;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+// Diferença entre uma tabela ordenada pela chave e a versão dela sobre a qual os índices foram
+// montados (a base). Cada chave alterada desde a base tem todas as linhas dela removidas da
+// base e as linhas atuais inseridas no lugar certo da ordem, que é exatamente o que
+// ItemColumns.withChanges e o merge de cores fazem. Com isso, uma linha da base que continua
+// na tabela muda de posição só pelo que saiu e entrou antes dela, e essa conta sai de duas
+// buscas binárias em vez de um índice novo
+final class RowDelta {
+
+    private static final Comparator<String> KEY_ORDER = Comparator.nullsFirst(Comparator.naturalOrder());
+
+    // Os índices são remontados quando as linhas alteradas passam de 1/8 da base e de 1024,
+    // para que uma tabela pequena não seja remontada a cada poucas alterações
+    private static final int REBUILD_FRACTION = 8;
+    private static final int MIN_REBUILD_ROWS = 1024;
+
+    // Chaves alteradas desde a base, acumuladas entre um ciclo de alterações e o seguinte
+    private final Set<String> keys;
+
+    private final int baseSize;
+    private final int size;
+
+    // Linhas da base que saíram, em ordem crescente
+    private final int[] removed;
+
+    // Linhas que entraram, já com a posição na tabela atual, em ordem crescente
+    private final int[] added;
+
+    // Para cada linha de added, a primeira linha da base que fica depois dela
+    private final int[] insertedBefore;
+
+    private RowDelta(Set<String> keys, int baseSize, int size, int[] removed, int[] added, int[] insertedBefore) {
+        this.keys = keys;
+        this.baseSize = baseSize;
+        this.size = size;
+        this.removed = removed;
+        this.added = added;
+        this.insertedBefore = insertedBefore;
+    }
+
+    // Diferença entre base e current depois de alterar changedKeys. previous é a diferença
+    // anterior em relação à mesma base (null quando os índices acabaram de ser montados)
+    static RowDelta of(RowDelta previous, Set<String> changedKeys,
+                       int baseSize, IntFunction<String> baseKey, int size, IntFunction<String> key) {
+        Set<String> keys = new HashSet<>(changedKeys);
+        if (previous != null) {
+            keys.addAll(previous.keys);
+        }
+
+        IntList removed = new IntList();
+        IntList added = new IntList();
+        for (String changed : keys) {
+            for (int row = lowerBound(baseSize, baseKey, changed); row < baseSize && sameKey(baseKey.apply(row), changed); row++) {
+                removed.add(row);
+            }
+            for (int row = lowerBound(size, key, changed); row < size && sameKey(key.apply(row), changed); row++) {
+                added.add(row);
+            }
+        }
+        int[] removedRows = removed.sorted();
+        int[] addedRows = added.sorted();
+
+        int[] insertedBefore = new int[addedRows.length];
+        for (int i = 0; i < addedRows.length; i++) {
+            insertedBefore[i] = upperBound(baseSize, baseKey, key.apply(addedRows[i]));
+        }
+        return new RowDelta(keys, baseSize, size, removedRows, addedRows, insertedBefore);
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Com muitas linhas alteradas desde a base, cada busca gasta mais convertendo posições e
+    // olhando o índice das que entraram: a partir daí vale mais montar os índices de novo
+    boolean shouldRebuild() {
+        return removed.length + added.length > Math.max(MIN_REBUILD_ROWS, baseSize / REBUILD_FRACTION);
+    }
+
+    int[] added() {
+        return added;
+    }
+
+    // Posição atual de uma linha da base, ou -1 se ela saiu
+    int toCurrent(int baseRow) {
+        int removedBefore = Arrays.binarySearch(removed, baseRow);
+        if (removedBefore >= 0) {
+            return -1;
+        }
+        removedBefore = -removedBefore - 1;
+        return baseRow - removedBefore + countUpTo(insertedBefore, baseRow);
+    }
+
+    // Junta, em ordem crescente, as linhas achadas na base (convertidas para a posição atual,
+    // sem as que saíram) com as achadas entre as que entraram (dadas pela posição em added)
+    int[] merge(int[] fromBase, int[] fromAdded) {
+        int[] out = new int[fromBase.length + fromAdded.length];
+        int j = 0, k = 0;
+        for (int baseRow : fromBase) {
+            int row = toCurrent(baseRow);
+            if (row < 0) {
+                continue;
+            }
+            while (j < fromAdded.length && added[fromAdded[j]] < row) {
+                out[k++] = added[fromAdded[j++]];
+            }
+            out[k++] = row;
+        }
+        while (j < fromAdded.length) {
+            out[k++] = added[fromAdded[j++]];
+        }
+        return k == out.length ? out : Arrays.copyOf(out, k);
+    }
+
+    // Quantos valores de sorted são menores ou iguais a value
+    private static int countUpTo(int[] sorted, int value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Primeira linha com chave maior ou igual a key
+    private static int lowerBound(int size, IntFunction<String> keyAt, String key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (KEY_ORDER.compare(keyAt.apply(mid), key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Primeira linha com chave maior que key
+    private static int upperBound(int size, IntFunction<String> keyAt, String key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (KEY_ORDER.compare(keyAt.apply(mid), key) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static boolean sameKey(String a, String b) {
+        return KEY_ORDER.compare(a, b) == 0;
+    }
+
+    private static final class IntList {
+
+        private int[] values = new int[8];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] sorted() {
+            int[] result = Arrays.copyOf(values, size);
+            Arrays.sort(result);
+            return result;
+        }
+    }
+}
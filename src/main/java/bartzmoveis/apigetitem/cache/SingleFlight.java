@@ -0,0 +1,136 @@
+package bartzmoveis.apigetitem.cache;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Junta consultas idênticas que chegam ao mesmo tempo no DB2: a primeira executa e as
+// demais esperam o mesmo resultado. Logo depois, o resultado ainda fica guardado por
+// alguns segundos (catalog.single-flight.ttl) para absorver a rajada que vem em seguida.
+// Os resultados são compartilhados entre as requisições, então ninguém deve alterá-los
+@Component
+public class SingleFlight {
+
+    private final ConcurrentHashMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    // Em ordem de gravação, como no StaleResults: quem foi gravado há mais tempo fica no começo.
+    // Só é acessado por quem vai ao DB2, então o lock não pesa perto da consulta
+    private final LinkedHashMap<Object, Recent> recent = new LinkedHashMap<>();
+
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    private final Counter executed;
+    private final Counter joined;
+    private final Counter cached;
+
+    public SingleFlight(@Value("${catalog.single-flight.ttl:PT2S}") Duration ttl,
+                        @Value("${catalog.single-flight.max-entries:1000}") int maxEntries,
+                        MeterRegistry registry) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+        this.executed = calls(registry, "executed");
+        this.joined = calls(registry, "joined");
+        this.cached = calls(registry, "cached");
+    }
+
+    @SuppressWarnings("unchecked")
+    public <V> V execute(Object key, Supplier<V> loader) {
+        Recent hit = lookup(key);
+        if (hit != null) {
+            cached.increment();
+            return (V) hit.value();
+        }
+
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            joined.increment();
+            return (V) await(running);
+        }
+
+        executed.increment();
+        try {
+            V value = loader.get();
+            remember(key, value);
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            // Quem estava esperando recebe o mesmo erro (por exemplo, o 503 de DB2 ocupado)
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    int size() {
+        synchronized (recent) {
+            return recent.size();
+        }
+    }
+
+    private Recent lookup(Object key) {
+        synchronized (recent) {
+            Recent hit = recent.get(key);
+            return hit != null && !expired(hit, System.nanoTime()) ? hit : null;
+        }
+    }
+
+    private void remember(Object key, Object value) {
+        if (ttlNanos <= 0 || maxEntries <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        synchronized (recent) {
+            // Regravada, a chave vai para o fim da fila
+            recent.remove(key);
+            if (recent.size() >= maxEntries) {
+                // Cheio: saem primeiro os que já venceram e, se não bastar, o mais antigo
+                Iterator<Recent> oldest = recent.values().iterator();
+                while (oldest.hasNext() && (expired(oldest.next(), now) || recent.size() >= maxEntries)) {
+                    oldest.remove();
+                }
+            }
+            recent.put(key, new Recent(value, now + ttlNanos));
+        }
+    }
+
+    private static boolean expired(Recent entry, long now) {
+        return entry.expiresAt() - now <= 0;
+    }
+
+    private static Object await(CompletableFuture<Object> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static Counter calls(MeterRegistry registry, String result) {
+        return Counter.builder("catalog.single_flight")
+                .description("Consultas ao DB2 executadas, agrupadas com uma já em andamento ou respondidas pelo cache curto")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private record Recent(Object value, long expiresAt) {
+    }
+}
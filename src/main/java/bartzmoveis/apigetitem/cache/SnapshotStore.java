@@ -0,0 +1,178 @@
+package bartzmoveis.apigetitem.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import bartzmoveis.apigetitem.dto.CorDTO;
+import bartzmoveis.apigetitem.dto.ItemCorDTO;
+import bartzmoveis.apigetitem.dto.ItemDTO;
+
+// Cópia do catálogo em um arquivo binário local (catalog.snapshot.path), para que uma instância
+// que reinicia volte a responder /itens e /cores sem esperar o DB2. Formato:
+//   "BZCT" | versão (int) | loadedAt (long, ms) | changeSequence (long)
+//   | qtd. itens (int) | ITEM, DESCRICAO, REF_COMERCIAL ... | qtd. cores (int) | SIGLA_COR, DESCRICAO ...
+//   | qtd. vínculos (int) | ITEM, SIGLA_COR ... | CRC32 de tudo o que vem antes (long)
+// Cada texto é um int com o tamanho em bytes UTF-8 (-1 para null) seguido dos bytes
+@Component
+public class SnapshotStore {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotStore.class);
+
+    private static final int MAGIC = 0x425A4354; // "BZCT"
+    // 2: vínculos item–cor depois das cores. Um arquivo da versão 1 é ignorado e a subida segue pelo DB2
+    private static final int FORMAT_VERSION = 2;
+
+    // Caminho vazio desliga a persistência
+    private final Path path;
+
+    public SnapshotStore(@Value("${catalog.snapshot.path:}") String path) {
+        this.path = path == null || path.isBlank() ? null : Path.of(path);
+    }
+
+    public boolean enabled() {
+        return path != null;
+    }
+
+    // Conteúdo lido do arquivo, ainda sem índices nem JSON (o CatalogCache monta o snapshot)
+    public record Stored(List<ItemDTO> itens, List<CorDTO> cores, List<ItemCorDTO> itemCores,
+                         Instant loadedAt, long changeSequence) {
+    }
+
+    // Grava em um arquivo temporário e troca de uma vez, para que uma queda no meio da
+    // gravação nunca deixe um arquivo pela metade no lugar do anterior
+    public void save(CatalogSnapshot snapshot) throws IOException {
+        if (path == null) {
+            return;
+        }
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            CRC32 crc = new CRC32();
+            OutputStream file = Channels.newOutputStream(channel);
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(file, 1 << 16), crc));
+
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(snapshot.loadedAt().toEpochMilli());
+            out.writeLong(snapshot.changeSequence());
+
+            out.writeInt(snapshot.itens().size());
+            for (ItemDTO item : snapshot.itens()) {
+                writeString(out, item.getCodeItem());
+                writeString(out, item.getDescription());
+                writeString(out, item.getRefComercial());
+            }
+            out.writeInt(snapshot.cores().size());
+            for (CorDTO cor : snapshot.cores()) {
+                writeString(out, cor.getSiglaCor());
+                writeString(out, cor.getDescricao());
+            }
+            List<ItemCorDTO> links = snapshot.itemCores().rows();
+            out.writeInt(links.size());
+            for (ItemCorDTO link : links) {
+                writeString(out, link.getCodeItem());
+                writeString(out, link.getSiglaCor());
+            }
+            out.flush();
+
+            // O CRC fica de fora do próprio cálculo
+            ByteBuffer checksum = ByteBuffer.allocate(Long.BYTES).putLong(0, crc.getValue());
+            channel.write(checksum);
+            channel.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Retorna null quando não há arquivo ou ele não é válido (versão antiga, truncado, corrompido)
+    public Stored load() {
+        if (path == null || !Files.isRegularFile(path)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            // Cabeçalho, os três contadores e o CRC somam 44 bytes mesmo com o catálogo vazio
+            if (size < 44 || size > Integer.MAX_VALUE) {
+                log.warn("Snapshot do catálogo em {} com tamanho inválido ({} bytes), ignorando", path, size);
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            int payload = (int) size - Long.BYTES;
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, payload));
+            if (crc.getValue() != buffer.getLong(payload) || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                log.warn("Snapshot do catálogo em {} corrompido ou de outra versão, ignorando", path);
+                return null;
+            }
+
+            Instant loadedAt = Instant.ofEpochMilli(buffer.getLong());
+            long changeSequence = buffer.getLong();
+
+            int itemCount = buffer.getInt();
+            List<ItemDTO> itens = new ArrayList<>(itemCount);
+            for (int i = 0; i < itemCount; i++) {
+                itens.add(new ItemDTO(readString(buffer), readString(buffer), readString(buffer)));
+            }
+            int corCount = buffer.getInt();
+            List<CorDTO> cores = new ArrayList<>(corCount);
+            for (int i = 0; i < corCount; i++) {
+                cores.add(new CorDTO(readString(buffer), readString(buffer)));
+            }
+            int linkCount = buffer.getInt();
+            List<ItemCorDTO> itemCores = new ArrayList<>(linkCount);
+            for (int i = 0; i < linkCount; i++) {
+                itemCores.add(new ItemCorDTO(readString(buffer), readString(buffer)));
+            }
+            return new Stored(itens, cores, itemCores, loadedAt, changeSequence);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Não foi possível ler o snapshot do catálogo em {}, ignorando", path, e);
+            return null;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,35 @@
+package bartzmoveis.apigetitem.cache;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+// Marca a resposta da requisição atual como possivelmente desatualizada:
+// Warning: 110 (RFC 7234) e Age com os segundos desde que os dados vieram do DB2.
+// Fora de uma requisição (refresh agendado, threads do Reactor) não faz nada
+final class StaleResponses {
+
+    static final String WARNING = "110 - \"Response is Stale\"";
+
+    private StaleResponses() {
+    }
+
+    static void mark(Instant loadedAt) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servlet)) {
+            return;
+        }
+        HttpServletResponse response = servlet.getResponse();
+        if (response == null || response.isCommitted()) {
+            return;
+        }
+        response.setHeader(HttpHeaders.WARNING, WARNING);
+        response.setHeader(HttpHeaders.AGE, String.valueOf(Math.max(0, Duration.between(loadedAt, Instant.now()).toSeconds())));
+    }
+}
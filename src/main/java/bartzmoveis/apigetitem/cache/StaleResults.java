@@ -0,0 +1,77 @@
+package bartzmoveis.apigetitem.cache;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Último resultado bom de cada consulta que foi ao DB2 (mesma chave do SingleFlight).
+// Quando o DB2 falha ou o disjuntor está aberto, o CatalogCache responde com ele e marca a
+// resposta como velha (ver StaleResponses), em vez de devolver erro. Resultados mais antigos
+// que max-age não são mais servidos
+@Component
+public class StaleResults {
+
+    // Em ordem de gravação: quem foi gravado há mais tempo fica no começo. Só é acessado
+    // depois de uma consulta ao DB2 ou quando ele falha, então o lock não pesa
+    private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>();
+
+    private final int maxEntries;
+    private final Duration maxAge;
+
+    private final Counter served;
+
+    public StaleResults(@Value("${catalog.db.stale.max-entries:1000}") int maxEntries,
+                        @Value("${catalog.db.stale.max-age:PT24H}") Duration maxAge,
+                        MeterRegistry registry) {
+        this.maxEntries = maxEntries;
+        this.maxAge = maxAge;
+        this.served = Counter.builder("catalog.db.stale")
+                .description("Respostas servidas com o último resultado bom porque o DB2 falhou")
+                .register(registry);
+    }
+
+    public synchronized void remember(Object key, Object value) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        Instant now = Instant.now();
+        // Regravada, a chave vai para o fim da fila
+        entries.remove(key);
+        if (entries.size() >= maxEntries) {
+            // Cheio: saem primeiro os que já passaram de max-age e, se não bastar, o mais antigo
+            Iterator<Entry> oldest = entries.values().iterator();
+            while (oldest.hasNext() && (expired(oldest.next(), now) || entries.size() >= maxEntries)) {
+                oldest.remove();
+            }
+        }
+        entries.put(key, new Entry(value, now));
+    }
+
+    // null quando não há resultado anterior ou ele passou de max-age
+    public synchronized Entry lookup(Object key) {
+        Entry entry = entries.get(key);
+        if (entry == null || expired(entry, Instant.now())) {
+            return null;
+        }
+        served.increment();
+        return entry;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private boolean expired(Entry entry, Instant now) {
+        return entry.storedAt().plus(maxAge).isBefore(now);
+    }
+
+    public record Entry(Object value, Instant storedAt) {
+    }
+}
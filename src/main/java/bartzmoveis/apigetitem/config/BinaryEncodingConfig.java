@@ -0,0 +1,81 @@
+package bartzmoveis.apigetitem.config;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+
+// Formatos binários para os consumidores internos (sincronizações noturnas, outros back-ends),
+// escolhidos pelo Accept: application/cbor, application/x-jackson-smile e application/x-protobuf.
+// CBOR e Smile usam os mesmos DTOs e as mesmas configurações spring.jackson.* do JSON. Os
+// conversores são criados uma vez; os buffers de escrita do Jackson já são reaproveitados
+// por thread (BufferRecycler), então cada resposta não aloca os seus
+@Configuration
+public class BinaryEncodingConfig implements WebMvcConfigurer {
+
+    private final MeterRegistry registry;
+
+    // Por ser um WebMvcConfigurer, esta classe também sobe nos testes @WebMvcTest, que não têm MeterRegistry
+    public BinaryEncodingConfig(ObjectProvider<MeterRegistry> registry) {
+        this.registry = registry.getIfAvailable(() -> Metrics.globalRegistry);
+    }
+
+    // Cada um substitui o conversor padrão do Spring MVC para o mesmo formato
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        ObjectMapper mapper = builder.factory(new CBORFactory()).build();
+        return new MappingJackson2CborHttpMessageConverter(mapper) {
+            @Override
+            protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+                    throws IOException, HttpMessageNotWritableException {
+                long start = System.nanoTime();
+                try {
+                    super.writeInternal(object, type, outputMessage);
+                } finally {
+                    MetricsConfig.recordSerialization(registry, "cbor", start);
+                }
+            }
+        };
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        ObjectMapper mapper = builder.factory(new SmileFactory()).build();
+        return new MappingJackson2SmileHttpMessageConverter(mapper) {
+            @Override
+            protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+                    throws IOException, HttpMessageNotWritableException {
+                long start = System.nanoTime();
+                try {
+                    super.writeInternal(object, type, outputMessage);
+                } finally {
+                    MetricsConfig.recordSerialization(registry, "smile", start);
+                }
+            }
+        };
+    }
+
+    // O de Protobuf não é um @Bean: o Boot põe os conversores extras na frente da lista, e com
+    // Accept: */* (ou sem Accept) o primeiro que aceita a lista vence. No fim, o JSON continua o padrão
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new ProtobufCatalogConverter(registry));
+    }
+}
@@ -0,0 +1,97 @@
+package bartzmoveis.apigetitem.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import bartzmoveis.apigetitem.exceptions.Db2BusyException;
+
+// DataSource que limita quantas conexões podem estar em uso ao mesmo tempo.
+// Cada getConnection() pega uma vaga do semáforo e o close() da conexão a devolve.
+// Quem espera mais que maxWait desiste com Db2BusyException (503), em vez de acumular
+// threads paradas na fila do pool enquanto o DB2 está lento
+public class BoundedDataSource extends DelegatingDataSource {
+
+    private final Semaphore permits;
+    private final Duration maxWait;
+    private final long retryAfterSeconds;
+
+    public BoundedDataSource(DataSource target, int permits, Duration maxWait, Duration retryAfter) {
+        super(target);
+        // fair: sob carga, quem chegou primeiro é atendido primeiro
+        this.permits = new Semaphore(permits, true);
+        this.maxWait = maxWait;
+        this.retryAfterSeconds = Math.max(1, retryAfter.toSeconds());
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return guard(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return guard(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    private void acquire() {
+        try {
+            if (!permits.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new Db2BusyException("DB2 ocupado, tente novamente em instantes", retryAfterSeconds);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new Db2BusyException("Espera pelo DB2 interrompida", retryAfterSeconds);
+        }
+    }
+
+    // Proxy que devolve a vaga uma única vez, mesmo que close() seja chamado mais de uma vez
+    private Connection guard(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close") && method.getParameterCount() == 0) {
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        } finally {
+                            if (released.compareAndSet(false, true)) {
+                                permits.release();
+                            }
+                        }
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
@@ -0,0 +1,48 @@
+package bartzmoveis.apigetitem.config;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import bartzmoveis.apigetitem.cache.CatalogBus;
+import bartzmoveis.apigetitem.cache.Db2CatalogBus;
+import bartzmoveis.apigetitem.cache.LocalCatalogBus;
+import bartzmoveis.apigetitem.cache.MulticastCatalogBus;
+import bartzmoveis.apigetitem.service.FetchSettings;
+import bartzmoveis.apigetitem.service.QueryMetrics;
+
+// Escolhe o transporte dos avisos de versão do catálogo (catalog.coherence.transport):
+// local (padrão, só esta JVM), db2 (tabela de versão) ou multicast (UDP na rede local)
+@Configuration
+public class CoherenceConfig {
+
+    @Bean
+    public CatalogBus catalogBus(Environment env, JdbcTemplate jdbcTemplate, QueryMetrics metrics, FetchSettings fetch,
+                                 ObjectMapper objectMapper) throws IOException {
+        String transport = env.getProperty("catalog.coherence.transport", "local");
+        switch (transport) {
+            case "local":
+                return new LocalCatalogBus();
+            case "db2":
+                return new Db2CatalogBus(jdbcTemplate, metrics, fetch,
+                        env.getProperty("catalog.coherence.db2.table", "SCHEMA.CATALOGO_VERSAO"));
+            case "multicast":
+                String networkInterface = env.getProperty("catalog.coherence.multicast.interface", "");
+                return new MulticastCatalogBus(
+                        InetAddress.getByName(env.getProperty("catalog.coherence.multicast.group", "239.192.0.77")),
+                        env.getProperty("catalog.coherence.multicast.port", Integer.class, 45677),
+                        networkInterface.isEmpty() ? null : NetworkInterface.getByName(networkInterface),
+                        env.getProperty("catalog.coherence.multicast.ttl", Integer.class, 1),
+                        objectMapper);
+            default:
+                throw new IllegalArgumentException("catalog.coherence.transport inválido: " + transport);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package bartzmoveis.apigetitem.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import bartzmoveis.apigetitem.cache.Db2CircuitBreaker;
+
+// Disjuntor do DB2 (catalog.db.breaker.*) e o estado dele em /actuator/health, como
+// "db2Breaker". Aberto, o status é DEGRADED: a API segue respondendo da memória e dos
+// últimos resultados bons, então o mapeamento em application.properties mantém o HTTP 200
+@Configuration
+public class Db2BreakerConfig {
+
+    static final Status DEGRADED = new Status("DEGRADED", "DB2 fora do ar; respostas servidas da memória");
+
+    @Bean
+    public Db2CircuitBreaker db2CircuitBreaker(Environment env, MeterRegistry registry) {
+        return new Db2CircuitBreaker(
+                env.getProperty("catalog.db.breaker.failure-threshold", Integer.class, 5),
+                env.getProperty("catalog.db.breaker.open-for", Duration.class, Duration.ofSeconds(30)),
+                System::nanoTime, registry);
+    }
+
+    @Bean
+    public HealthIndicator db2BreakerHealthIndicator(Db2CircuitBreaker breaker) {
+        return () -> {
+            Db2CircuitBreaker.State state = breaker.state();
+            Health.Builder health = state == Db2CircuitBreaker.State.OPEN ? Health.status(DEGRADED) : Health.up();
+            health.withDetail("state", state)
+                    .withDetail("consecutiveFailures", breaker.consecutiveFailures());
+            if (state == Db2CircuitBreaker.State.OPEN) {
+                health.withDetail("retryAfterSeconds", breaker.retryAfterSeconds());
+            }
+            return health.build();
+        };
+    }
+}
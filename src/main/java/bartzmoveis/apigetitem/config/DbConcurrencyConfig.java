@@ -0,0 +1,47 @@
+package bartzmoveis.apigetitem.config;
+
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+// Limita o acesso concorrente ao DB2 quando db.concurrency.enabled=true (ligado no
+// profile virtual-threads). Com threads virtuais não há mais o teto do pool do Tomcat,
+// então o semáforo passa a ser o que segura a fila na frente do pool do Hikari
+@Configuration
+@ConditionalOnProperty(name = "db.concurrency.enabled", havingValue = "true")
+public class DbConcurrencyConfig {
+
+    // static para que o post processor seja registrado antes do DataSource ser criado
+    @Bean
+    public static BeanPostProcessor boundedDataSourcePostProcessor(Environment env) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof BoundedDataSource) {
+                    return bean;
+                }
+
+                // Sem valor configurado, o número de vagas é o tamanho máximo do pool do Hikari.
+                // O pool ainda não subiu aqui, e sem maximum-pool-size o Hikari informa -1 até
+                // aplicar o padrão dele (10)
+                int permits = env.getProperty("db.concurrency.permits", Integer.class, 0);
+                if (permits <= 0) {
+                    int poolSize = dataSource instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : 0;
+                    permits = poolSize > 0 ? poolSize : 10;
+                }
+                Duration maxWait = env.getProperty("db.concurrency.max-wait", Duration.class, Duration.ofMillis(200));
+                Duration retryAfter = env.getProperty("db.concurrency.retry-after", Duration.class, Duration.ofSeconds(1));
+
+                return new BoundedDataSource(dataSource, permits, maxWait, retryAfter);
+            }
+        };
+    }
+}
@@ -0,0 +1,182 @@
+package bartzmoveis.apigetitem.config;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Envolve o JwtAuthFilter guardando o resultado da validação de cada token. O autocomplete
+// manda o mesmo token dezenas de vezes por minuto, e a verificação da assinatura pesa mais
+// que a própria busca. No primeiro uso o token passa pelo JwtAuthFilter normalmente e, se ele
+// autenticou, o principal e as autoridades ficam guardados pelo SHA-256 do token até o exp dele
+// (ou até jwt.cache.max-ttl, o que vier antes). Nas requisições seguintes o filtro original é
+// pulado e cada requisição recebe uma Authentication nova, montada a partir do que foi guardado.
+// Token inválido nunca entra no cache: quem responde continua sendo o JwtAuthFilter
+public class JwtValidationCache extends OncePerRequestFilter {
+
+    private static final String BEARER = "Bearer ";
+
+    private final Filter delegate;
+    private final ObjectMapper objectMapper;
+    private final int maxEntries;
+    private final long maxTtlMillis;
+    private final Clock clock;
+
+    // Em ordem de gravação, como no StaleResults: quem foi gravado há mais tempo fica no começo.
+    // O lock cobre só um get ou put no mapa, bem menos que a verificação da assinatura que ele evita
+    private final LinkedHashMap<String, Validated> validated = new LinkedHashMap<>();
+    private final WebAuthenticationDetailsSource details = new WebAuthenticationDetailsSource();
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public JwtValidationCache(Filter delegate, ObjectMapper objectMapper, MeterRegistry registry,
+                              int maxEntries, Duration maxTtl, Clock clock) {
+        this.delegate = delegate;
+        this.objectMapper = objectMapper;
+        this.maxEntries = maxEntries;
+        this.maxTtlMillis = maxTtl.toMillis();
+        this.clock = clock;
+        this.hits = lookups(registry, "hit");
+        this.misses = lookups(registry, "miss");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.startsWith(BEARER)) {
+            delegate.doFilter(request, response, chain);
+            return;
+        }
+        String token = header.substring(BEARER.length()).trim();
+        String key = sha256(token);
+        long now = clock.millis();
+
+        Validated hit = lookup(key, now);
+        if (hit != null) {
+            hits.increment();
+            // Token novo a cada requisição: quem mexer nos details ou no contexto de uma
+            // requisição não afeta as outras que usam o mesmo token
+            UsernamePasswordAuthenticationToken authentication =
+                    UsernamePasswordAuthenticationToken.authenticated(hit.principal(), null, hit.authorities());
+            authentication.setDetails(details.buildDetails(request));
+            SecurityContext context = SecurityContextHolder.createEmptyContext();
+            context.setAuthentication(authentication);
+            SecurityContextHolder.setContext(context);
+            chain.doFilter(request, response);
+            return;
+        }
+        misses.increment();
+        // O JwtAuthFilter valida e segue a cadeia; se ele chegou a seguir com o usuário
+        // autenticado, o token é válido e o principal e as autoridades que ele montou são guardados
+        delegate.doFilter(request, response, (req, res) -> {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication != null && authentication.isAuthenticated()) {
+                remember(key, authentication, expiresAt(token, now));
+            }
+            chain.doFilter(req, res);
+        });
+    }
+
+    int size() {
+        synchronized (validated) {
+            return validated.size();
+        }
+    }
+
+    // null quando o token não está guardado ou o exp dele já passou (e aí ele sai do cache)
+    private Validated lookup(String key, long now) {
+        synchronized (validated) {
+            Validated hit = validated.get(key);
+            if (hit != null && hit.expiresAt() <= now) {
+                validated.remove(key);
+                return null;
+            }
+            return hit;
+        }
+    }
+
+    private void remember(String key, Authentication authentication, long expiresAt) {
+        long now = clock.millis();
+        if (expiresAt <= now || maxEntries <= 0) {
+            return;
+        }
+        Validated entry = new Validated(authentication.getPrincipal(), List.copyOf(authentication.getAuthorities()), expiresAt);
+        synchronized (validated) {
+            // Regravado, o token vai para o fim da fila
+            validated.remove(key);
+            if (validated.size() >= maxEntries) {
+                // Cheio: saem primeiro os que já venceram e, se não bastar, o mais antigo
+                Iterator<Validated> oldest = validated.values().iterator();
+                while (oldest.hasNext() && (oldest.next().expiresAt() <= now || validated.size() >= maxEntries)) {
+                    oldest.remove();
+                }
+            }
+            validated.put(key, entry);
+        }
+    }
+
+    // O exp é lido do payload sem conferir a assinatura: só chega aqui um token que o
+    // JwtAuthFilter acabou de aceitar
+    private long expiresAt(String token, long now) {
+        long limit = now + maxTtlMillis;
+        String[] parts = token.split("\\.");
+        if (parts.length < 2) {
+            return limit;
+        }
+        try {
+            JsonNode exp = objectMapper.readTree(Base64.getUrlDecoder().decode(parts[1])).get("exp");
+            return exp != null && exp.canConvertToLong() ? Math.min(limit, exp.asLong() * 1000) : limit;
+        } catch (IOException | IllegalArgumentException e) {
+            return limit;
+        }
+    }
+
+    private static String sha256(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível na JVM", e);
+        }
+    }
+
+    private static Counter lookups(MeterRegistry registry, String result) {
+        return Counter.builder("catalog.jwt.cache")
+                .description("Tokens aceitos pelo cache de validação (hit) ou validados pelo JwtAuthFilter (miss)")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private record Validated(Object principal, Collection<? extends GrantedAuthority> authorities, long expiresAt) {
+    }
+}
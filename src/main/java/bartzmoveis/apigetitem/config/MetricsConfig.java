@@ -0,0 +1,75 @@
+package bartzmoveis.apigetitem.config;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+// Fase de serialização das respostas. O http.server.requests do Actuator mede a requisição
+// inteira e o QueryMetrics mede DB2 e mapeamento; aqui fica só o tempo escrevendo o corpo,
+// em JSON ou num dos formatos binários do BinaryEncodingConfig
+@Configuration
+public class MetricsConfig {
+
+    // Substitui o conversor padrão do Boot (que é @ConditionalOnMissingBean), mantendo o mesmo ObjectMapper
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper, MeterRegistry registry) {
+        return new TimedJacksonConverter(objectMapper, registry);
+    }
+
+    static final class TimedJacksonConverter extends MappingJackson2HttpMessageConverter {
+
+        private final MeterRegistry registry;
+
+        TimedJacksonConverter(ObjectMapper objectMapper, MeterRegistry registry) {
+            super(objectMapper);
+            this.registry = registry;
+        }
+
+        @Override
+        protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+                throws IOException, HttpMessageNotWritableException {
+            long start = System.nanoTime();
+            try {
+                super.writeInternal(object, type, outputMessage);
+            } finally {
+                recordSerialization(registry, "json", start);
+            }
+        }
+    }
+
+    // Compartilhado pelos conversores de todos os formatos, para comparar JSON e binário na mesma métrica
+    static void recordSerialization(MeterRegistry registry, String format, long startNanos) {
+        Timer.builder("catalog.http.serialization")
+                .description("Tempo serializando o corpo da resposta")
+                .tag("uri", uri())
+                .tag("format", format)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Usa o padrão da rota (/itens/{codigo}/detalhe) e não a URL real,
+    // para não criar uma série nova a cada código consultado
+    private static String uri() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        Object pattern = attributes != null
+                ? attributes.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST)
+                : null;
+        return pattern != null ? pattern.toString() : "UNKNOWN";
+    }
+}
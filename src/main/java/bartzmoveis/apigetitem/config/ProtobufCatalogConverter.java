@@ -0,0 +1,113 @@
+package bartzmoveis.apigetitem.config;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.util.StreamUtils;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import bartzmoveis.apigetitem.dto.CorDTO;
+import bartzmoveis.apigetitem.dto.ItemDTO;
+import bartzmoveis.apigetitem.dto.PageDTO;
+
+// Listas de /itens e /cores em Protocol Buffers (application/x-protobuf). O schema é gerado
+// uma única vez, quando a classe é carregada, a partir dos próprios DTOs, e os ObjectWriter
+// já amarrados a ele são reaproveitados em todas as respostas. Como o Protobuf não tem array na
+// raiz, cada lista vai dentro de uma mensagem (ItemList, CorList), que também leva o cursor
+// das respostas paginadas. O .proto gerado é publicado em /catalogo/schema.proto
+public class ProtobufCatalogConverter extends AbstractHttpMessageConverter<Object> {
+
+    public static final MediaType PROTOBUF = new MediaType("application", "x-protobuf");
+
+    // Mensagens raiz. A numeração dos campos segue a ordem de declaração, aqui e nos DTOs:
+    // campo novo entra sempre no fim, para não quebrar quem já decodifica as respostas
+    record ItemList(List<ItemDTO> itens, String nextCursor) {}
+
+    record CorList(List<CorDTO> cores, String nextCursor) {}
+
+    private static final ProtobufMapper MAPPER = new ProtobufMapper();
+    private static final ProtobufSchema ITEM_SCHEMA = generate(ItemList.class);
+    private static final ProtobufSchema COR_SCHEMA = generate(CorList.class);
+    private static final ObjectWriter ITEM_WRITER = MAPPER.writer(ITEM_SCHEMA);
+    private static final ObjectWriter COR_WRITER = MAPPER.writer(COR_SCHEMA);
+    private static final String SCHEMA = "syntax = \"proto2\";\n\n" + ITEM_SCHEMA.getSource() + "\n" + COR_SCHEMA.getSource();
+
+    private final MeterRegistry registry;
+
+    public ProtobufCatalogConverter(MeterRegistry registry) {
+        super(PROTOBUF);
+        this.registry = registry;
+    }
+
+    // Texto do .proto, para os consumidores gerarem o próprio código
+    public static String schema() {
+        return SCHEMA;
+    }
+
+    // Só escrita: a API não recebe corpo em Protobuf
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz) || PageDTO.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Corpo em Protobuf não é aceito", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object body, HttpOutputMessage outputMessage) throws IOException {
+        long start = System.nanoTime();
+        try {
+            encode(body, StreamUtils.nonClosing(outputMessage.getBody()));
+        } finally {
+            MetricsConfig.recordSerialization(registry, "protobuf", start);
+        }
+    }
+
+    // Lista ou página de ItemDTO/CorDTO. Lista vazia vira a mensagem vazia (zero bytes).
+    // Linhas projetadas com fields=... não têm mensagem no schema e são recusadas
+    @SuppressWarnings("unchecked")
+    public static void encode(Object body, OutputStream out) throws IOException {
+        List<?> rows = body instanceof PageDTO<?> page ? page.getContent() : (List<?>) body;
+        String nextCursor = body instanceof PageDTO<?> page ? page.getNextCursor() : null;
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        Object first = rows.get(0);
+        if (first instanceof ItemDTO) {
+            ITEM_WRITER.writeValue(out, new ItemList((List<ItemDTO>) rows, nextCursor));
+        } else if (first instanceof CorDTO) {
+            COR_WRITER.writeValue(out, new CorList((List<CorDTO>) rows, nextCursor));
+        } else {
+            throw new HttpMessageNotWritableException("Sem mensagem Protobuf para " + first.getClass().getSimpleName());
+        }
+    }
+
+    private static ProtobufSchema generate(Class<?> root) {
+        try {
+            return MAPPER.generateSchemaFor(root);
+        } catch (JsonMappingException e) {
+            throw new IllegalStateException("Falha ao gerar o schema Protobuf de " + root.getSimpleName(), e);
+        }
+    }
+}
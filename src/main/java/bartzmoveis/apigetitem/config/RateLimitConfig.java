@@ -0,0 +1,44 @@
+package bartzmoveis.apigetitem.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Registra o RateLimitFilter quando catalog.rate-limit.enabled=true. As regras vêm de
+// catalog.rate-limit.rules (lista de nomes) e, para cada nome,
+// catalog.rate-limit.rule.<nome>.paths / .capacity / .refill-per-second
+@Configuration
+@ConditionalOnProperty(name = "catalog.rate-limit.enabled", havingValue = "true")
+public class RateLimitConfig {
+
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(Environment env, ObjectMapper objectMapper, MeterRegistry registry) {
+        int maxClients = env.getProperty("catalog.rate-limit.max-clients", Integer.class, 10_000);
+
+        List<RateLimitFilter.Rule> rules = new ArrayList<>();
+        for (String name : env.getProperty("catalog.rate-limit.rules", String[].class, new String[0])) {
+            String prefix = "catalog.rate-limit.rule." + name + ".";
+            String[] paths = env.getRequiredProperty(prefix + "paths", String[].class);
+            int capacity = env.getProperty(prefix + "capacity", Integer.class, 20);
+            double refill = env.getProperty(prefix + "refill-per-second", Double.class, 10.0);
+            rules.add(new RateLimitFilter.Rule(name, List.of(paths),
+                    new TokenBuckets(capacity, refill, maxClients, System::nanoTime)));
+        }
+
+        FilterRegistrationBean<RateLimitFilter> registration =
+                new FilterRegistrationBean<>(new RateLimitFilter(rules, objectMapper, registry));
+        // Logo depois da cadeia do Spring Security, quando o JWT já foi validado
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+        return registration;
+    }
+}
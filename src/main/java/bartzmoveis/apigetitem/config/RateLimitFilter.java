@@ -0,0 +1,108 @@
+package bartzmoveis.apigetitem.config;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Limita a taxa de requisições por cliente nas rotas configuradas (ver RateLimitConfig).
+// Roda depois do Spring Security, então o cliente é o subject do JWT validado pelo
+// JwtAuthFilter; sem autenticação (rotas liberadas), o cliente é o IP. Toda resposta
+// de uma rota limitada leva os cabeçalhos RateLimit-Limit/Remaining/Reset e a recusada
+// vira um 429 com Retry-After, no mesmo formato ProblemDetail do GlobalExceptionHandler
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final AntPathMatcher PATHS = new AntPathMatcher();
+
+    private final List<Rule> rules;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry registry;
+
+    // paths são padrões Ant (/itens/search, /itens/**); vale a primeira regra que casar
+    public record Rule(String name, List<String> paths, TokenBuckets buckets) {
+    }
+
+    public RateLimitFilter(List<Rule> rules, ObjectMapper objectMapper, MeterRegistry registry) {
+        this.rules = List.copyOf(rules);
+        this.objectMapper = objectMapper;
+        this.registry = registry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return rule(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Rule rule = rule(request);
+        String client = client(request);
+        TokenBuckets.Decision decision = rule.buckets().tryAcquire(client);
+
+        response.setHeader("RateLimit-Limit", String.valueOf(decision.limit()));
+        response.setHeader("RateLimit-Remaining", String.valueOf(decision.remaining()));
+        response.setHeader("RateLimit-Reset", String.valueOf(decision.resetSeconds()));
+
+        if (decision.allowed()) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        throttled(rule.name(), client).increment();
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(HttpStatus.TOO_MANY_REQUESTS,
+                "Limite de requisições excedido para " + request.getRequestURI());
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(decision.retryAfterSeconds()));
+        response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), problem);
+    }
+
+    private Rule rule(HttpServletRequest request) {
+        String path = UrlPathHelper.defaultInstance.getPathWithinApplication(request);
+        for (Rule rule : rules) {
+            for (String pattern : rule.paths()) {
+                if (PATHS.match(pattern, path)) {
+                    return rule;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String client(HttpServletRequest request) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.isAuthenticated() && !(auth instanceof AnonymousAuthenticationToken)) {
+            return "sub:" + auth.getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    // Os subjects são os sistemas integrados (poucos), por isso cabem como tag. Os IPs das rotas
+    // sem autenticação não têm limite de valores e entram todos sob client=ip
+    private Counter throttled(String rule, String client) {
+        return Counter.builder("catalog.rate_limit.throttled")
+                .description("Requisições recusadas pelo limite de taxa, por regra e cliente")
+                .tag("rule", rule)
+                .tag("client", client.startsWith("sub:") ? client : "ip")
+                .register(registry);
+    }
+}
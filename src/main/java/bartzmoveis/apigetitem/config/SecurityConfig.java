@@ -1,7 +1,13 @@
 package bartzmoveis.apigetitem.config;
 
+import java.time.Clock;
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
@@ -9,6 +15,10 @@ import org.springframework.security.web.SecurityFilterChain;
 
 import com.betolara1.jwt_package.config.JwtProperties;
 import com.betolara1.jwt_package.security.JwtAuthFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
 
 @Configuration
 @EnableWebSecurity
@@ -23,18 +33,42 @@ public class SecurityConfig {
     }
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception{
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, ObjectMapper objectMapper, MeterRegistry registry,
+                                                   @Value("${jwt.cache.max-entries:10000}") int cacheMaxEntries,
+                                                   @Value("${jwt.cache.max-ttl:PT5M}") Duration cacheMaxTtl,
+                                                   @Value("${catalog.admin.authority:}") String adminAuthority) throws Exception{
         // Converta a lista do .env para um array de Strings
         String[] paths = jwtProperties.getExcludedPaths().toArray(new String[0]);
 
+        // O JwtAuthFilter só roda quando o token ainda não está no cache de validação
+        JwtValidationCache jwtFilter = new JwtValidationCache(jwtAuthFilter, objectMapper, registry,
+                cacheMaxEntries, cacheMaxTtl, Clock.systemUTC());
+
         return http
                 .csrf(csrf -> csrf.disable()) // Obrigatório para APIs REST
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS)) // Sem sessão no servidor
-                .authorizeHttpRequests(auth -> auth 
-                    .requestMatchers(paths).permitAll() // 'paths' usa os caminhos do .env!
-                    .anyRequest().authenticated()
-                )
-                .addFilterBefore(jwtAuthFilter, org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter.class).build();
+                .authorizeHttpRequests(auth -> {
+                    auth.requestMatchers(paths).permitAll(); // 'paths' usa os caminhos do .env!
+                    // Fim de um stream (NDJSON, export, SSE) e página de erro de uma exceção não tratada: a
+                    // requisição já passou pela cadeia na entrada, e o filtro do JWT não roda de novo nesses
+                    // dispatches, que chegariam aqui sem usuário (um 500 virava 403)
+                    auth.dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll();
+                    // A ressincronização lê o DB2 inteiro: com a autoridade configurada, só quem a tem no token
+                    if(!adminAuthority.isBlank()){
+                        auth.requestMatchers(HttpMethod.POST, "/catalogo/refresh").hasAuthority(adminAuthority);
+                    }
+                    auth.anyRequest().authenticated();
+                })
+                .addFilterBefore(jwtFilter, org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter.class).build();
+    }
+
+    // O JwtAuthFilter é um bean e o Boot o registraria também direto no servlet, fora da
+    // cadeia de segurança, validando de novo os tokens que o cache já aceitou
+    @Bean
+    public FilterRegistrationBean<JwtAuthFilter> jwtAuthFilterRegistration(){
+        FilterRegistrationBean<JwtAuthFilter> registration = new FilterRegistrationBean<>(jwtAuthFilter);
+        registration.setEnabled(false);
+        return registration;
     }
 
 }
@@ -0,0 +1,21 @@
+package bartzmoveis.apigetitem.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import bartzmoveis.apigetitem.cache.CatalogBus;
+import bartzmoveis.apigetitem.cache.CatalogCache;
+
+// No profile fast-startup (spring.main.lazy-initialization=true) os beans só são criados no
+// primeiro uso: Swagger, controllers e actuator deixam de pesar na subida. O catálogo continua
+// sendo criado na subida, pois restaura a cópia em disco antes da primeira requisição e seus
+// @Scheduled (e os do transporte de coerência) só são registrados quando o bean existe
+@Configuration
+public class StartupConfig {
+
+    @Bean
+    static LazyInitializationExcludeFilter eagerCatalogBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(CatalogCache.class, CatalogBus.class);
+    }
+}
@@ -0,0 +1,81 @@
+package bartzmoveis.apigetitem.config;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Um balde de fichas por cliente, sem lock. Cada balde é um único AtomicLong com o
+// "instante teórico" em que ele volta a ficar cheio (algoritmo GCRA, equivalente ao
+// balde de fichas): cada requisição empurra esse instante um intervalo para frente
+// com um compareAndSet, e ela é recusada se o balde passaria da capacidade.
+// O ConcurrentHashMap divide os clientes em faixas independentes, então clientes
+// diferentes nunca disputam o mesmo ponto de sincronização
+public class TokenBuckets {
+
+    private final int capacity;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final int maxClients;
+    private final LongSupplier clock;
+
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    public TokenBuckets(int capacity, double refillPerSecond, int maxClients, LongSupplier clock) {
+        if (capacity <= 0 || refillPerSecond <= 0) {
+            throw new IllegalArgumentException("Capacidade e reposição do balde precisam ser positivas");
+        }
+        this.capacity = capacity;
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / refillPerSecond));
+        this.burstNanos = intervalNanos * capacity;
+        this.maxClients = maxClients;
+        this.clock = clock;
+    }
+
+    // remaining: fichas que sobram; resetSeconds: até o balde encher de novo;
+    // retryAfterSeconds: até a próxima ficha, quando a requisição foi recusada
+    public record Decision(boolean allowed, int limit, long remaining, long resetSeconds, long retryAfterSeconds) {
+    }
+
+    public Decision tryAcquire(String client) {
+        long now = clock.getAsLong();
+        AtomicLong bucket = bucket(client, now);
+
+        while (true) {
+            long full = bucket.get();
+            long next = Math.max(full, now) + intervalNanos;
+            long backlog = next - now;
+            if (backlog > burstNanos) {
+                long wait = backlog - burstNanos;
+                return new Decision(false, capacity, 0, seconds(full - now), Math.max(1, seconds(wait)));
+            }
+            if (bucket.compareAndSet(full, next)) {
+                return new Decision(true, capacity, (burstNanos - backlog) / intervalNanos, seconds(backlog), 0);
+            }
+        }
+    }
+
+    int trackedClients() {
+        return buckets.size();
+    }
+
+    private AtomicLong bucket(String client, long now) {
+        AtomicLong bucket = buckets.get(client);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxClients) {
+            // Balde que já encheu de novo é igual a um balde novo, então pode sair do mapa
+            buckets.values().removeIf(existing -> existing.get() - now <= 0);
+            if (buckets.size() >= maxClients) {
+                // Ainda cheio de clientes ativos: este é avaliado num balde avulso, sem ser guardado
+                return new AtomicLong(now);
+            }
+        }
+        return buckets.computeIfAbsent(client, key -> new AtomicLong(now));
+    }
+
+    private static long seconds(long nanos) {
+        return nanos <= 0 ? 0 : (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,77 @@
+package bartzmoveis.apigetitem.controller;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import bartzmoveis.apigetitem.cache.CatalogCache;
+import bartzmoveis.apigetitem.cache.CatalogSnapshot;
+import bartzmoveis.apigetitem.config.ProtobufCatalogConverter;
+import bartzmoveis.apigetitem.dto.CatalogStatusDTO;
+
+// Endpoints administrativos do catálogo em memória
+@RestController
+@RequestMapping("/catalogo")
+public class CatalogController {
+
+    private CatalogCache catalog;
+    private long refreshIntervalNanos;
+    private final AtomicLong lastRefresh = new AtomicLong();
+    private CatalogController(CatalogCache catalog,
+                              @Value("${catalog.refresh.manual-min-interval:PT1M}") Duration refreshInterval){
+        this.catalog = catalog;
+        this.refreshIntervalNanos = refreshInterval.toNanos();
+        this.lastRefresh.set(System.nanoTime() - refreshIntervalNanos);
+    }
+
+    @GetMapping("/status")
+    public ResponseEntity<CatalogStatusDTO> status(){
+        CatalogSnapshot snapshot = catalog.current();
+
+        if(snapshot == null){
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok(toStatus(snapshot));
+    }
+
+    // Força a releitura completa do DB2 sem esperar o próximo ciclo agendado. Com a captura
+    // de alterações ligada, é a ressincronização: descarta os deltas e reinicia a marca d'água.
+    // Cada chamada lê as tabelas inteiras, então vale uma por catalog.refresh.manual-min-interval
+    // para a instância toda, não por cliente; as demais recebem 429 até o intervalo passar
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(){
+        long now = System.nanoTime();
+        long last = lastRefresh.get();
+        long wait = refreshIntervalNanos - (now - last);
+        if(wait > 0 || !lastRefresh.compareAndSet(last, now)){
+            long retryAfter = TimeUnit.NANOSECONDS.toSeconds(Math.max(wait, 0)) + 1;
+            ProblemDetail problem = ProblemDetail.forStatusAndDetail(HttpStatus.TOO_MANY_REQUESTS,
+                    "Ressincronização recente do catálogo, tente de novo em " + retryAfter + "s");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter))
+                    .body(problem);
+        }
+        return ResponseEntity.ok(toStatus(catalog.refresh()));
+    }
+
+    // Schema .proto das respostas em application/x-protobuf de /itens e /cores, gerado dos DTOs
+    @GetMapping(value = "/schema.proto", produces = MediaType.TEXT_PLAIN_VALUE)
+    public String protobufSchema(){
+        return ProtobufCatalogConverter.schema();
+    }
+
+    private static CatalogStatusDTO toStatus(CatalogSnapshot snapshot){
+        return new CatalogStatusDTO(snapshot.itens().size(), snapshot.cores().size(), snapshot.loadedAt(), snapshot.changeSequence());
+    }
+}
@@ -1,14 +1,28 @@
 package bartzmoveis.apigetitem.controller;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import bartzmoveis.apigetitem.cache.CatalogCache;
+import bartzmoveis.apigetitem.cache.CatalogEvents;
+import bartzmoveis.apigetitem.cache.CatalogPage;
+import bartzmoveis.apigetitem.cache.EncodedBody;
 import bartzmoveis.apigetitem.dto.CorDTO;
 import bartzmoveis.apigetitem.service.CorService;
 
@@ -16,38 +30,99 @@ import bartzmoveis.apigetitem.service.CorService;
 @RequestMapping("/cores")
 @CrossOrigin(origins = {"http://192.168.1.10:50000", "http://localhost:5173", "file://"})
 public class CorController {
+
+    private static final Map<String, Function<CorDTO, Object>> FIELDS = Map.of(
+            "siglaCor", CorDTO::getSiglaCor,
+            "descricao", CorDTO::getDescricao);
     
+    private static final int MAX_BATCH_SIZE = 1000;
+
     private CorService service;
-    private CorController(CorService service){
+    private CatalogCache catalog;
+    private CatalogEvents events;
+    private CorController(CorService service, CatalogCache catalog, CatalogEvents events){
         this.service = service;
+        this.catalog = catalog;
+        this.events = events;
     }
 
     @GetMapping
-    public ResponseEntity<List<CorDTO>> listAll(){
+    public ResponseEntity<?> listAll(@RequestParam(value = "limit", required = false) Integer limit,
+                                     @RequestParam(value = "cursor", required = false) String cursor,
+                                     @RequestParam(value = "fields", required = false) String fields,
+                                     ServletWebRequest request){
+        if(Revalidation.notModified(request, catalog.coresVersion(), fields == null && !Paging.isPaged(limit, cursor))){
+            return null;
+        }
 
-        List<CorDTO> listCor = service.listAll();
+        if(Paging.isPaged(limit, cursor)){
+            CatalogPage<CorDTO> page = catalog.pageCores(Paging.decodeCursor(cursor), Paging.limit(limit));
+            return Paging.page(page, fields, FIELDS);
+        }
 
-        if(listCor.isEmpty()){
-            return ResponseEntity.noContent().build();
+        EncodedBody body = Encodings.isJson(Encodings.preferred(request)) ? catalog.coresBody() : null;
+        if(fields == null && body != null){
+            return Precompressed.respond(body, request);
         }
-        return ResponseEntity.ok(listCor);
+
+        List<CorDTO> listCor = catalog.cores();
+        return Paging.list(listCor, fields, FIELDS);
     }
 
     @GetMapping(value = "/search", params = "codigo")
-    public ResponseEntity<List<CorDTO>> findBySiglaCor(@RequestParam("codigo") String query){
-        List<CorDTO> results = service.findBySiglaCor(query);
-        if(results.isEmpty()){
-            return ResponseEntity.noContent().build();
+    public ResponseEntity<?> findBySiglaCor(@RequestParam("codigo") String query,
+                                            @RequestParam(value = "limit", required = false) Integer limit,
+                                            @RequestParam(value = "cursor", required = false) String cursor,
+                                            @RequestParam(value = "fields", required = false) String fields,
+                                            ServletWebRequest request){
+        if(Revalidation.notModified(request, catalog.coresVersion())){
+            return null;
         }
-        return ResponseEntity.ok(results);
+
+        if(Paging.isPaged(limit, cursor)){
+            CatalogPage<CorDTO> page = catalog.pageCoresBySigla(query, Paging.decodeCursor(cursor), Paging.limit(limit));
+            return Paging.page(page, fields, FIELDS);
+        }
+
+        List<CorDTO> results = catalog.findCoresBySigla(query);
+        return Paging.list(results, fields, FIELDS);
     }
 
     @GetMapping(value = "/search", params = "descricao")
-    public ResponseEntity<List<CorDTO>> searchByDescricao(@RequestParam("descricao") String query){
-        List<CorDTO> results = service.findByDescricao(query);
+    public ResponseEntity<?> searchByDescricao(@RequestParam("descricao") String query,
+                                               @RequestParam(value = "limit", required = false) Integer limit,
+                                               @RequestParam(value = "cursor", required = false) String cursor,
+                                               @RequestParam(value = "fields", required = false) String fields,
+                                               ServletWebRequest request){
+        if(Revalidation.notModified(request, catalog.coresVersion())){
+            return null;
+        }
+
+        if(Paging.isPaged(limit, cursor)){
+            CatalogPage<CorDTO> page = catalog.pageCoresByDescricao(query, Paging.decodeCursor(cursor), Paging.limit(limit));
+            return Paging.page(page, fields, FIELDS);
+        }
+
+        List<CorDTO> results = catalog.findCoresByDescricao(query);
+        return Paging.list(results, fields, FIELDS);
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<Map<String, CorDTO>> findBySiglas(@RequestBody List<String> siglas){
+        if(siglas.size() > MAX_BATCH_SIZE){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Máximo de " + MAX_BATCH_SIZE + " siglas por requisição");
+        }
+
+        Map<String, CorDTO> results = catalog.findCoresBySiglas(siglas);
         if(results.isEmpty()){
             return ResponseEntity.noContent().build();
         }
         return ResponseEntity.ok(results);
     }
+
+    // Feed das alterações de /cores, no mesmo formato do /itens/changes
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter changes(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId){
+        return events.cores().subscribe(lastEventId);
+    }
 }
@@ -0,0 +1,64 @@
+package bartzmoveis.apigetitem.controller;
+
+import java.util.List;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.InvalidMimeTypeException;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.context.request.WebRequest;
+
+import bartzmoveis.apigetitem.config.ProtobufCatalogConverter;
+
+// Formato pedido no Accept entre os que /itens e /cores sabem escrever. Quem escreve o corpo é
+// o conversor do Spring; daqui saem só as decisões que precisam ser tomadas antes dele: não
+// usar os bytes JSON do snapshot, separar o ETag de cada formato e recusar fields em Protobuf
+final class Encodings {
+
+    static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+
+    // O JSON vem primeiro, então Accept: */* (ou ausente) continua recebendo JSON
+    private static final List<MediaType> OFFERED = List.of(
+            MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR, SMILE, ProtobufCatalogConverter.PROTOBUF);
+
+    private Encodings() {}
+
+    static MediaType preferred(WebRequest request) {
+        return preferred(request.getHeader(HttpHeaders.ACCEPT));
+    }
+
+    static MediaType preferred(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept);
+            // Do mais para o menos preferido (qualidade e depois especificidade)
+            MimeTypeUtils.sortBySpecificity(accepted);
+        } catch (InvalidMediaTypeException | InvalidMimeTypeException e) {
+            return MediaType.APPLICATION_JSON;
+        }
+        for (MediaType type : accepted) {
+            if (type.getQualityValue() == 0) {
+                continue;
+            }
+            for (MediaType offered : OFFERED) {
+                if (type.includes(offered)) {
+                    return offered;
+                }
+            }
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
+    static boolean isJson(MediaType format) {
+        return MediaType.APPLICATION_JSON.equals(format);
+    }
+
+    // Sufixo do ETag: cada formato é uma representação diferente do mesmo conteúdo
+    static String etagSuffix(MediaType format) {
+        return isJson(format) ? "" : "-" + format.getSubtype();
+    }
+}
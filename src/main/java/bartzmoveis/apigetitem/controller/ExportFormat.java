@@ -0,0 +1,178 @@
+package bartzmoveis.apigetitem.controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+
+import bartzmoveis.apigetitem.dto.ItemDTO;
+
+// Formatos aceitos por /itens/export. Cada um escreve as linhas direto no OutputStream
+// da resposta, uma de cada vez, sem guardar o resultado em memória
+enum ExportFormat {
+
+    NDJSON("ndjson", MediaType.parseMediaType("application/x-ndjson")) {
+        @Override
+        RowWriter open(OutputStream out) throws IOException {
+            JsonGenerator json = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8);
+            // Separador "\n" entre objetos na raiz: uma linha JSON por item
+            json.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+            return new RowWriter() {
+                @Override
+                public void write(ItemDTO item) throws IOException {
+                    writeItem(json, item);
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    json.flush();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    json.writeRaw('\n');
+                    json.close();
+                }
+            };
+        }
+    },
+
+    JSON("json", MediaType.APPLICATION_JSON) {
+        @Override
+        RowWriter open(OutputStream out) throws IOException {
+            JsonGenerator json = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8);
+            json.writeStartArray();
+            return new RowWriter() {
+                @Override
+                public void write(ItemDTO item) throws IOException {
+                    writeItem(json, item);
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    json.flush();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    json.writeEndArray();
+                    json.close();
+                }
+            };
+        }
+    },
+
+    CSV("csv", new MediaType("text", "csv", StandardCharsets.UTF_8)) {
+        @Override
+        RowWriter open(OutputStream out) throws IOException {
+            Writer csv = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            csv.write("ITEM,DESCRICAO,REF_COMERCIAL\r\n");
+            return new RowWriter() {
+                @Override
+                public void write(ItemDTO item) throws IOException {
+                    csv.write(csvField(item.getCodeItem()));
+                    csv.write(',');
+                    csv.write(csvField(item.getDescription()));
+                    csv.write(',');
+                    csv.write(csvField(item.getRefComercial()));
+                    csv.write("\r\n");
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    csv.flush();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    csv.close();
+                }
+            };
+        }
+    };
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final String extension;
+    private final MediaType mediaType;
+
+    ExportFormat(String extension, MediaType mediaType) {
+        this.extension = extension;
+        this.mediaType = mediaType;
+    }
+
+    String extension() {
+        return extension;
+    }
+
+    MediaType mediaType() {
+        return mediaType;
+    }
+
+    abstract RowWriter open(OutputStream out) throws IOException;
+
+    static ExportFormat of(String format) {
+        try {
+            return valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Formato inválido: " + format + ". Use ndjson, json ou csv");
+        }
+    }
+
+    private static void writeItem(JsonGenerator json, ItemDTO item) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("codeItem", item.getCodeItem());
+        json.writeStringField("description", item.getDescription());
+        json.writeStringField("refComercial", item.getRefComercial());
+        json.writeEndObject();
+    }
+
+    // Aspas em volta só quando o valor tem vírgula, aspas ou quebra de linha (RFC 4180)
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    interface RowWriter {
+
+        void write(ItemDTO item) throws IOException;
+
+        void flush() throws IOException;
+
+        void close() throws IOException;
+
+        // Adaptam para o Consumer do ItemService, que não pode lançar IOException
+        default void writeUnchecked(ItemDTO item) {
+            try {
+                write(item);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        default void flushUnchecked() {
+            try {
+                flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -1,15 +1,34 @@
 package bartzmoveis.apigetitem.controller;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import bartzmoveis.apigetitem.cache.CatalogCache;
+import bartzmoveis.apigetitem.cache.CatalogEvents;
+import bartzmoveis.apigetitem.cache.CatalogPage;
+import bartzmoveis.apigetitem.cache.EncodedBody;
 import bartzmoveis.apigetitem.dto.ItemDTO;
+import bartzmoveis.apigetitem.dto.ItemDetalheDTO;
 import bartzmoveis.apigetitem.service.ItemService;
 
 // Esta classe é o controlador REST para a entidade Item, responsável por expor os 
@@ -27,26 +46,140 @@ import bartzmoveis.apigetitem.service.ItemService;
 @CrossOrigin(origins = { "http://192.168.1.10:50000", "http://localhost:5173", "file://" })
 public class ItemController {
 
+    // Campos aceitos no parâmetro fields
+    private static final Map<String, Function<ItemDTO, Object>> FIELDS = Map.of(
+            "codeItem", ItemDTO::getCodeItem,
+            "description", ItemDTO::getDescription,
+            "refComercial", ItemDTO::getRefComercial);
+
+    // Máximo de códigos aceitos em um único POST /itens/batch
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    // Resultados da busca livre quando limit não é informado
+    private static final int DEFAULT_SEARCH_LIMIT = 20;
+
     private ItemService service;
-    private ItemController (ItemService service){
+    private CatalogCache catalog;
+    private CatalogEvents events;
+    private ItemController (ItemService service, CatalogCache catalog, CatalogEvents events){
         this.service = service;
+        this.catalog = catalog;
+        this.events = events;
     }
 
+    // A lista completa vem do snapshot em memória, sem ir ao DB2 nem ao Jackson.
+    // Com limit/cursor a resposta vira uma página { content, nextCursor } ordenada por ITEM
     @GetMapping
-    public ResponseEntity<List<ItemDTO>> listAll() {
-        List<ItemDTO> listItem = service.listAll();
+    public ResponseEntity<?> listAll(@RequestParam(value = "limit", required = false) Integer limit,
+                                     @RequestParam(value = "cursor", required = false) String cursor,
+                                     @RequestParam(value = "fields", required = false) String fields,
+                                     ServletWebRequest request) {
+        if (Revalidation.notModified(request, catalog.itensVersion(), fields == null && !Paging.isPaged(limit, cursor))) {
+            return null;
+        }
 
-        if(listItem.isEmpty()){
-            return ResponseEntity.noContent().build();
+        if (Paging.isPaged(limit, cursor)) {
+            CatalogPage<ItemDTO> page = catalog.pageItens(Paging.decodeCursor(cursor), Paging.limit(limit));
+            return Paging.page(page, fields, FIELDS);
+        }
+
+        // Lista completa sem projeção: bytes pré-serializados (e pré-comprimidos) do snapshot.
+        // Os formatos binários (CBOR, Smile, Protobuf) são escritos pelo conversor a partir da lista
+        EncodedBody body = Encodings.isJson(Encodings.preferred(request)) ? catalog.itensBody() : null;
+        if (fields == null && body != null) {
+            return Precompressed.respond(body, request);
         }
-        return ResponseEntity.ok(listItem);
+
+        List<ItemDTO> listItem = catalog.itens();
+        return Paging.list(listItem, fields, FIELDS);
     }
 
 
+    // As buscas são respondidas pelo índice de trigramas do catálogo em memória
     // URL: /item/search-code?code=10.01
     @GetMapping(value = "/search", params = "codigo")
-    public ResponseEntity<List<ItemDTO>> searchByCode(@RequestParam("codigo") String query) {
-        List<ItemDTO> results = service.findByCode(query);
+    public ResponseEntity<?> searchByCode(@RequestParam("codigo") String query,
+                                          @RequestParam(value = "limit", required = false) Integer limit,
+                                          @RequestParam(value = "cursor", required = false) String cursor,
+                                          @RequestParam(value = "fields", required = false) String fields,
+                                          ServletWebRequest request) {
+        if (Revalidation.notModified(request, catalog.itensVersion())) {
+            return null;
+        }
+
+        if (Paging.isPaged(limit, cursor)) {
+            CatalogPage<ItemDTO> page = catalog.pageItensByCode(query, Paging.decodeCursor(cursor), Paging.limit(limit));
+            return Paging.page(page, fields, FIELDS);
+        }
+
+        List<ItemDTO> results = catalog.findItensByCode(query);
+        return Paging.list(results, fields, FIELDS);
+    }
+
+    @GetMapping(value = "/search", params = "descricao")
+    public ResponseEntity<?> searchByDescription(@RequestParam("descricao") String query,
+                                                 @RequestParam(value = "limit", required = false) Integer limit,
+                                                 @RequestParam(value = "cursor", required = false) String cursor,
+                                                 @RequestParam(value = "fields", required = false) String fields,
+                                                 ServletWebRequest request) {
+        if (Revalidation.notModified(request, catalog.itensVersion())) {
+            return null;
+        }
+
+        if (Paging.isPaged(limit, cursor)) {
+            CatalogPage<ItemDTO> page = catalog.pageItensByDescription(query, Paging.decodeCursor(cursor), Paging.limit(limit));
+            return Paging.page(page, fields, FIELDS);
+        }
+
+        List<ItemDTO> results = catalog.findItensByDescription(query);
+        return Paging.list(results, fields, FIELDS);
+    }
+
+    @GetMapping(value = "/search", params = "referencia")
+    public ResponseEntity<?> searchByRefComercial(@RequestParam("referencia") String query,
+                                                  @RequestParam(value = "limit", required = false) Integer limit,
+                                                  @RequestParam(value = "cursor", required = false) String cursor,
+                                                  @RequestParam(value = "fields", required = false) String fields,
+                                                  ServletWebRequest request) {
+        if (Revalidation.notModified(request, catalog.itensVersion())) {
+            return null;
+        }
+
+        if (Paging.isPaged(limit, cursor)) {
+            CatalogPage<ItemDTO> page = catalog.pageItensByRefComercial(query, Paging.decodeCursor(cursor), Paging.limit(limit));
+            return Paging.page(page, fields, FIELDS);
+        }
+
+        List<ItemDTO> results = catalog.findItensByRefComercial(query);
+        return Paging.list(results, fields, FIELDS);
+    }
+
+    // Busca livre: sem acento, por palavras da descrição e da referência comercial, tolerante a
+    // erros de digitação e ordenada por relevância. Devolve só os limit melhores (padrão 20)
+    // URL: /itens/search?q=comoda branca&limit=10
+    @GetMapping(value = "/search", params = "q")
+    public ResponseEntity<?> search(@RequestParam("q") String query,
+                                    @RequestParam(value = "limit", required = false) Integer limit,
+                                    @RequestParam(value = "fields", required = false) String fields,
+                                    ServletWebRequest request) {
+        if (Revalidation.notModified(request, catalog.itensVersion())) {
+            return null;
+        }
+
+        int top = limit == null ? DEFAULT_SEARCH_LIMIT : Paging.limit(limit);
+        List<ItemDTO> results = catalog.searchItens(query, top);
+        return Paging.list(results, fields, FIELDS);
+    }
+
+    // Resolve vários códigos exatos de uma vez (telas de pedido), em vez de uma
+    // chamada /search por código. A resposta é um objeto { codigo: item }
+    @PostMapping("/batch")
+    public ResponseEntity<Map<String, ItemDTO>> findByCodes(@RequestBody List<String> codes) {
+        if (codes.size() > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Máximo de " + MAX_BATCH_SIZE + " códigos por requisição");
+        }
+
+        Map<String, ItemDTO> results = catalog.findItensByCodes(codes);
 
         if (results.isEmpty()) {
             return ResponseEntity.noContent().build();
@@ -54,13 +187,66 @@ public class ItemController {
         return ResponseEntity.ok(results);
     }
 
-    @GetMapping(value = "/search", params = "descricao")
-    public ResponseEntity<List<ItemDTO>> searchByDescription(@RequestParam("descricao") String query) {
-        List<ItemDTO> results = service.findByDescription(query);
+    // Item com as cores em que é vendido, para o front não precisar chamar /cores e cruzar as
+    // listas no terminal da loja. O join é feito no catálogo em memória
+    // URL: /itens/10.01/detalhe
+    @GetMapping("/{codigo}/detalhe")
+    public ResponseEntity<ItemDetalheDTO> detalhe(@PathVariable("codigo") String code) {
+        ItemDetalheDTO detalhe = catalog.findItensDetalhe(List.of(code)).get(code);
+
+        if (detalhe == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Item " + code + " não encontrado");
+        }
+        return ResponseEntity.ok(detalhe);
+    }
+
+    // Variante em lote do detalhe, no mesmo formato do /itens/batch: { codigo: item com cores }
+    @PostMapping("/detalhe/batch")
+    public ResponseEntity<Map<String, ItemDetalheDTO>> detalheByCodes(@RequestBody List<String> codes) {
+        if (codes.size() > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Máximo de " + MAX_BATCH_SIZE + " códigos por requisição");
+        }
+
+        Map<String, ItemDetalheDTO> results = catalog.findItensDetalhe(codes);
 
         if (results.isEmpty()) {
             return ResponseEntity.noContent().build();
         }
         return ResponseEntity.ok(results);
     }
-}
\ No newline at end of file
+
+    // Export completo para as sincronizações noturnas: lê o DB2 em streaming e escreve
+    // cada linha na resposta assim que ela chega, com memória constante
+    // URL: /itens/export?format=ndjson (ou json, csv)
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(value = "format", defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat = ExportFormat.of(format);
+
+        StreamingResponseBody body = out -> {
+            ExportFormat.RowWriter writer = exportFormat.open(out);
+            AtomicBoolean first = new AtomicBoolean(true);
+
+            service.exportAll(item -> {
+                writer.writeUnchecked(item);
+                // Depois da primeira linha o buffer do writer se encarrega de ir descarregando
+                if (first.getAndSet(false)) {
+                    writer.flushUnchecked();
+                }
+            });
+            writer.close();
+        };
+
+        return ResponseEntity.ok()
+                .contentType(exportFormat.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=itens." + exportFormat.extension())
+                .body(body);
+    }
+
+    // Feed das alterações de /itens em Server-Sent Events: um evento change por versão nova,
+    // só com as linhas incluídas, alteradas e excluídas. Na reconexão o navegador (ou o cliente)
+    // manda o Last-Event-ID e recebe só o que perdeu; sem ele, recebe a versão atual
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter changes(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return events.itens().subscribe(lastEventId);
+    }
+}
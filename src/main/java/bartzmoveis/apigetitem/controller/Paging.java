@@ -0,0 +1,113 @@
+package bartzmoveis.apigetitem.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.server.ResponseStatusException;
+
+import bartzmoveis.apigetitem.cache.CatalogPage;
+import bartzmoveis.apigetitem.config.ProtobufCatalogConverter;
+import bartzmoveis.apigetitem.dto.PageDTO;
+
+// Tratamento comum dos parâmetros limit, cursor e fields dos endpoints de listagem e busca
+final class Paging {
+
+    static final int DEFAULT_LIMIT = 100;
+    static final int MAX_LIMIT = 1000;
+
+    private Paging() {}
+
+    // Sem limit nem cursor a resposta continua sendo a lista completa, como antes
+    static boolean isPaged(Integer limit, String cursor) {
+        return limit != null || cursor != null;
+    }
+
+    static int limit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit deve estar entre 1 e " + MAX_LIMIT);
+        }
+        return limit;
+    }
+
+    // O cursor é a chave da última linha em Base64 URL-safe, para o cliente tratá-lo como opaco
+    static String decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "cursor inválido");
+        }
+    }
+
+    static String encodeCursor(String key) {
+        if (key == null) {
+            return null;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static <T> ResponseEntity<Object> list(List<T> rows, String fields, Map<String, Function<T, Object>> accessors) {
+        if (rows.isEmpty()) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok(project(rows, fields, accessors));
+    }
+
+    static <T> ResponseEntity<Object> page(CatalogPage<T> page, String fields, Map<String, Function<T, Object>> accessors) {
+        if (page.rows().isEmpty()) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok(new PageDTO<>(project(page.rows(), fields, accessors), encodeCursor(page.nextKey())));
+    }
+
+    // Com fields=a,b cada linha vira um mapa só com esses campos, na ordem pedida
+    private static <T> List<?> project(List<T> rows, String fields, Map<String, Function<T, Object>> accessors) {
+        if (fields == null || fields.isBlank()) {
+            return rows;
+        }
+        // As linhas projetadas não têm mensagem no schema Protobuf
+        if (protobufRequested()) {
+            throw new ResponseStatusException(HttpStatus.NOT_ACCEPTABLE, "fields não é suportado em " + ProtobufCatalogConverter.PROTOBUF);
+        }
+
+        List<String> names = new ArrayList<>();
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (!accessors.containsKey(trimmed)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Campo desconhecido: " + trimmed + ". Campos válidos: " + accessors.keySet());
+            }
+            names.add(trimmed);
+        }
+
+        List<Map<String, Object>> projected = new ArrayList<>(rows.size());
+        for (T row : rows) {
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (String name : names) {
+                values.put(name, accessors.get(name).apply(row));
+            }
+            projected.add(values);
+        }
+        return projected;
+    }
+
+    private static boolean protobufRequested() {
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                && ProtobufCatalogConverter.PROTOBUF.equals(Encodings.preferred(attributes.getRequest().getHeader(HttpHeaders.ACCEPT)));
+    }
+}
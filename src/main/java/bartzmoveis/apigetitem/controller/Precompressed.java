@@ -0,0 +1,61 @@
+package bartzmoveis.apigetitem.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import bartzmoveis.apigetitem.cache.EncodedBody;
+
+// Resposta de lista completa a partir dos bytes já serializados no snapshot.
+// O corpo é devolvido como byte[], então o Spring copia os bytes sem passar pelo Jackson
+final class Precompressed {
+
+    private Precompressed() {}
+
+    static ResponseEntity<Object> respond(EncodedBody body, ServletWebRequest request) {
+        if (body.rows() == 0) {
+            return ResponseEntity.noContent().build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+
+        if (acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.gzip());
+        }
+        return response.body(body.json());
+    }
+
+    // Aceita "gzip" (ou "*") a menos que venha explicitamente com q=0
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String token : acceptEncoding.split(",")) {
+            String[] parts = token.trim().split(";");
+            String coding = parts[0].trim();
+            if (!coding.equalsIgnoreCase("gzip") && !coding.equals("*")) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim().replace(" ", "");
+                if (param.startsWith("q=") && quality(param.substring(2)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    // q-value malformado vale 1, como se não tivesse vindo, em vez de virar um 500
+    private static double quality(String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package bartzmoveis.apigetitem.controller;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import bartzmoveis.apigetitem.cache.CatalogStream;
+import bartzmoveis.apigetitem.dto.CorDTO;
+import bartzmoveis.apigetitem.dto.ItemDTO;
+import reactor.core.publisher.Flux;
+
+// Profile reactive: /itens e /cores com Accept: application/x-ndjson viram um Flux, uma linha
+// JSON por item, escrita conforme o cliente consome. Os demais Accept (JSON, */*) continuam
+// no ItemController/CorController, então os clientes atuais não percebem diferença
+@RestController
+@ConditionalOnProperty(name = "catalog.reactive.enabled", havingValue = "true")
+@CrossOrigin(origins = { "http://192.168.1.10:50000", "http://localhost:5173", "file://" })
+public class ReactiveCatalogController {
+
+    private final CatalogStream stream;
+
+    public ReactiveCatalogController(CatalogStream stream) {
+        this.stream = stream;
+    }
+
+    @GetMapping(value = "/itens", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ItemDTO> itens() {
+        return stream.itens();
+    }
+
+    @GetMapping(value = "/cores", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<CorDTO> cores() {
+        return stream.cores();
+    }
+}
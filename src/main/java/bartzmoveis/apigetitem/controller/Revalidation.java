@@ -0,0 +1,41 @@
+package bartzmoveis.apigetitem.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import bartzmoveis.apigetitem.cache.CatalogVersion;
+
+// GET condicional para as respostas servidas do catálogo em memória
+final class Revalidation {
+
+    private Revalidation() {}
+
+    // Escreve ETag e Last-Modified da versão atual e devolve true quando o cliente já tem
+    // essa versão; nesse caso a resposta já está marcada como 304 e não deve ter corpo.
+    // Sem versão (catálogo ainda não carregado) a resposta segue sem validação. Cada formato
+    // do Accept (JSON, CBOR...) tem o seu ETag, pois os bytes de cada um são diferentes
+    static boolean notModified(ServletWebRequest request, CatalogVersion version) {
+        return notModified(request, version, false);
+    }
+
+    // precompressed: a resposta pode sair dos bytes em gzip do snapshot (lista completa em JSON).
+    // Nesse caso o corpo comprimido também ganha o seu ETag, diferente do da versão sem gzip
+    static boolean notModified(ServletWebRequest request, CatalogVersion version, boolean precompressed) {
+        if (version == null) {
+            return false;
+        }
+
+        // no-cache: o navegador pode guardar a resposta, mas revalida a cada uso. Com isso o
+        // Spring Security não sobrescreve o cabeçalho com o no-store padrão dele
+        request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        request.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        MediaType format = Encodings.preferred(request);
+        String etag = version.etag() + Encodings.etagSuffix(format);
+        if (precompressed && Encodings.isJson(format) && Precompressed.acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            etag += "-gzip";
+        }
+        return request.checkNotModified(etag, version.modifiedAt().toEpochMilli());
+    }
+}
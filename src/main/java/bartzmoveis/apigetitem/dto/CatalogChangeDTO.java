@@ -0,0 +1,23 @@
+package bartzmoveis.apigetitem.dto;
+
+import lombok.Value;
+
+// Imutável: montado uma vez pelo construtor, no mapeamento do DB2
+@Value
+public class CatalogChangeDTO {
+
+    //(name = "SEQ")
+    private long sequence;
+
+    //(name = "TABELA") ITEM ou COR
+    private String table;
+
+    //(name = "CHAVE") ITEM ou SIGLA_COR da linha alterada
+    private String key;
+
+    public CatalogChangeDTO(long sequence, String table, String key) {
+        this.sequence = sequence;
+        this.table = table;
+        this.key = key;
+    }
+}
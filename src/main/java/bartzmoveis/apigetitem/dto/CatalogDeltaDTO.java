@@ -0,0 +1,29 @@
+package bartzmoveis.apigetitem.dto;
+
+import java.util.List;
+
+import lombok.Value;
+
+// Evento change de /itens/changes e /cores/changes: o que mudou entre duas versões de uma tabela.
+// previous e version são os ETags antes e depois; o cliente só aplica o delta sobre a cópia
+// local que estiver em previous
+@Value
+public class CatalogDeltaDTO<T> {
+
+    private String previous;
+
+    private String version;
+
+    // Linhas novas ou alteradas, no mesmo formato de GET /itens ou GET /cores
+    private List<T> upserts;
+
+    // Chaves (ITEM ou SIGLA_COR) excluídas
+    private List<String> deletes;
+
+    public CatalogDeltaDTO(String previous, String version, List<T> upserts, List<String> deletes) {
+        this.previous = previous;
+        this.version = version;
+        this.upserts = upserts;
+        this.deletes = deletes;
+    }
+}
@@ -0,0 +1,27 @@
+package bartzmoveis.apigetitem.dto;
+
+import java.time.Instant;
+
+import lombok.Data;
+
+@Data
+public class CatalogStatusDTO {
+
+    private int totalItens;
+
+    private int totalCores;
+
+    private Instant loadedAt;
+
+    // Última alteração aplicada, quando a captura de alterações está ligada
+    private long changeSequence;
+
+    public CatalogStatusDTO(){}
+
+    public CatalogStatusDTO(int totalItens, int totalCores, Instant loadedAt, long changeSequence) {
+        this.totalItens = totalItens;
+        this.totalCores = totalCores;
+        this.loadedAt = loadedAt;
+        this.changeSequence = changeSequence;
+    }
+}
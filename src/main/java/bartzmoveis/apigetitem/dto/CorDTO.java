@@ -1,8 +1,9 @@
 package bartzmoveis.apigetitem.dto;
 
-import lombok.Data;
+import lombok.Value;
 
-@Data
+// Imutável: montado uma vez pelo construtor (no mapeamento do DB2 ou no catálogo em memória)
+@Value
 public class CorDTO {
     
     //(name = "SIGLA_COR")
@@ -11,8 +12,6 @@ public class CorDTO {
     //(name = "DESCRICAO")
     private String descricao;
 
-    public CorDTO(){}
-
     public CorDTO(String siglaCor, String descricao){
         this.siglaCor = siglaCor;
         this.descricao = descricao;
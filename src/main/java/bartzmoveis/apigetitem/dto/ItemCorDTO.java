@@ -0,0 +1,19 @@
+package bartzmoveis.apigetitem.dto;
+
+import lombok.Value;
+
+// Imutável: uma linha da tabela de vínculo item–cor (catalog.item-cores.table)
+@Value
+public class ItemCorDTO {
+
+    //(name = "ITEM")
+    private String codeItem;
+
+    //(name = "SIGLA_COR")
+    private String siglaCor;
+
+    public ItemCorDTO(String codeItem, String siglaCor) {
+        this.codeItem = codeItem;
+        this.siglaCor = siglaCor;
+    }
+}
@@ -1,8 +1,9 @@
 package bartzmoveis.apigetitem.dto;
 
-import lombok.Data;
+import lombok.Value;
 
-@Data
+// Imutável: montado uma vez pelo construtor (no mapeamento do DB2 ou no catálogo em memória)
+@Value
 public class ItemDTO {
     
     //(name = "ITEM")
@@ -14,8 +15,6 @@ public class ItemDTO {
     //(name = "REF_COMERCIAL")
     private String refComercial;
 
-    public ItemDTO(){}
-
     public ItemDTO(String codeItem, String description, String refComercial) {
         this.codeItem = codeItem;
         this.description = description;
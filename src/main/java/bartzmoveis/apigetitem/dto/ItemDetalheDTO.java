@@ -0,0 +1,26 @@
+package bartzmoveis.apigetitem.dto;
+
+import java.util.List;
+
+import lombok.Value;
+
+// Item com as cores em que é vendido, montado no catálogo em memória a cada requisição
+@Value
+public class ItemDetalheDTO {
+
+    private String codeItem;
+
+    private String description;
+
+    private String refComercial;
+
+    // Na ordem de SIGLA_COR; vazio quando o item não tem vínculo ou o vínculo está desligado
+    private List<CorDTO> cores;
+
+    public ItemDetalheDTO(ItemDTO item, List<CorDTO> cores) {
+        this.codeItem = item.getCodeItem();
+        this.description = item.getDescription();
+        this.refComercial = item.getRefComercial();
+        this.cores = cores;
+    }
+}
@@ -0,0 +1,21 @@
+package bartzmoveis.apigetitem.dto;
+
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class PageDTO<T> {
+
+    private List<T> content;
+
+    // Token opaco para pedir a próxima página (?cursor=...). Nulo na última página
+    private String nextCursor;
+
+    public PageDTO(){}
+
+    public PageDTO(List<T> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,17 @@
+package bartzmoveis.apigetitem.exceptions;
+
+// Lançada quando uma requisição espera demais por uma vaga de acesso ao DB2.
+// Vira um 503 com Retry-After no GlobalExceptionHandler, em vez de segurar a thread
+public class Db2BusyException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public Db2BusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
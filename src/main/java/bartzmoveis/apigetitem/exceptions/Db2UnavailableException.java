@@ -0,0 +1,17 @@
+package bartzmoveis.apigetitem.exceptions;
+
+// Lançada sem nem tentar o DB2 quando o disjuntor está aberto (ver Db2CircuitBreaker)
+// e não há resultado anterior para servir. Vira um 503 com Retry-After no GlobalExceptionHandler
+public class Db2UnavailableException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public Db2UnavailableException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
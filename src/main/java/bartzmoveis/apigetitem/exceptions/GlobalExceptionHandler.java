@@ -0,0 +1,47 @@
+package bartzmoveis.apigetitem.exceptions;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+// Tratamento centralizado das exceções que precisam de uma resposta HTTP específica
+@RestControllerAdvice
+public class GlobalExceptionHandler {
+
+    @ExceptionHandler(Db2BusyException.class)
+    public ResponseEntity<ProblemDetail> handleDb2Busy(Db2BusyException ex) {
+        return serviceUnavailable(ex.getMessage(), ex.getRetryAfterSeconds());
+    }
+
+    // Disjuntor do DB2 aberto e nenhum resultado anterior para servir no lugar
+    @ExceptionHandler(Db2UnavailableException.class)
+    public ResponseEntity<ProblemDetail> handleDb2Unavailable(Db2UnavailableException ex) {
+        return serviceUnavailable(ex.getMessage(), ex.getRetryAfterSeconds());
+    }
+
+    // Nos métodos @Transactional a conexão é pedida pelo gerenciador de transação,
+    // que embrulha a Db2BusyException; aqui ela é desembrulhada
+    @ExceptionHandler(CannotCreateTransactionException.class)
+    public ResponseEntity<ProblemDetail> handleTransaction(CannotCreateTransactionException ex) {
+        Throwable cause = ex.getCause();
+        while (cause != null && !(cause instanceof Db2BusyException)) {
+            cause = cause.getCause();
+        }
+        if (cause == null) {
+            throw ex;
+        }
+        return handleDb2Busy((Db2BusyException) cause);
+    }
+
+    private static ResponseEntity<ProblemDetail> serviceUnavailable(String detail, long retryAfterSeconds) {
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, detail);
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(problem);
+    }
+}
@@ -0,0 +1,66 @@
+package bartzmoveis.apigetitem.service;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import bartzmoveis.apigetitem.dto.CatalogChangeDTO;
+
+// Lê a tabela de alterações do catálogo, alimentada por triggers em SCHEMA.ITEM e SCHEMA.COR
+// (DDL no README). Cada linha só diz qual chave mudou; o estado atual vem de ItemService/CorService
+@Service
+public class ChangeLogService {
+
+    private static final ColumnMapping<CatalogChangeDTO> CHANGE_ROW = ColumnMapping.of(
+            (rs, columns) -> new CatalogChangeDTO(rs.getLong(columns[0]), rs.getString(columns[1]), rs.getString(columns[2])),
+            "SEQ", "TABELA", "CHAVE");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final QueryMetrics metrics;
+    private final FetchSettings fetch;
+
+    private final boolean enabled;
+    private final String table;
+
+    public ChangeLogService(JdbcTemplate jdbcTemplate, QueryMetrics metrics, FetchSettings fetch,
+                            @Value("${catalog.changes.enabled:false}") boolean enabled,
+                            @Value("${catalog.changes.table:SCHEMA.CATALOGO_ALTERACOES}") String table){
+        // O nome vai direto no SQL, então só aceitamos SCHEMA.TABELA
+        if(!table.matches("[A-Za-z0-9_]+(\\.[A-Za-z0-9_]+)?")){
+            throw new IllegalArgumentException("catalog.changes.table inválido: " + table);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.metrics = metrics;
+        this.fetch = fetch;
+        this.enabled = enabled;
+        this.table = table;
+    }
+
+    public boolean enabled(){
+        return enabled;
+    }
+
+    // Marca d'água lida antes de uma carga completa: tudo até aqui já está na carga.
+    // Como as demais consultas, tem query-timeout: o refresh e o applyChanges (synchronized)
+    // não podem ficar presos num DB2 que parou de responder
+    @Transactional(readOnly = true)
+    public long latestSequence(){
+        String sql = "SELECT COALESCE(MAX(SEQ), 0) FROM " + table;
+
+        List<Long> latest = metrics.query("changes.latestSequence", (rs, rowNum) -> rs.getLong(1),
+                mapper -> jdbcTemplate.query(sql, fetch.complete("changes.latestSequence", 1), mapper));
+        return latest.isEmpty() ? 0 : latest.get(0);
+    }
+
+    @Transactional(readOnly = true)
+    public List<CatalogChangeDTO> changesSince(long sequence, int limit){
+        String sql = "SELECT SEQ, TABELA, CHAVE FROM " + table
+                + " WHERE SEQ > ? ORDER BY SEQ FETCH FIRST " + limit + " ROWS ONLY";
+
+        return metrics.query("changes.changesSince", CHANGE_ROW.mapper(),
+                mapper -> jdbcTemplate.query(sql, fetch.complete("changes.changesSince", limit, sequence), mapper));
+    }
+}
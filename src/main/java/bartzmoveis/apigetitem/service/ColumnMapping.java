@@ -0,0 +1,64 @@
+package bartzmoveis.apigetitem.service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.function.Consumer;
+
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+// Mapeamento de uma linha do DB2 para um objeto imutável, declarado uma vez por tabela e
+// compartilhado por todas as consultas do service. As colunas são procuradas pelo nome uma
+// única vez por ResultSet (findColumn) e, dali em diante, lidas pelo índice, sem a busca
+// por nome que o rs.getString("COLUNA") refaz a cada linha
+final class ColumnMapping<T> {
+
+    @FunctionalInterface
+    interface RowFactory<T> {
+        // columns[i] é o índice JDBC da i-ésima coluna declarada em ColumnMapping.of
+        T create(ResultSet rs, int[] columns) throws SQLException;
+    }
+
+    private final String[] labels;
+    private final RowFactory<T> factory;
+
+    private ColumnMapping(String[] labels, RowFactory<T> factory) {
+        this.labels = labels;
+        this.factory = factory;
+    }
+
+    static <T> ColumnMapping<T> of(RowFactory<T> factory, String... labels) {
+        return new ColumnMapping<>(labels.clone(), factory);
+    }
+
+    // Um mapper novo por consulta: ele guarda os índices do ResultSet que está lendo
+    RowMapper<T> mapper() {
+        Resolver resolver = new Resolver();
+        return (rs, rowNum) -> factory.create(rs, resolver.columns(rs));
+    }
+
+    // Variante para leituras em streaming, entregando cada linha ao consumer
+    RowCallbackHandler handler(Consumer<? super T> consumer) {
+        Resolver resolver = new Resolver();
+        return rs -> consumer.accept(factory.create(rs, resolver.columns(rs)));
+    }
+
+    // Refaz a busca só quando muda o ResultSet (o findByCodes lê vários, um por bloco do IN)
+    private final class Resolver {
+
+        private ResultSet resolvedFor;
+        private int[] columns;
+
+        int[] columns(ResultSet rs) throws SQLException {
+            if (rs != resolvedFor) {
+                int[] resolved = new int[labels.length];
+                for (int i = 0; i < labels.length; i++) {
+                    resolved[i] = rs.findColumn(labels[i]);
+                }
+                columns = resolved;
+                resolvedFor = rs;
+            }
+            return columns;
+        }
+    }
+}
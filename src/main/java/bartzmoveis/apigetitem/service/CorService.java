@@ -1,5 +1,8 @@
 package bartzmoveis.apigetitem.service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -11,21 +14,32 @@ import bartzmoveis.apigetitem.dto.CorDTO;
 
 @Service
 public class CorService {
+
+    // Quantidade de siglas por consulta IN (...), igual ao ItemService
+    static final int IN_CHUNK_SIZE = 500;
+
+    // Linhas por ida e volta de rede ao ler a tabela inteira, igual ao ItemService
+    static final int BULK_FETCH_SIZE = 1000;
+
+    private static final ColumnMapping<CorDTO> COR_ROW = ColumnMapping.of(
+            (rs, columns) -> new CorDTO(rs.getString(columns[0]), rs.getString(columns[1])),
+            "SIGLA_COR", "DESCRICAO");
+
     private JdbcTemplate jdbcTemplate;
-    public CorService(JdbcTemplate jdbcTemplate){
+    private QueryMetrics metrics;
+    private FetchSettings fetch;
+    public CorService(JdbcTemplate jdbcTemplate, QueryMetrics metrics, FetchSettings fetch){
         this.jdbcTemplate = jdbcTemplate;
+        this.metrics = metrics;
+        this.fetch = fetch;
     }
 
     @Transactional(readOnly = true)
     public List<CorDTO> listAll(){
         String sql = "SELECT SIGLA_COR, DESCRICAO FROM SCHEMA.COR";
 
-        return jdbcTemplate.query(sql, (rs, rowNum) -> {
-            CorDTO dto = new CorDTO();
-            dto.setSiglaCor(rs.getString("SIGLA_COR"));
-            dto.setDescricao(rs.getString("DESCRICAO"));
-            return dto;
-        });
+        return metrics.query("cor.listAll", COR_ROW.mapper(),
+                mapper -> jdbcTemplate.query(sql, fetch.complete("cor.listAll", BULK_FETCH_SIZE), mapper));
     }
 
     @Transactional(readOnly = true)
@@ -34,12 +48,8 @@ public class CorService {
         
         String formattedSql = "%" + siglaCor + "%";
 
-        return jdbcTemplate.query(sql, (rs, rowNum) -> {
-            CorDTO dto = new CorDTO();
-            dto.setSiglaCor(rs.getString("SIGLA_COR"));
-            dto.setDescricao(rs.getString("DESCRICAO"));
-            return dto;
-        }, formattedSql);
+        return metrics.query("cor.findBySiglaCor", COR_ROW.mapper(),
+                mapper -> jdbcTemplate.query(sql, fetch.statement("cor.findBySiglaCor", 0, formattedSql), mapper));
     }
 
     @Transactional(readOnly = true)
@@ -48,11 +58,50 @@ public class CorService {
 
         String formattedSql = "%" + descricao + "%";
 
-        return jdbcTemplate.query(sql, (rs, rowNum) -> {
-            CorDTO dto = new CorDTO();
-            dto.setSiglaCor(rs.getString("SIGLA_COR"));
-            dto.setDescricao(rs.getString("DESCRICAO"));
-            return dto;
-        }, formattedSql);
+        return metrics.query("cor.findByDescricao", COR_ROW.mapper(),
+                mapper -> jdbcTemplate.query(sql, fetch.statement("cor.findByDescricao", 0, formattedSql), mapper));
+    }
+
+    @Transactional(readOnly = true)
+    public List<CorDTO> findBySiglas(List<String> siglas){
+        return metrics.query("cor.findBySiglas", COR_ROW.mapper(), mapper -> {
+            List<CorDTO> result = new ArrayList<>(siglas.size());
+
+            for (int from = 0; from < siglas.size(); from += IN_CHUNK_SIZE) {
+                List<String> chunk = siglas.subList(from, Math.min(siglas.size(), from + IN_CHUNK_SIZE));
+                String sql = "SELECT SIGLA_COR, DESCRICAO FROM SCHEMA.COR "
+                        + "WHERE SIGLA_COR IN (" + String.join(",", Collections.nCopies(chunk.size(), "?")) + ")";
+
+                result.addAll(jdbcTemplate.query(sql, fetch.complete("cor.findBySiglas", chunk.size(), chunk.toArray()), mapper));
+            }
+            return result;
+        });
+    }
+
+    // Versões paginadas por keyset sobre SIGLA_COR, no mesmo formato do ItemService
+    @Transactional(readOnly = true)
+    public List<CorDTO> listPage(String afterSigla, int limit){
+        return queryPage("cor.listPage", "", afterSigla, limit);
+    }
+
+    @Transactional(readOnly = true)
+    public List<CorDTO> findBySiglaCorPage(String siglaCor, String afterSigla, int limit){
+        return queryPage("cor.findBySiglaCorPage", "UPPER(SIGLA_COR) LIKE UPPER(?) AND ", afterSigla, limit, "%" + siglaCor + "%");
+    }
+
+    @Transactional(readOnly = true)
+    public List<CorDTO> findByDescricaoPage(String descricao, String afterSigla, int limit){
+        return queryPage("cor.findByDescricaoPage", "UPPER(DESCRICAO) LIKE UPPER(?) AND ", afterSigla, limit, "%" + descricao + "%");
+    }
+
+    private List<CorDTO> queryPage(String operation, String filter, String afterSigla, int limit, Object... filterArgs){
+        String sql = "SELECT SIGLA_COR, DESCRICAO FROM SCHEMA.COR "
+                + "WHERE " + filter + "SIGLA_COR > ? ORDER BY SIGLA_COR FETCH FIRST " + limit + " ROWS ONLY";
+
+        Object[] args = Arrays.copyOf(filterArgs, filterArgs.length + 1);
+        args[filterArgs.length] = afterSigla == null ? "" : afterSigla;
+
+        return metrics.query(operation, COR_ROW.mapper(),
+                mapper -> jdbcTemplate.query(sql, fetch.complete(operation, limit, args), mapper));
     }
 }
@@ -0,0 +1,102 @@
+package bartzmoveis.apigetitem.service;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.stereotype.Component;
+
+// Fetch size e max rows de cada consulta dos services. O fetch size é quantas linhas o
+// driver do DB2 traz por ida e volta de rede: leituras grandes com o padrão do driver
+// fazem centenas de viagens. A ordem de precedência, por operação (a mesma tag das métricas):
+//   catalog.db.query.<operação>.fetch-size  >  valor sugerido pelo service  >  catalog.db.fetch-size
+// e o mesmo para max-rows. Zero deixa o padrão do driver (e, em max-rows, sem limite).
+// O max-rows só vale para as buscas por texto (statement); as leituras que precisam de todas
+// as linhas (complete) o ignoram, porque cortá-las deixaria o snapshot, o ETag e o export incompletos.
+// O query-timeout (catalog.db.query.<operação>.query-timeout > catalog.db.query-timeout) limita
+// quanto uma consulta pode esperar o DB2; estourado, ela falha e conta para o Db2CircuitBreaker
+@Component
+public class FetchSettings {
+
+    private final Environment environment;
+    private final int defaultFetchSize;
+    private final int defaultMaxRows;
+    private final int defaultQueryTimeoutSeconds;
+
+    // As propriedades são lidas uma vez por operação, não a cada consulta (-1 = não configurada)
+    private final ConcurrentHashMap<String, Integer> fetchSizes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Integer> maxRows = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Integer> queryTimeouts = new ConcurrentHashMap<>();
+
+    public FetchSettings(Environment environment,
+                         @Value("${catalog.db.fetch-size:0}") int defaultFetchSize,
+                         @Value("${catalog.db.max-rows:0}") int defaultMaxRows,
+                         @Value("${catalog.db.query-timeout:PT0S}") Duration defaultQueryTimeout) {
+        this.environment = environment;
+        this.defaultFetchSize = defaultFetchSize;
+        this.defaultMaxRows = defaultMaxRows;
+        this.defaultQueryTimeoutSeconds = seconds(defaultQueryTimeout);
+    }
+
+    public int fetchSize(String operation, int suggested) {
+        int configured = fetchSizes.computeIfAbsent(operation, op -> property(op, "fetch-size"));
+        return configured >= 0 ? configured : suggested > 0 ? suggested : defaultFetchSize;
+    }
+
+    public int maxRows(String operation) {
+        int configured = maxRows.computeIfAbsent(operation, op -> property(op, "max-rows"));
+        return configured >= 0 ? configured : defaultMaxRows;
+    }
+
+    // Em segundos, a unidade do JDBC; zero é sem limite
+    public int queryTimeout(String operation) {
+        int configured = queryTimeouts.computeIfAbsent(operation, op -> {
+            // Aceita os mesmos formatos do @Value: PT60S ou 60s
+            String timeout = environment.getProperty("catalog.db.query." + op + ".query-timeout");
+            return timeout != null ? seconds(DurationStyle.detectAndParse(timeout)) : -1;
+        });
+        return configured >= 0 ? configured : defaultQueryTimeoutSeconds;
+    }
+
+    // Aplica as configurações da operação no statement e depois os parâmetros do SQL
+    public PreparedStatementSetter statement(String operation, int suggestedFetchSize, Object... args) {
+        return setter(operation, suggestedFetchSize, maxRows(operation), args);
+    }
+
+    // Cargas completas, export, lotes por chave e páginas (já limitadas pelo FETCH FIRST):
+    // fetch size e query-timeout da operação, sem max-rows
+    public PreparedStatementSetter complete(String operation, int suggestedFetchSize, Object... args) {
+        return setter(operation, suggestedFetchSize, 0, args);
+    }
+
+    private PreparedStatementSetter setter(String operation, int suggestedFetchSize, int rows, Object... args) {
+        int fetchSize = fetchSize(operation, suggestedFetchSize);
+        int timeout = queryTimeout(operation);
+        ArgumentPreparedStatementSetter arguments = new ArgumentPreparedStatementSetter(args);
+        return ps -> {
+            if (fetchSize > 0) {
+                ps.setFetchSize(fetchSize);
+            }
+            if (rows > 0) {
+                ps.setMaxRows(rows);
+            }
+            if (timeout > 0) {
+                ps.setQueryTimeout(timeout);
+            }
+            arguments.setValues(ps);
+        };
+    }
+
+    // Arredonda para cima: um timeout de 500ms não pode virar "sem limite"
+    private static int seconds(Duration timeout) {
+        return (int) Math.min(Integer.MAX_VALUE, (timeout.toMillis() + 999) / 1000);
+    }
+
+    private int property(String operation, String name) {
+        return environment.getProperty("catalog.db.query." + operation + "." + name, Integer.class, -1);
+    }
+}
@@ -0,0 +1,79 @@
+package bartzmoveis.apigetitem.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import bartzmoveis.apigetitem.dto.ItemCorDTO;
+
+// Lê a tabela de vínculo entre SCHEMA.ITEM e SCHEMA.COR (colunas ITEM e SIGLA_COR), usada pelo
+// /itens/{codigo}/detalhe. O join com as cores é feito no catálogo em memória, nunca no SQL
+@Service
+public class ItemCorService {
+
+    // Quantidade de códigos por consulta IN (...), igual ao ItemService
+    static final int IN_CHUNK_SIZE = 500;
+
+    // Linhas por ida e volta de rede ao ler a tabela inteira, igual ao ItemService
+    static final int BULK_FETCH_SIZE = 1000;
+
+    private static final ColumnMapping<ItemCorDTO> ITEM_COR_ROW = ColumnMapping.of(
+            (rs, columns) -> new ItemCorDTO(rs.getString(columns[0]), rs.getString(columns[1])),
+            "ITEM", "SIGLA_COR");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final QueryMetrics metrics;
+    private final FetchSettings fetch;
+
+    private final boolean enabled;
+    private final String table;
+
+    public ItemCorService(JdbcTemplate jdbcTemplate, QueryMetrics metrics, FetchSettings fetch,
+                          @Value("${catalog.item-cores.enabled:false}") boolean enabled,
+                          @Value("${catalog.item-cores.table:SCHEMA.ITEM_COR}") String table){
+        // O nome vai direto no SQL, então só aceitamos SCHEMA.TABELA
+        if(!table.matches("[A-Za-z0-9_]+(\\.[A-Za-z0-9_]+)?")){
+            throw new IllegalArgumentException("catalog.item-cores.table inválido: " + table);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.metrics = metrics;
+        this.fetch = fetch;
+        this.enabled = enabled;
+        this.table = table;
+    }
+
+    // Desligado, os detalhes saem com a lista de cores vazia e a tabela nunca é consultada
+    public boolean enabled(){
+        return enabled;
+    }
+
+    @Transactional(readOnly = true)
+    public List<ItemCorDTO> listAll(){
+        String sql = "SELECT ITEM, SIGLA_COR FROM " + table;
+
+        return metrics.query("itemCor.listAll", ITEM_COR_ROW.mapper(),
+                mapper -> jdbcTemplate.query(sql, fetch.complete("itemCor.listAll", BULK_FETCH_SIZE), mapper));
+    }
+
+    // Vínculos atuais dos códigos informados, em blocos de IN (...) como o ItemService.findByCodes
+    @Transactional(readOnly = true)
+    public List<ItemCorDTO> findByCodes(List<String> codes){
+        return metrics.query("itemCor.findByCodes", ITEM_COR_ROW.mapper(), mapper -> {
+            List<ItemCorDTO> result = new ArrayList<>(codes.size());
+
+            for (int from = 0; from < codes.size(); from += IN_CHUNK_SIZE) {
+                List<String> chunk = codes.subList(from, Math.min(codes.size(), from + IN_CHUNK_SIZE));
+                String sql = "SELECT ITEM, SIGLA_COR FROM " + table
+                        + " WHERE ITEM IN (" + String.join(",", Collections.nCopies(chunk.size(), "?")) + ")";
+
+                result.addAll(jdbcTemplate.query(sql, fetch.complete("itemCor.findByCodes", 0, chunk.toArray()), mapper));
+            }
+            return result;
+        });
+    }
+}
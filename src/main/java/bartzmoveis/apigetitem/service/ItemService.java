@@ -1,6 +1,10 @@
 package bartzmoveis.apigetitem.service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
@@ -16,22 +20,41 @@ public class ItemService {
     // O repositório é injetado para que possamos acessar os dados do banco e
     // realizar as operações necessárias
     private final JdbcTemplate jdbcTemplate;
-    public ItemService (JdbcTemplate jdbcTemplate){
+
+    // Tempos de consulta e de mapeamento publicados no /actuator/prometheus
+    private final QueryMetrics metrics;
+
+    // Fetch size e max rows de cada consulta
+    private final FetchSettings fetch;
+
+    public ItemService (JdbcTemplate jdbcTemplate, QueryMetrics metrics, FetchSettings fetch){
         this.jdbcTemplate = jdbcTemplate;
+        this.metrics = metrics;
+        this.fetch = fetch;
     }
 
+    // Cada linha de SCHEMA.ITEM vira um ItemDTO pelo construtor, com as colunas lidas por índice
+    private static final ColumnMapping<ItemDTO> ITEM_ROW = ColumnMapping.of(
+            (rs, columns) -> new ItemDTO(rs.getString(columns[0]), rs.getString(columns[1]), rs.getString(columns[2])),
+            "ITEM", "DESCRICAO", "REF_COMERCIAL");
+
+    // Linhas por ida e volta de rede ao ler a tabela inteira (carga do catálogo)
+    static final int BULK_FETCH_SIZE = 1000;
+
+    // Linhas trazidas do DB2 por ida e volta de rede durante o export. Mantém a memória
+    // constante: o driver nunca segura mais que isso, seja qual for o tamanho da tabela
+    static final int EXPORT_FETCH_SIZE = 500;
+
+    // Quantidade de códigos por consulta IN (...), abaixo do limite de parâmetros do DB2
+    static final int IN_CHUNK_SIZE = 500;
+
     public List<ItemDTO> listAll(){
         String sql = "SELECT ITEM, DESCRICAO, REF_COMERCIAL FROM SCHEMA.ITEM";
         
         //O RowMapper transforma cada linha do banco em um objeto DTO
         //Cada campo da tabela é mapeado para um campo do DTO
-        return jdbcTemplate.query(sql, (rs, rowNum) -> {
-            ItemDTO dto = new ItemDTO();
-            dto.setCodeItem(rs.getString("ITEM"));
-            dto.setDescription(rs.getString("DESCRICAO"));
-            dto.setRefComercial(rs.getString("REF_COMERCIAL"));
-            return dto;
-        });
+        return metrics.query("item.listAll", ITEM_ROW.mapper(),
+                mapper -> jdbcTemplate.query(sql, fetch.complete("item.listAll", BULK_FETCH_SIZE), mapper));
     }
 
 
@@ -43,13 +66,8 @@ public class ItemService {
 
         String formattedSql = "%" + code + "%";
 
-        return jdbcTemplate.query(sql, (rs, rowNum) -> {
-            ItemDTO dto = new ItemDTO();
-            dto.setCodeItem(rs.getString("ITEM"));
-            dto.setDescription(rs.getString("DESCRICAO"));
-            dto.setRefComercial(rs.getString("REF_COMERCIAL"));
-            return dto;
-        }, formattedSql); // O formattedSql substitui o ? no SQL
+        return metrics.query("item.findByCode", ITEM_ROW.mapper(),
+                mapper -> jdbcTemplate.query(sql, fetch.statement("item.findByCode", 0, formattedSql), mapper)); // O formattedSql substitui o ? no SQL
     }
 
     @Transactional(readOnly = true)
@@ -58,12 +76,81 @@ public class ItemService {
 
         String formattedSql = "%" + desc + "%";
 
-        return jdbcTemplate.query(sql, (rs, rowNum) -> {
-            ItemDTO dto = new ItemDTO();
-            dto.setCodeItem(rs.getString("ITEM"));
-            dto.setDescription(rs.getString("DESCRICAO"));
-            dto.setRefComercial(rs.getString("REF_COMERCIAL"));
-            return dto;
-        }, formattedSql);
+        return metrics.query("item.findByDescription", ITEM_ROW.mapper(),
+                mapper -> jdbcTemplate.query(sql, fetch.statement("item.findByDescription", 0, formattedSql), mapper));
+    }
+
+    @Transactional(readOnly = true)
+    public List<ItemDTO> findByRefComercial(String ref) {
+        String sql = "SELECT ITEM, DESCRICAO, REF_COMERCIAL FROM SCHEMA.ITEM " + "WHERE UPPER(REF_COMERCIAL) LIKE UPPER(?)";
+
+        String formattedSql = "%" + ref + "%";
+
+        return metrics.query("item.findByRefComercial", ITEM_ROW.mapper(),
+                mapper -> jdbcTemplate.query(sql, fetch.statement("item.findByRefComercial", 0, formattedSql), mapper));
+    }
+
+    // Versões paginadas por keyset: em vez de OFFSET, a consulta continua a partir do
+    // último ITEM devolvido, então o DB2 percorre a chave e não relê as páginas anteriores
+    @Transactional(readOnly = true)
+    public List<ItemDTO> listPage(String afterCode, int limit) {
+        return queryPage("item.listPage", "", afterCode, limit);
+    }
+
+    @Transactional(readOnly = true)
+    public List<ItemDTO> findByCodePage(String code, String afterCode, int limit) {
+        return queryPage("item.findByCodePage", "UPPER(ITEM) LIKE UPPER(?) AND ", afterCode, limit, "%" + code + "%");
+    }
+
+    @Transactional(readOnly = true)
+    public List<ItemDTO> findByDescriptionPage(String desc, String afterCode, int limit) {
+        return queryPage("item.findByDescriptionPage", "UPPER(DESCRICAO) LIKE UPPER(?) AND ", afterCode, limit, "%" + desc + "%");
+    }
+
+    @Transactional(readOnly = true)
+    public List<ItemDTO> findByRefComercialPage(String ref, String afterCode, int limit) {
+        return queryPage("item.findByRefComercialPage", "UPPER(REF_COMERCIAL) LIKE UPPER(?) AND ", afterCode, limit, "%" + ref + "%");
+    }
+
+    private List<ItemDTO> queryPage(String operation, String filter, String afterCode, int limit, Object... filterArgs) {
+        // O limite é um int já validado pelo controller, por isso pode ir direto no SQL
+        String sql = "SELECT ITEM, DESCRICAO, REF_COMERCIAL FROM SCHEMA.ITEM "
+                + "WHERE " + filter + "ITEM > ? ORDER BY ITEM FETCH FIRST " + limit + " ROWS ONLY";
+
+        Object[] args = Arrays.copyOf(filterArgs, filterArgs.length + 1);
+        args[filterArgs.length] = afterCode == null ? "" : afterCode;
+
+        // A página inteira vem numa única ida ao DB2
+        return metrics.query(operation, ITEM_ROW.mapper(),
+                mapper -> jdbcTemplate.query(sql, fetch.complete(operation, limit, args), mapper));
+    }
+
+    // Busca exata por uma lista de códigos, em blocos de IN (...) para não estourar
+    // o número de parâmetros de uma única consulta
+    @Transactional(readOnly = true)
+    public List<ItemDTO> findByCodes(List<String> codes) {
+        // Os blocos entram numa única medição, que representa o lote inteiro
+        return metrics.query("item.findByCodes", ITEM_ROW.mapper(), mapper -> {
+            List<ItemDTO> result = new ArrayList<>(codes.size());
+
+            for (int from = 0; from < codes.size(); from += IN_CHUNK_SIZE) {
+                List<String> chunk = codes.subList(from, Math.min(codes.size(), from + IN_CHUNK_SIZE));
+                String sql = "SELECT ITEM, DESCRICAO, REF_COMERCIAL FROM SCHEMA.ITEM "
+                        + "WHERE ITEM IN (" + String.join(",", Collections.nCopies(chunk.size(), "?")) + ")";
+
+                result.addAll(jdbcTemplate.query(sql, fetch.complete("item.findByCodes", chunk.size(), chunk.toArray()), mapper));
+            }
+            return result;
+        });
+    }
+
+    // Lê a tabela inteira entregando linha a linha para o consumer, sem montar uma lista.
+    // Usado pelo export em streaming, onde cada linha é escrita na resposta assim que chega
+    @Transactional(readOnly = true)
+    public void exportAll(Consumer<ItemDTO> consumer) {
+        String sql = "SELECT ITEM, DESCRICAO, REF_COMERCIAL FROM SCHEMA.ITEM ORDER BY ITEM";
+
+        metrics.stream("item.exportAll", ITEM_ROW.handler(consumer),
+                handler -> jdbcTemplate.query(sql, fetch.complete("item.exportAll", EXPORT_FETCH_SIZE), handler));
     }
 }
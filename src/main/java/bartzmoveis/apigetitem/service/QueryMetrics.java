@@ -0,0 +1,146 @@
+package bartzmoveis.apigetitem.service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+// Mede cada consulta dos services separando o tempo do DB2 (execução + fetch) do tempo
+// gasto montando os DTOs, para saber se uma busca lenta é culpa do banco ou do mapeamento.
+// A serialização do JSON é medida à parte, no conversor do Jackson (ver MetricsConfig)
+@Component
+public class QueryMetrics {
+
+    static final String QUERY_TIMER = "catalog.db.query";
+    static final String MAPPING_TIMER = "catalog.db.mapping";
+    static final String ROWS_SUMMARY = "catalog.db.rows";
+
+    private final MeterRegistry registry;
+
+    public QueryMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    // O RowMapper passado para a execução acumula o próprio tempo; o que sobra do total é DB2
+    public <T> List<T> query(String operation, RowMapper<T> mapper, Function<RowMapper<T>, List<T>> execution) {
+        TimedRowMapper<T> timed = new TimedRowMapper<>(mapper);
+        long start = System.nanoTime();
+        try {
+            List<T> rows = execution.apply(timed);
+            record(operation, "success", System.nanoTime() - start, timed.nanos, rows.size());
+            return rows;
+        } catch (RuntimeException e) {
+            record(operation, "error", System.nanoTime() - start, timed.nanos, timed.rows);
+            throw e;
+        }
+    }
+
+    // Variante para leituras em streaming. Aqui a fase de mapeamento inclui o que o
+    // handler faz com a linha (no export, escrever na resposta)
+    public void stream(String operation, RowCallbackHandler handler, Consumer<RowCallbackHandler> execution) {
+        TimedRowCallbackHandler timed = new TimedRowCallbackHandler(handler);
+        long start = System.nanoTime();
+        try {
+            execution.accept(timed);
+            record(operation, "success", System.nanoTime() - start, timed.nanos, timed.rows);
+        } catch (RuntimeException e) {
+            record(operation, "error", System.nanoTime() - start, timed.nanos, timed.rows);
+            throw e;
+        }
+    }
+
+    // Variante para escritas (UPDATE/INSERT): rows são as linhas afetadas e não há mapeamento
+    public int update(String operation, IntSupplier execution) {
+        long start = System.nanoTime();
+        try {
+            int rows = execution.getAsInt();
+            record(operation, "success", System.nanoTime() - start, 0, rows);
+            return rows;
+        } catch (RuntimeException e) {
+            record(operation, "error", System.nanoTime() - start, 0, 0);
+            throw e;
+        }
+    }
+
+    private void record(String operation, String outcome, long totalNanos, long mappingNanos, int rows) {
+        timer(QUERY_TIMER, "Tempo no DB2 (execução e fetch), sem o mapeamento", operation, outcome)
+                .record(totalNanos - mappingNanos, TimeUnit.NANOSECONDS);
+        timer(MAPPING_TIMER, "Tempo montando os DTOs a partir do ResultSet", operation, outcome)
+                .record(mappingNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder(ROWS_SUMMARY)
+                .description("Linhas devolvidas por consulta")
+                .baseUnit("rows")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(rows);
+    }
+
+    private Timer timer(String name, String description, String operation, String outcome) {
+        return Timer.builder(name)
+                .description(description)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    // Cada consulta roda numa única thread, então os contadores não precisam ser atômicos
+    private static final class TimedRowMapper<T> implements RowMapper<T> {
+
+        private final RowMapper<T> delegate;
+        private long nanos;
+        private int rows;
+
+        TimedRowMapper(RowMapper<T> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public T mapRow(ResultSet rs, int rowNum) throws SQLException {
+            long start = System.nanoTime();
+            try {
+                return delegate.mapRow(rs, rowNum);
+            } finally {
+                nanos += System.nanoTime() - start;
+                rows++;
+            }
+        }
+    }
+
+    private static final class TimedRowCallbackHandler implements RowCallbackHandler {
+
+        private final RowCallbackHandler delegate;
+        private long nanos;
+        private int rows;
+
+        TimedRowCallbackHandler(RowCallbackHandler delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long start = System.nanoTime();
+            try {
+                delegate.processRow(rs);
+            } finally {
+                nanos += System.nanoTime() - start;
+                rows++;
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package bartzmoveis.apigetitem;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import bartzmoveis.apigetitem.cache.CatalogSnapshot;
+import bartzmoveis.apigetitem.cache.SnapshotStore;
+import bartzmoveis.apigetitem.dto.CorDTO;
+import bartzmoveis.apigetitem.dto.ItemDTO;
+
+// Sobe o contexto inteiro com a cópia do catálogo em disco e o DB2 inacessível (nada escuta
+// na porta 1): nenhum bean pode abrir conexão na subida, senão o container entra em loop de restart
+@SpringBootTest(properties = {
+        "DB_PORT=8081",
+        "spring.datasource.url=jdbc:db2://127.0.0.1:1/BARTZ",
+        "spring.datasource.username=bartz",
+        "spring.datasource.password=bartz",
+        "spring.datasource.hikari.connection-timeout=1000",
+        "jwt.secret-key=c25hcHNob3Qtc3RhcnR1cC10ZXN0LXNlY3JldC1rZXktMzItYnl0ZXM=",
+        "jwt.excluded-paths=/auth/login"
+})
+@AutoConfigureMockMvc(addFilters = false)
+class SnapshotStartupTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @DynamicPropertySource
+    static void snapshotFile(DynamicPropertyRegistry registry) throws IOException {
+        Path file = Files.createTempDirectory("catalog-snapshot").resolve("catalog.bin");
+        new SnapshotStore(file.toString()).save(new CatalogSnapshot(
+                List.of(new ItemDTO("10.01", "Armario Branco", "REF1")), List.of(new CorDTO("BR", "Branco")), Instant.now()));
+        registry.add("catalog.snapshot.path", file::toString);
+    }
+
+    @Test
+    void startup_WithSnapshotAndDatabaseDown_ShouldServeTheCatalogFromDisk() throws Exception {
+        mockMvc.perform(get("/itens"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].codeItem").value("10.01"));
+
+        mockMvc.perform(get("/catalogo/status"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalCores").value(1));
+    }
+}
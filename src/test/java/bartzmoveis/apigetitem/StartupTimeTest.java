@@ -0,0 +1,142 @@
+package bartzmoveis.apigetitem;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+// Mede a subida do JAR executável em outro processo: o tempo informado pelo Spring
+// ("Started ... in X seconds"), o tempo até a primeira resposta HTTP e a memória residente
+// nesse momento. Só roda com -Dstartup.jar apontando para o JAR (ver README), porque sobe a
+// aplicação de verdade com as variáveis do ambiente. O DB2 não precisa estar acessível: a primeira
+// resposta vem do actuator, e a carga do catálogo roda em segundo plano
+@EnabledIfSystemProperty(named = "startup.jar", matches = ".+")
+class StartupTimeTest {
+
+    private static final Pattern STARTED = Pattern.compile("Started \\S+ in ([0-9.]+) seconds");
+
+    // Últimas linhas do log da aplicação, mostradas se ela encerrar durante a subida
+    private static final int TAIL_LINES = 40;
+
+    @Test
+    void startup_ShouldServeFirstRequestWithinBudget() throws Exception {
+        Path jar = Path.of(System.getProperty("startup.jar"));
+        int port = Integer.getInteger("startup.port", 18081);
+        Duration budget = Duration.parse(System.getProperty("startup.max-time", "PT30S"));
+
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        // Ex.: -Dstartup.jvm-args="-XX:SharedArchiveFile=app.jsa -Dspring.aot.enabled=true"
+        String jvmArgs = System.getProperty("startup.jvm-args", "").trim();
+        if (!jvmArgs.isEmpty()) {
+            command.addAll(Arrays.asList(jvmArgs.split("\\s+")));
+        }
+        command.addAll(List.of("-jar", jar.toString(), "--server.port=" + port));
+
+        long launched = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        StringBuffer springSeconds = new StringBuffer();
+        Deque<String> tail = new ArrayDeque<>();
+        Thread output = new Thread(() -> readOutput(process, springSeconds, tail), "startup-output");
+        output.setDaemon(true);
+        output.start();
+
+        try {
+            Duration firstResponse = firstResponse(port, launched, budget.plusSeconds(30), process, tail);
+            long rssKb = residentKb(process.pid());
+
+            System.out.printf("[startup] %s%n[startup] Spring: %s s | primeira resposta: %d ms | memória residente: %s%n",
+                    String.join(" ", command), springSeconds.length() > 0 ? springSeconds : "?",
+                    firstResponse.toMillis(), rssKb >= 0 ? rssKb / 1024 + " MB" : "indisponível");
+
+            assertTrue(firstResponse.compareTo(budget) <= 0,
+                    "primeira resposta em " + firstResponse.toMillis() + " ms, acima de " + budget.toMillis() + " ms");
+        } finally {
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    // Qualquer status serve: o que interessa é o Tomcat já estar respondendo
+    private static Duration firstResponse(int port, long launched, Duration timeout, Process process,
+                                          Deque<String> tail) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/actuator/health"))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+
+        long deadline = launched + timeout.toNanos();
+        while (System.nanoTime() - deadline < 0) {
+            if (!process.isAlive()) {
+                Thread.sleep(200);
+                synchronized (tail) {
+                    throw new IllegalStateException("A aplicação encerrou durante a subida (código "
+                            + process.exitValue() + "):\n" + String.join("\n", tail));
+                }
+            }
+            try {
+                client.send(request, HttpResponse.BodyHandlers.discarding());
+                return Duration.ofNanos(System.nanoTime() - launched);
+            } catch (IOException e) {
+                Thread.sleep(50);
+            }
+        }
+        throw new IllegalStateException("Sem resposta em " + timeout);
+    }
+
+    private static void readOutput(Process process, StringBuffer springSeconds, Deque<String> tail) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Matcher matcher = STARTED.matcher(line);
+                if (matcher.find() && springSeconds.length() == 0) {
+                    springSeconds.append(matcher.group(1));
+                }
+                synchronized (tail) {
+                    tail.addLast(line);
+                    if (tail.size() > TAIL_LINES) {
+                        tail.removeFirst();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // O processo foi encerrado
+        }
+    }
+
+    // VmRSS do /proc (Linux); -1 nos demais sistemas
+    private static long residentKb(long pid) throws IOException {
+        Path status = Path.of("/proc", String.valueOf(pid), "status");
+        if (!Files.exists(status)) {
+            return -1;
+        }
+        for (String line : Files.readAllLines(status)) {
+            if (line.startsWith("VmRSS:")) {
+                return Long.parseLong(line.replaceAll("[^0-9]", ""));
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,495 @@
+package bartzmoveis.apigetitem.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import bartzmoveis.apigetitem.dto.CatalogChangeDTO;
+import bartzmoveis.apigetitem.dto.CorDTO;
+import bartzmoveis.apigetitem.dto.ItemCorDTO;
+import bartzmoveis.apigetitem.dto.ItemDTO;
+import bartzmoveis.apigetitem.dto.ItemDetalheDTO;
+import bartzmoveis.apigetitem.service.ChangeLogService;
+import bartzmoveis.apigetitem.service.CorService;
+import bartzmoveis.apigetitem.service.ItemCorService;
+import bartzmoveis.apigetitem.service.ItemService;
+
+@ExtendWith(MockitoExtension.class)
+public class CatalogCacheTest {
+
+    @Mock
+    private ItemService itemService;
+
+    @Mock
+    private CorService corService;
+
+    @Mock
+    private ItemCorService itemCorService;
+
+    @Mock
+    private ChangeLogService changeLog;
+
+    @Mock
+    private SnapshotStore store;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    private MeterRegistry registry = new SimpleMeterRegistry();
+
+    // Sem cache curto, para que cada chamada sem snapshot chegue ao service
+    @Spy
+    private SingleFlight singleFlight = new SingleFlight(Duration.ZERO, 100, new SimpleMeterRegistry());
+
+    @Spy
+    private Db2CircuitBreaker breaker = new Db2CircuitBreaker(5, Duration.ofSeconds(30), System::nanoTime, new SimpleMeterRegistry());
+
+    @Spy
+    private StaleResults staleResults = new StaleResults(100, Duration.ofHours(1), new SimpleMeterRegistry());
+
+    // Instância única, como no padrão (catalog.coherence.enabled=false)
+    @Spy
+    private CatalogCoherence coherence = CatalogCoherence.standalone(new SimpleMeterRegistry());
+
+    @Spy
+    private CatalogEvents events = new CatalogEvents(new ObjectMapper(), 100, 1000, Duration.ofMinutes(30), 100, Duration.ofSeconds(10), 1, new SimpleMeterRegistry());
+
+    @InjectMocks
+    private CatalogCache catalog;
+
+    private ItemDTO mockItem;
+    private CorDTO mockCor;
+
+    @BeforeEach
+    void setUp() {
+        mockItem = new ItemDTO("10.01", "Armario Branco", "REF123");
+        mockCor = new CorDTO("BR", "Branco");
+    }
+
+    @Test
+    void itens_BeforeRefresh_ShouldFallBackToDatabase() {
+        when(itemService.listAll()).thenReturn(Arrays.asList(mockItem));
+
+        List<ItemDTO> result = catalog.itens();
+
+        assertNull(catalog.current());
+        assertEquals(1, result.size());
+        verify(itemService, times(1)).listAll();
+    }
+
+    @Test
+    void itens_AfterRefresh_ShouldServeFromMemory() {
+        when(itemService.listAll()).thenReturn(Arrays.asList(mockItem));
+        when(corService.listAll()).thenReturn(Arrays.asList(mockCor));
+
+        catalog.refresh();
+        catalog.itens();
+        catalog.itens();
+        List<CorDTO> cores = catalog.cores();
+
+        assertEquals("BR", cores.get(0).getSiglaCor());
+        verify(itemService, times(1)).listAll();
+        verify(corService, times(1)).listAll();
+    }
+
+    @Test
+    void lookups_ShouldCountHitsAndMisses() {
+        when(itemService.listAll()).thenReturn(Arrays.asList(mockItem));
+        when(corService.listAll()).thenReturn(Arrays.asList(mockCor));
+
+        catalog.itens();
+        catalog.refresh();
+        catalog.itens();
+        catalog.findItensByCode("10");
+
+        assertEquals(1.0, registry.get("catalog.lookups").tags("table", "itens", "result", "miss").counter().count());
+        assertEquals(2.0, registry.get("catalog.lookups").tags("table", "itens", "result", "hit").counter().count());
+        assertEquals(1.0, registry.get("catalog.rows").tag("table", "itens").gauge().value());
+    }
+
+    @Test
+    void refresh_ShouldSwapSnapshot() {
+        when(itemService.listAll()).thenReturn(Arrays.asList(mockItem));
+        when(corService.listAll()).thenReturn(Arrays.asList(mockCor));
+
+        CatalogSnapshot first = catalog.refresh();
+        assertSame(first, catalog.current());
+
+        CatalogSnapshot second = catalog.refresh();
+        assertSame(second, catalog.current());
+        assertEquals(1, second.itens().size());
+    }
+
+    @Test
+    void scheduledRefresh_WhenDatabaseFails_ShouldKeepPreviousSnapshot() {
+        when(itemService.listAll()).thenReturn(Arrays.asList(mockItem));
+        when(corService.listAll()).thenReturn(Arrays.asList(mockCor));
+        CatalogSnapshot loaded = catalog.refresh();
+
+        when(itemService.listAll()).thenThrow(new RuntimeException("DB2 fora"));
+        catalog.scheduledRefresh();
+
+        assertSame(loaded, catalog.current());
+        verify(corService, times(1)).listAll();
+    }
+
+    @Test
+    void findItensByDescription_AfterRefresh_ShouldUseIndex() {
+        when(itemService.listAll()).thenReturn(Arrays.asList(mockItem, new ItemDTO("20.01", "Mesa Preta", "REF9")));
+        when(corService.listAll()).thenReturn(Arrays.asList(mockCor));
+        catalog.refresh();
+
+        List<ItemDTO> result = catalog.findItensByDescription("branco");
+
+        assertEquals(1, result.size());
+        assertEquals("10.01", result.get(0).getCodeItem());
+        verify(itemService, never()).findByDescription("branco");
+    }
+
+    @Test
+    void findCoresBySigla_BeforeRefresh_ShouldFallBackToDatabase() {
+        when(corService.findBySiglaCor("BR")).thenReturn(Arrays.asList(mockCor));
+
+        List<CorDTO> result = catalog.findCoresBySigla("BR");
+
+        assertEquals(1, result.size());
+        verify(corService, times(1)).findBySiglaCor("BR");
+    }
+
+    @Test
+    void pageItens_AfterRefresh_ShouldWalkKeysInOrder() {
+        when(itemService.listAll()).thenReturn(Arrays.asList(
+                new ItemDTO("30.01", "Mesa", "R3"), mockItem, new ItemDTO("20.01", "Cadeira", "R2")));
+        when(corService.listAll()).thenReturn(Arrays.asList(mockCor));
+        catalog.refresh();
+
+        CatalogPage<ItemDTO> first = catalog.pageItens(null, 2);
+        assertEquals(Arrays.asList("10.01", "20.01"), first.rows().stream().map(ItemDTO::getCodeItem).toList());
+        assertEquals("20.01", first.nextKey());
+
+        CatalogPage<ItemDTO> second = catalog.pageItens(first.nextKey(), 2);
+        assertEquals("30.01", second.rows().get(0).getCodeItem());
+        assertNull(second.nextKey());
+    }
+
+    @Test
+    void pageItens_BeforeRefresh_ShouldAskDatabaseForOneExtraRow() {
+        when(itemService.listPage("05.00", 2)).thenReturn(Arrays.asList(mockItem, new ItemDTO("20.01", "Cadeira", "R2")));
+
+        CatalogPage<ItemDTO> page = catalog.pageItens("05.00", 1);
+
+        assertEquals(1, page.rows().size());
+        assertEquals("10.01", page.nextKey());
+    }
+
+    @Test
+    void refresh_WithSameRows_ShouldKeepVersion() {
+        when(itemService.listAll()).thenReturn(Arrays.asList(mockItem));
+        when(corService.listAll()).thenReturn(Arrays.asList(mockCor));
+        CatalogVersion first = catalog.refresh().itensVersion();
+
+        CatalogVersion second = catalog.refresh().itensVersion();
+
+        assertSame(first, second);
+    }
+
+    @Test
+    void refresh_WithChangedItem_ShouldChangeOnlyItemVersion() {
+        when(itemService.listAll()).thenReturn(Arrays.asList(mockItem));
+        when(corService.listAll()).thenReturn(Arrays.asList(mockCor));
+        CatalogSnapshot first = catalog.refresh();
+
+        when(itemService.listAll()).thenReturn(Arrays.asList(new ItemDTO("10.01", "Armario Preto", "REF123")));
+        CatalogSnapshot second = catalog.refresh();
+
+        assertNotEquals(first.itensVersion().etag(), second.itensVersion().etag());
+        assertSame(first.coresVersion(), second.coresVersion());
+    }
+
+    @Test
+    void refresh_ShouldPreEncodeFullListsAsJsonAndGzip() throws Exception {
+        when(itemService.listAll()).thenReturn(Arrays.asList(mockItem));
+        when(corService.listAll()).thenReturn(Arrays.asList(mockCor));
+        // A serialização roda em segundo plano depois da troca do snapshot
+        EncodedBody body = catalog.refresh().encodedItens().join();
+        String json = new String(body.json(), StandardCharsets.UTF_8);
+        String unzipped = new String(new GZIPInputStream(new ByteArrayInputStream(body.gzip())).readAllBytes(), StandardCharsets.UTF_8);
+
+        assertEquals(1, body.rows());
+        assertEquals("[{\"codeItem\":\"10.01\",\"description\":\"Armario Branco\",\"refComercial\":\"REF123\"}]", json);
+        assertEquals(json, unzipped);
+        assertSame(body, catalog.refresh().itensBody());
+    }
+
+    @Test
+    void findItensByCodes_AfterRefresh_ShouldKeepRequestOrderAndSkipMissing() {
+        ItemDTO mesa = new ItemDTO("20.01", "Mesa", "R2");
+        when(itemService.listAll()).thenReturn(Arrays.asList(mockItem, mesa));
+        when(corService.listAll()).thenReturn(Arrays.asList(mockCor));
+        catalog.refresh();
+
+        Map<String, ItemDTO> result = catalog.findItensByCodes(Arrays.asList("20.01", "99.99", "10.01"));
+
+        assertEquals(Arrays.asList("20.01", "10.01"), new ArrayList<>(result.keySet()));
+        verify(itemService, never()).findByCodes(anyList());
+    }
+
+    @Test
+    void findCoresBySiglas_BeforeRefresh_ShouldQueryDistinctKeysOnce() {
+        when(corService.findBySiglas(Arrays.asList("BR", "PT"))).thenReturn(Arrays.asList(mockCor));
+
+        Map<String, CorDTO> result = catalog.findCoresBySiglas(Arrays.asList("BR", "PT", "BR"));
+
+        assertEquals(1, result.size());
+        assertEquals("Branco", result.get("BR").getDescricao());
+    }
+
+    @Test
+    void applyChanges_ShouldUpsertAndDeleteOnlyTheChangedKeys() {
+        when(changeLog.enabled()).thenReturn(true);
+        when(changeLog.latestSequence()).thenReturn(5L);
+        when(itemService.listAll()).thenReturn(Arrays.asList(mockItem, new ItemDTO("20.01", "Mesa Preta", "REF9")));
+        when(corService.listAll()).thenReturn(Arrays.asList(mockCor));
+        CatalogSnapshot loaded = catalog.refresh();
+
+        when(changeLog.changesSince(eq(5L), anyInt())).thenReturn(List.of(
+                new CatalogChangeDTO(6, "ITEM", "10.01"),
+                new CatalogChangeDTO(7, "ITEM", "20.01"),
+                new CatalogChangeDTO(8, "ITEM", "30.01")));
+        // 20.01 não volta do DB2, então foi excluído
+        when(itemService.findByCodes(List.of("10.01", "20.01", "30.01"))).thenReturn(List.of(
+                new ItemDTO("10.01", "Armario Cinza", "REF123"),
+                new ItemDTO("30.01", "Cadeira", "REF30")));
+
+        CatalogSnapshot updated = catalog.applyChanges();
+
+        assertEquals(List.of("10.01", "30.01"), updated.itens().stream().map(ItemDTO::getCodeItem).toList());
+        assertEquals("Armario Cinza", updated.itemByCode("10.01").getDescription());
+        assertEquals(1, updated.findItensByDescription("cadeira").size());
+        assertEquals(8, updated.changeSequence());
+        assertNotEquals(loaded.itensVersion(), updated.itensVersion());
+        // COR não mudou: versão e JSON pré-serializado são os mesmos
+        assertSame(loaded.coresVersion(), updated.coresVersion());
+        assertSame(loaded.encodedCores(), updated.encodedCores());
+        verify(itemService, times(1)).listAll();
+        verify(corService, never()).findBySiglas(anyList());
+
+        // A versão recalculada só com as chaves alteradas é a mesma de uma carga completa
+        when(itemService.listAll()).thenReturn(List.of(new ItemDTO("30.01", "Cadeira", "REF30"),
+                new ItemDTO("10.01", "Armario Cinza", "REF123")));
+        assertSame(updated.itensVersion(), catalog.refresh().itensVersion());
+    }
+
+    @Test
+    void applyChanges_WithABacklogOfSeveralBatches_ShouldBuildOneSnapshot() {
+        when(changeLog.enabled()).thenReturn(true);
+        when(changeLog.latestSequence()).thenReturn(0L);
+        when(itemService.listAll()).thenReturn(Arrays.asList(mockItem));
+        when(corService.listAll()).thenReturn(Arrays.asList(mockCor));
+        catalog.refresh();
+        String itensAfterLoad = events.itens().lastEventId();
+
+        List<CatalogChangeDTO> full = new ArrayList<>();
+        for (int i = 1; i <= CatalogCache.CHANGE_BATCH; i++) {
+            full.add(new CatalogChangeDTO(i, "ITEM", "10.01"));
+        }
+        when(changeLog.changesSince(eq(0L), anyInt())).thenReturn(full);
+        when(changeLog.changesSince(eq((long) CatalogCache.CHANGE_BATCH), anyInt()))
+                .thenReturn(List.of(new CatalogChangeDTO(CatalogCache.CHANGE_BATCH + 1, "COR", "PT")));
+        when(itemService.findByCodes(List.of("10.01"))).thenReturn(List.of(new ItemDTO("10.01", "Armario Cinza", "REF123")));
+        when(corService.findBySiglas(List.of("PT"))).thenReturn(List.of(new CorDTO("PT", "Preto")));
+
+        CatalogSnapshot updated = catalog.applyChanges();
+
+        // Os dois blocos viram uma só ida ao DB2 por tabela e um só snapshot (um evento no feed)
+        assertEquals(CatalogCache.CHANGE_BATCH + 1, updated.changeSequence());
+        assertEquals("Armario Cinza", updated.itemByCode("10.01").getDescription());
+        assertEquals(2, updated.cores().size());
+        assertEquals(1, events.itens().since(itensAfterLoad).size());
+        verify(itemService, times(1)).findByCodes(anyList());
+    }
+
+    @Test
+    void applyChanges_ShouldPublishOnlyTheChangedRowsToTheFeed() throws Exception {
+        when(changeLog.enabled()).thenReturn(true);
+        when(changeLog.latestSequence()).thenReturn(5L);
+        when(itemService.listAll()).thenReturn(Arrays.asList(mockItem, new ItemDTO("20.01", "Mesa Preta", "REF9")));
+        when(corService.listAll()).thenReturn(Arrays.asList(mockCor));
+        CatalogSnapshot loaded = catalog.refresh();
+        String itensAfterLoad = events.itens().lastEventId();
+        String coresAfterLoad = events.cores().lastEventId();
+
+        when(changeLog.changesSince(eq(5L), anyInt())).thenReturn(List.of(
+                new CatalogChangeDTO(6, "ITEM", "10.01"),
+                new CatalogChangeDTO(7, "ITEM", "20.01")));
+        when(itemService.findByCodes(List.of("10.01", "20.01"))).thenReturn(List.of(new ItemDTO("10.01", "Armario Cinza", "REF123")));
+        CatalogSnapshot updated = catalog.applyChanges();
+
+        List<CatalogEventLog.Event> missed = events.itens().since(itensAfterLoad);
+        assertEquals(1, missed.size());
+        assertEquals("change", missed.get(0).name());
+        JsonNode delta = objectMapper.readTree(missed.get(0).data());
+        assertEquals(loaded.itensVersion().etag(), delta.get("previous").asText());
+        assertEquals(updated.itensVersion().etag(), delta.get("version").asText());
+        assertEquals(1, delta.get("upserts").size());
+        assertEquals("Armario Cinza", delta.get("upserts").get(0).get("description").asText());
+        assertEquals("20.01", delta.get("deletes").get(0).asText());
+        // COR não mudou: o feed de cores fica parado
+        assertEquals(List.of(), events.cores().since(coresAfterLoad));
+    }
+
+    @Test
+    void findItensDetalhe_AfterRefresh_ShouldJoinColorsAndFollowColorChanges() {
+        when(changeLog.enabled()).thenReturn(true);
+        when(itemCorService.enabled()).thenReturn(true);
+        when(itemService.listAll()).thenReturn(Arrays.asList(mockItem));
+        when(corService.listAll()).thenReturn(Arrays.asList(mockCor, new CorDTO("PT", "Preto")));
+        // XX não existe em SCHEMA.COR e fica de fora, como num INNER JOIN
+        when(itemCorService.listAll()).thenReturn(List.of(
+                new ItemCorDTO("10.01", "PT"), new ItemCorDTO("10.01", "XX"), new ItemCorDTO("10.01", "BR")));
+        catalog.refresh();
+
+        ItemDetalheDTO detalhe = catalog.findItensDetalhe(List.of("10.01")).get("10.01");
+        assertEquals("Armario Branco", detalhe.getDescription());
+        assertEquals(List.of(mockCor, new CorDTO("PT", "Preto")), detalhe.getCores());
+
+        // Só a cor mudou: o detalhe já sai com a descrição nova, sem reler os vínculos
+        when(changeLog.changesSince(anyLong(), anyInt())).thenReturn(List.of(new CatalogChangeDTO(1, "COR", "BR")));
+        when(corService.findBySiglas(List.of("BR"))).thenReturn(List.of(new CorDTO("BR", "Branco Neve")));
+        catalog.applyChanges();
+
+        assertEquals("Branco Neve", catalog.findItensDetalhe(List.of("10.01")).get("10.01").getCores().get(0).getDescricao());
+        verify(itemCorService, never()).findByCodes(anyList());
+    }
+
+    @Test
+    void findItensDetalhe_BeforeRefresh_ShouldJoinRowsReadFromDatabase() {
+        when(itemCorService.enabled()).thenReturn(true);
+        when(itemService.findByCodes(List.of("10.01", "99.99"))).thenReturn(List.of(mockItem));
+        when(itemCorService.findByCodes(List.of("10.01"))).thenReturn(List.of(new ItemCorDTO("10.01", "BR")));
+        when(corService.findBySiglas(List.of("BR"))).thenReturn(List.of(mockCor));
+
+        Map<String, ItemDetalheDTO> result = catalog.findItensDetalhe(List.of("10.01", "99.99"));
+
+        assertEquals(1, result.size());
+        assertEquals(List.of(mockCor), result.get("10.01").getCores());
+    }
+
+    @Test
+    void pollChanges_WhenDisabled_ShouldNotTouchTheChangeTable() {
+        catalog.pollChanges();
+
+        verify(changeLog, never()).changesSince(anyLong(), anyInt());
+    }
+
+    @Test
+    void restore_WithStoredSnapshot_ShouldServeWithoutDatabase() {
+        Instant loadedAt = Instant.parse("2026-01-10T08:00:00Z");
+        when(store.load()).thenReturn(new SnapshotStore.Stored(List.of(mockItem), List.of(mockCor), List.of(), loadedAt, 3));
+
+        catalog.restore();
+
+        assertEquals(List.of(mockItem), catalog.itens());
+        assertEquals(loadedAt, catalog.itensVersion().modifiedAt());
+        assertEquals(3, catalog.current().changeSequence());
+        verify(itemService, never()).listAll();
+    }
+
+    @Test
+    void restore_ShouldBuildIndexesAndBodiesAfterPublishing() {
+        when(store.load()).thenReturn(new SnapshotStore.Stored(List.of(mockItem), List.of(mockCor), List.of(), Instant.now(), 0));
+
+        catalog.restore();
+
+        // Índices e corpos são preparados em segundo plano; uma busca antes disso monta o índice na hora
+        assertEquals(List.of(mockItem), catalog.findItensByDescription("branco"));
+        assertEquals(1, catalog.current().encodedItens().join().rows());
+        assertEquals(1, catalog.current().encodedCores().join().rows());
+        verify(itemService, never()).findByDescription("branco");
+    }
+
+    @Test
+    void persist_ShouldWriteOnlyWhenContentChanged() throws Exception {
+        when(store.enabled()).thenReturn(true);
+        when(itemService.listAll()).thenReturn(Arrays.asList(mockItem));
+        when(corService.listAll()).thenReturn(Arrays.asList(mockCor));
+
+        catalog.refresh();
+        catalog.persist();
+        // Mesmo conteúdo: o refresh reaproveita as versões e o arquivo não é regravado
+        catalog.refresh();
+        catalog.persist();
+
+        verify(store, times(1)).save(any(CatalogSnapshot.class));
+    }
+
+    @Test
+    void search_WhenDatabaseFails_ShouldServeLastGoodResultMarkedStale() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest(), response));
+        try {
+            when(itemService.findByCode("10"))
+                    .thenReturn(List.of(mockItem))
+                    .thenThrow(new QueryTimeoutException("DB2 não respondeu"));
+
+            catalog.findItensByCode("10");
+            assertNull(response.getHeader("Warning"));
+
+            List<ItemDTO> result = catalog.findItensByCode("10");
+
+            assertEquals(List.of(mockItem), result);
+            assertEquals(StaleResponses.WARNING, response.getHeader("Warning"));
+            assertEquals("0", response.getHeader("Age"));
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    @Test
+    void search_WhenDatabaseFailsWithoutPreviousResult_ShouldPropagate() {
+        when(itemService.findByCode("10")).thenThrow(new QueryTimeoutException("DB2 não respondeu"));
+
+        assertThrows(QueryTimeoutException.class, () -> catalog.findItensByCode("10"));
+    }
+}
@@ -0,0 +1,114 @@
+package bartzmoveis.apigetitem.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import bartzmoveis.apigetitem.dto.CatalogChangeDTO;
+import bartzmoveis.apigetitem.dto.CorDTO;
+import bartzmoveis.apigetitem.dto.ItemDTO;
+import bartzmoveis.apigetitem.service.ChangeLogService;
+import bartzmoveis.apigetitem.service.CorService;
+import bartzmoveis.apigetitem.service.ItemCorService;
+import bartzmoveis.apigetitem.service.ItemService;
+
+// Duas réplicas na mesma JVM ligadas por um LocalCatalogBus: a líder consulta o DB2
+// e a seguidora só acompanha os avisos
+public class CatalogCoherenceTest {
+
+    private final LocalCatalogBus bus = new LocalCatalogBus();
+    private final Replica leader = new Replica(true);
+    private final Replica follower = new Replica(false);
+
+    @Test
+    void leaderRefresh_ShouldBringFollowerToSameVersion() {
+        leader.tables(List.of(new ItemDTO("10.01", "Armario", "A")));
+        follower.tables(List.of(new ItemDTO("10.01", "Armario", "A")));
+
+        follower.cache.scheduledRefresh();
+        verify(follower.itemService, never()).listAll();
+
+        leader.cache.refresh();
+
+        assertEquals(leader.cache.itensVersion().etag(), follower.cache.itensVersion().etag());
+        verify(follower.itemService, times(1)).listAll();
+        assertEquals(1.0, follower.registry.get("catalog.coherence.messages").tag("direction", "received").counter().count());
+    }
+
+    @Test
+    void leaderChanges_ShouldBeAppliedAsDeltaByFollower() {
+        List<ItemDTO> before = List.of(new ItemDTO("10.01", "Armario", "A"));
+        leader.tables(before);
+        follower.tables(before);
+        leader.cache.refresh();
+
+        List<CatalogChangeDTO> changes = List.of(new CatalogChangeDTO(1, "ITEM", "10.01"));
+        List<ItemDTO> changed = List.of(new ItemDTO("10.01", "Armario Branco", "A"));
+        for (Replica replica : List.of(leader, follower)) {
+            when(replica.changeLog.changesSince(eq(0L), anyInt())).thenReturn(changes);
+            when(replica.itemService.findByCodes(List.of("10.01"))).thenReturn(changed);
+        }
+
+        leader.cache.pollChanges();
+
+        assertEquals("Armario Branco", follower.cache.itens().get(0).getDescription());
+        assertEquals(leader.cache.itensVersion().etag(), follower.cache.itensVersion().etag());
+        // Uma carga completa na subida, o resto veio pelo delta
+        verify(follower.itemService, times(1)).listAll();
+        verify(follower.itemService, times(1)).findByCodes(List.of("10.01"));
+    }
+
+    @Test
+    void follower_WhenAlreadyOnAnnouncedVersion_ShouldNotTouchDatabase() {
+        leader.tables(List.of(new ItemDTO("10.01", "Armario", "A")));
+        follower.tables(List.of(new ItemDTO("10.01", "Armario", "A")));
+        leader.cache.refresh();
+
+        leader.cache.heartbeat();
+        leader.cache.heartbeat();
+
+        verify(follower.itemService, times(1)).listAll();
+        assertTrue(follower.coherence.follows());
+        assertFalse(leader.coherence.follows());
+    }
+
+    private final class Replica {
+
+        final ItemService itemService = mock(ItemService.class);
+        final CorService corService = mock(CorService.class);
+        final ChangeLogService changeLog = mock(ChangeLogService.class);
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        final CatalogCoherence coherence;
+        final CatalogCache cache;
+
+        Replica(boolean isLeader) {
+            coherence = new CatalogCoherence(bus, true, isLeader, Duration.ofMinutes(2), registry);
+            cache = new CatalogCache(itemService, corService, mock(ItemCorService.class), changeLog, mock(SnapshotStore.class), new ObjectMapper(),
+                    new SingleFlight(Duration.ZERO, 100, registry),
+                    new Db2CircuitBreaker(5, Duration.ofSeconds(30), System::nanoTime, registry),
+                    new StaleResults(100, Duration.ofHours(1), registry), coherence, mock(CatalogEvents.class), registry);
+        }
+
+        void tables(List<ItemDTO> itens) {
+            when(changeLog.enabled()).thenReturn(true);
+            when(itemService.listAll()).thenReturn(itens);
+            when(corService.listAll()).thenReturn(List.of(new CorDTO("BR", "Branco")));
+        }
+    }
+}
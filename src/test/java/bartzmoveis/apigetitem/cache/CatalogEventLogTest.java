@@ -0,0 +1,114 @@
+package bartzmoveis.apigetitem.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public class CatalogEventLogTest {
+
+    private final ExecutorService sender = Executors.newFixedThreadPool(2);
+    private final AtomicLong clock = new AtomicLong(1);
+
+    @AfterEach
+    void tearDown() {
+        sender.shutdownNow();
+    }
+
+    @Test
+    void append_WithASlowClient_ShouldStillReachTheOthers() throws Exception {
+        CatalogEventLog log = log(100, 10_000);
+        CountDownLatch release = new CountDownLatch(1);
+        StubEmitter slow = new StubEmitter(release, null);
+        CountDownLatch delivered = new CountDownLatch(2);
+        StubEmitter fast = new StubEmitter(null, delivered);
+        log.subscribe(slow, null);
+        log.subscribe(fast, null);
+
+        log.append(CatalogEventLog.CHANGE, "{}", "{}");
+        log.append(CatalogEventLog.CHANGE, "{}", "{}");
+
+        // O lento está preso na primeira escrita e o rápido recebe os dois eventos mesmo assim
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        release.countDown();
+    }
+
+    @Test
+    void append_WhenTheClientQueueOverflows_ShouldDropTheClient() throws Exception {
+        CatalogEventLog log = log(2, 10_000);
+        CountDownLatch release = new CountDownLatch(1);
+        StubEmitter slow = new StubEmitter(release, null);
+        log.subscribe(slow, null);
+
+        log.append(CatalogEventLog.CHANGE, "{}", "{}");
+        slow.started.await(5, TimeUnit.SECONDS);
+        log.append(CatalogEventLog.CHANGE, "{}", "{}");
+        log.append(CatalogEventLog.CHANGE, "{}", "{}");
+        assertEquals(1, log.subscribers());
+
+        log.append(CatalogEventLog.CHANGE, "{}", "{}");
+
+        assertEquals(0, log.subscribers());
+        release.countDown();
+    }
+
+    @Test
+    void heartbeat_WhenASendIsStuckPastTheTimeout_ShouldDropTheClient() throws Exception {
+        CatalogEventLog log = log(100, 10);
+        CountDownLatch release = new CountDownLatch(1);
+        StubEmitter slow = new StubEmitter(release, null);
+        log.subscribe(slow, null);
+        log.append(CatalogEventLog.CHANGE, "{}", "{}");
+        slow.started.await(5, TimeUnit.SECONDS);
+
+        log.heartbeat();
+        assertEquals(1, log.subscribers());
+
+        clock.addAndGet(11);
+        log.heartbeat();
+
+        assertEquals(0, log.subscribers());
+        release.countDown();
+    }
+
+    private CatalogEventLog log(int clientQueue, long sendTimeoutNanos) {
+        return new CatalogEventLog("b", 100, 60_000, clientQueue, sendTimeoutNanos, sender, clock::get);
+    }
+
+    // Emitter que não escreve em conexão nenhuma; com um latch de release, fica preso na primeira escrita
+    private static final class StubEmitter extends SseEmitter {
+
+        private final CountDownLatch release;
+        private final CountDownLatch delivered;
+        private final CountDownLatch started = new CountDownLatch(1);
+
+        StubEmitter(CountDownLatch release, CountDownLatch delivered) {
+            this.release = release;
+            this.delivered = delivered;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            started.countDown();
+            if (release != null) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (delivered != null) {
+                delivered.countDown();
+            }
+        }
+    }
+}
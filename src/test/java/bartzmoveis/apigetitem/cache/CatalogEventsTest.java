@@ -0,0 +1,105 @@
+package bartzmoveis.apigetitem.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import bartzmoveis.apigetitem.dto.CorDTO;
+import bartzmoveis.apigetitem.dto.ItemDTO;
+
+public class CatalogEventsTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private CatalogEvents events;
+
+    @AfterEach
+    void tearDown() {
+        events.close();
+    }
+
+    @Test
+    void publish_AfterFullReload_ShouldSendOnlyTheDifferingRows() throws Exception {
+        events = new CatalogEvents(mapper, 100, 1000, Duration.ofMinutes(30), 100, Duration.ofSeconds(10), 1, new SimpleMeterRegistry());
+        List<CorDTO> cores = List.of(new CorDTO("BR", "Branco"));
+        CatalogSnapshot before = snapshot(List.of(
+                new ItemDTO("10.01", "Armario Branco", "REF1"),
+                new ItemDTO("20.01", "Mesa Preta", "REF2"),
+                new ItemDTO("30.01", "Cadeira", "REF3")), cores);
+        CatalogSnapshot after = snapshot(List.of(
+                new ItemDTO("40.01", "Banco", "REF4"),
+                new ItemDTO("10.01", "Armario Cinza", "REF1"),
+                new ItemDTO("30.01", "Cadeira", "REF3")), cores);
+        events.publish(null, before, null, null);
+        String itensId = events.itens().lastEventId();
+        String coresId = events.cores().lastEventId();
+
+        events.publish(before, after, null, null);
+
+        List<CatalogEventLog.Event> missed = events.itens().since(itensId);
+        assertEquals(1, missed.size());
+        assertEquals("change", missed.get(0).name());
+        JsonNode delta = mapper.readTree(missed.get(0).data());
+        assertEquals(before.itensVersion().etag(), delta.get("previous").asText());
+        assertEquals(after.itensVersion().etag(), delta.get("version").asText());
+        assertEquals(List.of("10.01", "40.01"), delta.get("upserts").findValuesAsText("codeItem"));
+        assertEquals("20.01", delta.get("deletes").get(0).asText());
+        assertEquals(List.of(), events.cores().since(coresId));
+    }
+
+    @Test
+    void publish_WhenDeltaExceedsMaxRows_ShouldSendOnlyTheNewVersion() throws Exception {
+        events = new CatalogEvents(mapper, 100, 1, Duration.ofMinutes(30), 100, Duration.ofSeconds(10), 1, new SimpleMeterRegistry());
+        CatalogSnapshot before = snapshot(List.of(new ItemDTO("10.01", "Armario", "REF1")), List.of());
+        CatalogSnapshot after = snapshot(List.of(new ItemDTO("20.01", "Mesa", "REF2"), new ItemDTO("30.01", "Cadeira", "REF3")), List.of());
+        events.publish(null, before, null, null);
+        String itensId = events.itens().lastEventId();
+
+        events.publish(before, after, null, null);
+
+        List<CatalogEventLog.Event> missed = events.itens().since(itensId);
+        assertEquals("version", missed.get(0).name());
+        assertEquals(after.itensVersion().etag(), mapper.readTree(missed.get(0).data()).get("version").asText());
+    }
+
+    @Test
+    void since_ShouldResumeOnlyWhileTheIdIsStillInTheLog() {
+        events = new CatalogEvents(mapper, 2, 1000, Duration.ofMinutes(30), 100, Duration.ofSeconds(10), 1, new SimpleMeterRegistry());
+        CatalogSnapshot first = snapshot(List.of(new ItemDTO("10.01", "A", "R")), List.of());
+        CatalogSnapshot second = snapshot(List.of(new ItemDTO("10.01", "B", "R")), List.of());
+        CatalogSnapshot third = snapshot(List.of(new ItemDTO("10.01", "C", "R")), List.of());
+        CatalogSnapshot fourth = snapshot(List.of(new ItemDTO("10.01", "D", "R")), List.of());
+        events.publish(null, first, null, null);
+        String oldest = events.itens().lastEventId();
+        events.publish(first, second, null, null);
+        String middle = events.itens().lastEventId();
+        events.publish(second, third, null, null);
+        events.publish(third, fourth, null, null);
+        String boot = oldest.substring(0, oldest.lastIndexOf('-'));
+
+        assertEquals(2, events.itens().since(middle).size());
+        assertEquals(List.of(), events.itens().since(events.itens().lastEventId()));
+        // Fila de 2: o evento seguinte ao oldest já foi descartado, o cliente perdeu um delta
+        assertNull(events.itens().since(oldest));
+        // Id de outro boot (restart ou outra réplica), do futuro ou malformado
+        assertNull(events.itens().since("x-1"));
+        assertNull(events.itens().since(boot + "-99"));
+        assertNull(events.itens().since(boot + "-abc"));
+        assertNull(events.itens().since(null));
+    }
+
+    private static CatalogSnapshot snapshot(List<ItemDTO> itens, List<CorDTO> cores) {
+        return new CatalogSnapshot(itens, cores, Instant.now());
+    }
+}
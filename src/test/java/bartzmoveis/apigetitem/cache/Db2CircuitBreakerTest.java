@@ -0,0 +1,81 @@
+package bartzmoveis.apigetitem.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.BadSqlGrammarException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import bartzmoveis.apigetitem.exceptions.Db2UnavailableException;
+
+public class Db2CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final Db2CircuitBreaker breaker = new Db2CircuitBreaker(2, Duration.ofSeconds(30), now::get, registry);
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void call_AfterConsecutiveFailures_ShouldOpenAndRejectWithoutQuerying() {
+        fail();
+        fail();
+
+        Db2UnavailableException rejected = assertThrows(Db2UnavailableException.class, () -> breaker.call(this::succeed));
+
+        assertEquals(Db2CircuitBreaker.State.OPEN, breaker.state());
+        assertEquals(2, calls.get());
+        assertEquals(30, rejected.getRetryAfterSeconds());
+        assertEquals(1.0, registry.get("catalog.db.breaker.rejected").counter().count());
+        assertEquals(2.0, registry.get("catalog.db.breaker.state").gauge().value());
+    }
+
+    @Test
+    void call_AfterOpenFor_ShouldProbeAndCloseOnSuccess() {
+        fail();
+        fail();
+        now.addAndGet(Duration.ofSeconds(30).toNanos());
+
+        assertEquals("ok", breaker.call(this::succeed));
+
+        assertEquals(Db2CircuitBreaker.State.CLOSED, breaker.state());
+        assertEquals(0, breaker.consecutiveFailures());
+    }
+
+    @Test
+    void call_WhenProbeFails_ShouldOpenAgainAndIgnoreSqlErrors() {
+        fail();
+        fail();
+        now.addAndGet(Duration.ofSeconds(30).toNanos());
+        fail();
+
+        assertEquals(Db2CircuitBreaker.State.OPEN, breaker.state());
+
+        // Erro no SQL: o DB2 respondeu, então não conta como falha do banco
+        now.addAndGet(Duration.ofSeconds(30).toNanos());
+        assertThrows(BadSqlGrammarException.class, () -> breaker.call(() -> {
+            throw new BadSqlGrammarException("item.findByCode", "SELECT", new java.sql.SQLException("SQL0204N"));
+        }));
+        assertEquals(Db2CircuitBreaker.State.HALF_OPEN, breaker.state());
+        assertEquals("ok", breaker.call(this::succeed));
+        assertEquals(Db2CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    private void fail() {
+        assertThrows(QueryTimeoutException.class, () -> breaker.call(() -> {
+            calls.incrementAndGet();
+            throw new QueryTimeoutException("DB2 não respondeu");
+        }));
+    }
+
+    private String succeed() {
+        calls.incrementAndGet();
+        return "ok";
+    }
+}
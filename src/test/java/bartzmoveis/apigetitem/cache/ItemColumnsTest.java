@@ -0,0 +1,56 @@
+package bartzmoveis.apigetitem.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import bartzmoveis.apigetitem.dto.ItemDTO;
+
+public class ItemColumnsTest {
+
+    private final ItemColumns columns = ItemColumns.of(List.of(
+            new ItemDTO("10.01", "CÔMODA BRANCA", "CMD-B"),
+            new ItemDTO("10.02", null, "CMD-P"),
+            new ItemDTO("20.01", "ARMÁRIO", null)));
+
+    @Test
+    void get_ShouldMaterializeEqualButIndependentDtos() {
+        assertEquals(new ItemDTO("10.01", "CÔMODA BRANCA", "CMD-B"), columns.get(0));
+        assertEquals(new ItemDTO("10.02", null, "CMD-P"), columns.get(1));
+        assertEquals(new ItemDTO("20.01", "ARMÁRIO", null), columns.get(2));
+        assertNotSame(columns.get(0), columns.get(0));
+    }
+
+    @Test
+    void rowOf_ShouldFindEveryCode() {
+        List<ItemDTO> rows = IntStream.range(0, 1000)
+                .mapToObj(i -> new ItemDTO(String.format("%05d", i), "ITEM " + i, null))
+                .toList();
+        ItemColumns large = ItemColumns.of(rows);
+
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals(i, large.rowOf(rows.get(i).getCodeItem()));
+        }
+        assertEquals(-1, large.rowOf("99999"));
+        assertEquals(-1, large.rowOf(null));
+    }
+
+    @Test
+    void withChanges_ShouldReplaceDeleteAndInsertInCodeOrder() {
+        ItemColumns changed = columns.withChanges(Set.of("10.01", "10.02", "15.00"), List.of(
+                new ItemDTO("15.00", "MESA", "MS"),
+                new ItemDTO("10.01", "CÔMODA CINZA", "CMD-C")));
+
+        assertEquals(List.of(
+                new ItemDTO("10.01", "CÔMODA CINZA", "CMD-C"),
+                new ItemDTO("15.00", "MESA", "MS"),
+                new ItemDTO("20.01", "ARMÁRIO", null)), changed);
+        assertEquals(1, changed.rowOf("15.00"));
+        assertEquals(-1, changed.rowOf("10.02"));
+    }
+}
@@ -0,0 +1,111 @@
+package bartzmoveis.apigetitem.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import bartzmoveis.apigetitem.dto.ItemDTO;
+
+public class ItemSearchIndexTest {
+
+    private ItemSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = ItemSearchIndex.build(Arrays.asList(
+                new ItemDTO("10.01", "CÔMODA BRANCA 4 GAVETAS", "CMD-4G"),
+                new ItemDTO("10.02", "CÔMODA PRETA", "CMD-P"),
+                new ItemDTO("20.01", "ARMÁRIO BRANCO", "ARM-B"),
+                new ItemDTO("30.01", "MESA DE JANTAR BRANCA", null),
+                new ItemDTO("40.01", null, "CADEIRA")));
+    }
+
+    @Test
+    void search_ShouldIgnoreAccentsAndCase() {
+        assertEquals(List.of("10.02", "10.01"), codes(index.search("comoda", 10)));
+        assertEquals(List.of("20.01"), codes(index.search("armario", 10)));
+    }
+
+    @Test
+    void search_ShouldRankItemsMatchingAllTermsFirst() {
+        List<String> result = codes(index.search("comoda branca", 10));
+
+        assertEquals("10.01", result.get(0));
+        assertTrue(result.containsAll(List.of("10.02", "30.01")));
+    }
+
+    @Test
+    void search_ShouldTolerateTypos() {
+        assertEquals(List.of("10.02", "10.01"), codes(index.search("comdoa", 10)));
+        assertEquals(List.of("30.01"), codes(index.search("mesa jnatar", 10)));
+    }
+
+    @Test
+    void search_ShouldTolerateMissingAndExtraLetters() {
+        assertEquals(List.of("10.01"), codes(index.search("gavets", 10)));
+        assertEquals(List.of("20.01"), codes(index.search("armarioo", 10)));
+        assertEquals(List.of(), codes(index.search("gvts", 10)));
+    }
+
+    @Test
+    void search_ShouldTreatLastTermAsPrefixAndMatchRefComercial() {
+        assertEquals(List.of("30.01"), codes(index.search("mesa jan", 10)));
+        assertEquals(List.of("40.01"), codes(index.search("cadeira", 10)));
+    }
+
+    @Test
+    void search_ShouldKeepOnlyTopK() {
+        List<ItemDTO> rows = IntStream.range(0, 500)
+                .mapToObj(i -> new ItemDTO(String.format("%05d", i), "MESA " + "X".repeat(i % 7), "R" + i))
+                .toList();
+        ItemSearchIndex large = ItemSearchIndex.build(rows);
+
+        List<ItemDTO> top = large.search("mesa", 3);
+
+        // Empate na pontuação: descrição mais curta e depois menor código
+        assertEquals(List.of("00000", "00007", "00014"), codes(top));
+    }
+
+    @Test
+    void withChanges_ShouldRankLikeAnIndexBuiltFromScratch() {
+        List<ItemDTO> base = List.of(
+                new ItemDTO("10.01", "CÔMODA BRANCA 4 GAVETAS", "CMD-4G"),
+                new ItemDTO("10.02", "CÔMODA PRETA", "CMD-P"),
+                new ItemDTO("20.01", "ARMÁRIO BRANCO", "ARM-B"),
+                new ItemDTO("30.01", "MESA DE JANTAR BRANCA", null));
+        // Sai a 10.02, o armário muda de descrição e entram a 15.01 e a 40.01
+        List<ItemDTO> current = List.of(
+                new ItemDTO("10.01", "CÔMODA BRANCA 4 GAVETAS", "CMD-4G"),
+                new ItemDTO("15.01", "CÔMODA CINZA", "CMD-C"),
+                new ItemDTO("20.01", "ARMÁRIO PRETO", "ARM-P"),
+                new ItemDTO("30.01", "MESA DE JANTAR BRANCA", null),
+                new ItemDTO("40.01", "MESA BRANCA", "MS-B"));
+        Set<String> keys = Set.of("10.02", "15.01", "20.01", "40.01");
+        RowDelta delta = RowDelta.of(null, keys, base.size(), row -> base.get(row).getCodeItem(),
+                current.size(), row -> current.get(row).getCodeItem());
+
+        ItemSearchIndex layered = ItemSearchIndex.build(base).withChanges(delta, current);
+        ItemSearchIndex rebuilt = ItemSearchIndex.build(current);
+
+        for (String query : List.of("comoda", "branca", "mesa branca", "preto", "armaro", "cmd")) {
+            assertEquals(codes(rebuilt.search(query, 10)), codes(layered.search(query, 10)), query);
+        }
+    }
+
+    @Test
+    void distance_ShouldCountTranspositionAsOneEdit() {
+        assertEquals(1, ItemSearchIndex.distance("COMDOA", "COMODA", 2));
+        assertEquals(3, ItemSearchIndex.distance("MESA", "CADEIRA", 2));
+    }
+
+    private static List<String> codes(List<ItemDTO> items) {
+        return items.stream().map(ItemDTO::getCodeItem).toList();
+    }
+}
@@ -0,0 +1,97 @@
+package bartzmoveis.apigetitem.cache;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class NgramIndexTest {
+
+    private List<String> column;
+    private NgramIndex index;
+
+    @BeforeEach
+    void setUp() {
+        column = Arrays.asList("Armario Branco", "Comoda Preta", null, "Mesa Branca", "armario pequeno");
+        index = NgramIndex.build(column);
+    }
+
+    @Test
+    void search_ShouldMatchSubstringIgnoringCase() {
+        assertArrayEquals(new int[] {0, 4}, index.search("ARMARIO"));
+        assertArrayEquals(new int[] {0, 3}, index.search("branc"));
+    }
+
+    @Test
+    void search_ShouldRespectOrderOfCharacters() {
+        // "ARIO BRA" tem trigramas presentes em outras linhas, mas só a primeira contém o texto inteiro
+        assertArrayEquals(new int[] {0}, index.search("ario bra"));
+        assertArrayEquals(new int[0], index.search("BRANCO ARMARIO"));
+    }
+
+    @Test
+    void search_WithShortQuery_ShouldScanAllRows() {
+        assertArrayEquals(new int[] {0, 3}, index.search("br"));
+        assertArrayEquals(new int[] {0, 1, 3, 4}, index.search(""));
+    }
+
+    @Test
+    void search_ShouldMatchLikeOnEveryRow() {
+        for (String query : Arrays.asList("a", "MES", "ranc", "xyz", "O P", "Comoda Preta")) {
+            int[] expected = IntStream.range(0, column.size())
+                    .filter(row -> column.get(row) != null && column.get(row).toUpperCase().contains(query.toUpperCase()))
+                    .toArray();
+            assertArrayEquals(expected, index.search(query), query);
+        }
+        assertEquals(5, index.size());
+    }
+
+    @Test
+    void withChanges_ShouldMatchAnIndexBuiltFromScratch() {
+        List<String[]> base = List.of(row("10", "Armario Branco"), row("20", "Comoda Preta"), row("30", null),
+                row("40", "Mesa Branca"), row("50", "armario pequeno"));
+        NgramIndex layered = NgramIndex.build(base.stream().map(r -> r[1]).toList());
+
+        // Sai o 20, o 40 muda de descrição e entram o 15 e o 60
+        List<String[]> first = apply(base, Set.of("15", "20", "40", "60"),
+                List.of(row("40", "Mesa Preta"), row("15", "Cadeira Branca"), row("60", "Comoda Branca")));
+        RowDelta delta = delta(null, Set.of("15", "20", "40", "60"), base, first);
+        layered = layered.withChanges(delta, r -> first.get(r)[1]);
+        assertSameSearches(first, layered);
+
+        // Segunda rodada sobre a mesma base: a camada acumula as chaves das duas
+        List<String[]> second = apply(first, Set.of("10", "15"), List.<String[]>of(row("10", "Armario Preto")));
+        layered = layered.withChanges(delta(delta, Set.of("10", "15"), base, second), r -> second.get(r)[1]);
+        assertSameSearches(second, layered);
+    }
+
+    private static void assertSameSearches(List<String[]> rows, NgramIndex layered) {
+        NgramIndex rebuilt = NgramIndex.build(rows.stream().map(r -> r[1]).toList());
+        assertEquals(rebuilt.size(), layered.size());
+        for (String query : Arrays.asList("", "a", "br", "BRANC", "preta", "armario", "comoda", "xyz")) {
+            assertArrayEquals(rebuilt.search(query), layered.search(query), query);
+        }
+    }
+
+    private static RowDelta delta(RowDelta previous, Set<String> keys, List<String[]> base, List<String[]> current) {
+        return RowDelta.of(previous, keys, base.size(), r -> base.get(r)[0], current.size(), r -> current.get(r)[0]);
+    }
+
+    private static List<String[]> apply(List<String[]> rows, Set<String> keys, List<String[]> currentRows) {
+        return Stream.concat(rows.stream().filter(r -> !keys.contains(r[0])), currentRows.stream())
+                .sorted(Comparator.comparing(r -> r[0]))
+                .toList();
+    }
+
+    private static String[] row(String key, String value) {
+        return new String[] {key, value};
+    }
+}
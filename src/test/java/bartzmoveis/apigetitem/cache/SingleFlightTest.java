@@ -0,0 +1,100 @@
+package bartzmoveis.apigetitem.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class SingleFlightTest {
+
+    @Test
+    void execute_WithConcurrentIdenticalKeys_ShouldRunLoaderOnce() throws Exception {
+        SingleFlight flight = new SingleFlight(Duration.ZERO, 100, new SimpleMeterRegistry());
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            Future<List<String>> leader = pool.submit(() -> flight.execute("BRANCO", () -> {
+                calls.incrementAndGet();
+                started.countDown();
+                await(release);
+                return List.of("10.01");
+            }));
+            started.await(5, TimeUnit.SECONDS);
+
+            Future<List<String>> follower = pool.submit(() -> flight.execute("BRANCO", () -> {
+                calls.incrementAndGet();
+                return List.of("outro");
+            }));
+            // Dá tempo para o segundo pedido encontrar a consulta em andamento
+            Thread.sleep(100);
+            release.countDown();
+
+            assertEquals(List.of("10.01"), leader.get(5, TimeUnit.SECONDS));
+            assertSame(leader.get(), follower.get(5, TimeUnit.SECONDS));
+            assertEquals(1, calls.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void execute_WithinTtl_ShouldReuseLastResult() {
+        SingleFlight flight = new SingleFlight(Duration.ofMinutes(1), 100, new SimpleMeterRegistry());
+        AtomicInteger calls = new AtomicInteger();
+
+        flight.execute("BRANCO", calls::incrementAndGet);
+        Integer second = flight.execute("BRANCO", calls::incrementAndGet);
+
+        assertEquals(1, second);
+        assertEquals(2, flight.<Integer>execute("PRETO", calls::incrementAndGet));
+    }
+
+    @Test
+    void execute_WhenLoaderFails_ShouldNotCacheTheError() {
+        SingleFlight flight = new SingleFlight(Duration.ofMinutes(1), 100, new SimpleMeterRegistry());
+
+        assertThrows(IllegalStateException.class, () -> flight.execute("BRANCO", () -> {
+            throw new IllegalStateException("DB2 fora");
+        }));
+
+        assertEquals("ok", flight.execute("BRANCO", () -> "ok"));
+    }
+
+    @Test
+    void execute_WhenRecentResultsAreFull_ShouldDropOnlyTheOldest() {
+        SingleFlight flight = new SingleFlight(Duration.ofMinutes(1), 2, new SimpleMeterRegistry());
+        AtomicInteger calls = new AtomicInteger();
+        flight.execute("BRANCO", calls::incrementAndGet);
+        flight.execute("PRETO", calls::incrementAndGet);
+
+        flight.execute("CINZA", calls::incrementAndGet);
+
+        // Só o BRANCO, o mais antigo, saiu: o PRETO continua vindo do cache curto
+        assertEquals(2, flight.size());
+        assertEquals(2, flight.<Integer>execute("PRETO", calls::incrementAndGet));
+        assertEquals(4, flight.<Integer>execute("BRANCO", calls::incrementAndGet));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
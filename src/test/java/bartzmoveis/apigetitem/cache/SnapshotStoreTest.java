@@ -0,0 +1,70 @@
+package bartzmoveis.apigetitem.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import bartzmoveis.apigetitem.dto.CorDTO;
+import bartzmoveis.apigetitem.dto.ItemCorDTO;
+import bartzmoveis.apigetitem.dto.ItemDTO;
+
+public class SnapshotStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void saveAndLoad_ShouldRoundTripRowsIncludingNullsAndAccents() throws Exception {
+        Path file = dir.resolve("data/catalog.bin");
+        SnapshotStore store = new SnapshotStore(file.toString());
+        List<ItemDTO> itens = Arrays.asList(new ItemDTO("10.01", "CÔMODA BRANCA", null), new ItemDTO("20.01", "Mesa", "REF9"));
+        List<CorDTO> cores = List.of(new CorDTO("BR", "Branco"));
+        Instant loadedAt = Instant.parse("2026-01-10T08:00:00Z");
+
+        store.save(new CatalogSnapshot(itens, cores, loadedAt));
+        SnapshotStore.Stored stored = store.load();
+
+        assertEquals(itens, stored.itens());
+        assertEquals(cores, stored.cores());
+        assertEquals(loadedAt, stored.loadedAt());
+        assertEquals(0, stored.changeSequence());
+    }
+
+    @Test
+    void saveAndLoad_ShouldRoundTripItemColorLinks() throws Exception {
+        SnapshotStore store = new SnapshotStore(dir.resolve("catalog.bin").toString());
+        List<ItemCorDTO> links = List.of(new ItemCorDTO("10.01", "BR"), new ItemCorDTO("10.01", "PT"));
+
+        store.save(new CatalogSnapshot(List.of(new ItemDTO("10.01", "Mesa", "REF1")), List.of(new CorDTO("BR", "Branco")),
+                ItemCores.of(links), Instant.now(), 0, null, null));
+
+        assertEquals(links, store.load().itemCores());
+    }
+
+    @Test
+    void load_WithCorruptedFile_ShouldReturnNull() throws Exception {
+        Path file = dir.resolve("catalog.bin");
+        SnapshotStore store = new SnapshotStore(file.toString());
+        store.save(new CatalogSnapshot(List.of(new ItemDTO("10.01", "Mesa", "REF1")), List.of(), Instant.now()));
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[30] ^= 0x01;
+        Files.write(file, bytes);
+
+        assertNull(store.load());
+    }
+
+    @Test
+    void load_WithoutPathOrFile_ShouldReturnNull() {
+        assertNull(new SnapshotStore("").load());
+        assertNull(new SnapshotStore(dir.resolve("missing.bin").toString()).load());
+    }
+}
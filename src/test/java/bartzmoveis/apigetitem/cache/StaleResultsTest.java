@@ -0,0 +1,45 @@
+package bartzmoveis.apigetitem.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class StaleResultsTest {
+
+    @Test
+    void remember_WhenFull_ShouldDropOnlyTheOldestEntry() {
+        StaleResults results = new StaleResults(2, Duration.ofHours(1), new SimpleMeterRegistry());
+        results.remember("a", 1);
+        results.remember("b", 2);
+        // Regravar "a" o coloca no fim da fila; o mais antigo passa a ser "b"
+        results.remember("a", 3);
+
+        results.remember("c", 4);
+
+        assertEquals(2, results.size());
+        assertNull(results.lookup("b"));
+        assertEquals(3, results.lookup("a").value());
+        assertNotNull(results.lookup("c"));
+    }
+
+    @Test
+    void remember_WhenFull_ShouldDropExpiredEntriesFirst() throws Exception {
+        StaleResults results = new StaleResults(3, Duration.ofMillis(20), new SimpleMeterRegistry());
+        results.remember("a", 1);
+        results.remember("b", 2);
+        results.remember("c", 3);
+        Thread.sleep(50);
+
+        results.remember("d", 4);
+
+        // Os três já tinham passado de max-age e saíram juntos
+        assertEquals(1, results.size());
+        assertNotNull(results.lookup("d"));
+    }
+}
@@ -0,0 +1,93 @@
+package bartzmoveis.apigetitem.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import bartzmoveis.apigetitem.exceptions.Db2BusyException;
+
+@ExtendWith(MockitoExtension.class)
+public class BoundedDataSourceTest {
+
+    @Mock
+    private DataSource target;
+
+    @Mock
+    private Connection connection;
+
+    private BoundedDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new BoundedDataSource(target, 1, Duration.ofMillis(50), Duration.ofSeconds(2));
+    }
+
+    @Test
+    void getConnection_WhenAllPermitsInUse_ShouldFailFastWithRetryAfter() throws Exception {
+        when(target.getConnection()).thenReturn(connection);
+        dataSource.getConnection();
+
+        Db2BusyException ex = assertThrows(Db2BusyException.class, () -> dataSource.getConnection());
+
+        assertEquals(2, ex.getRetryAfterSeconds());
+    }
+
+    @Test
+    void close_ShouldReleasePermitOnlyOnce() throws Exception {
+        when(target.getConnection()).thenReturn(connection);
+
+        Connection first = dataSource.getConnection();
+        first.close();
+        first.close();
+
+        assertEquals(1, dataSource.availablePermits());
+        verify(connection, times(2)).close();
+    }
+
+    @Test
+    void getConnection_WhenPoolFails_ShouldGiveBackPermit() throws Exception {
+        when(target.getConnection()).thenThrow(new SQLException("DB2 fora"));
+
+        assertThrows(SQLException.class, () -> dataSource.getConnection());
+
+        assertEquals(1, dataSource.availablePermits());
+    }
+
+    @Test
+    void postProcessor_WithoutPoolSize_ShouldUseTheHikariDefault() {
+        HikariDataSource hikari = new HikariDataSource();
+
+        Object bean = DbConcurrencyConfig.boundedDataSourcePostProcessor(new MockEnvironment())
+                .postProcessAfterInitialization(hikari, "dataSource");
+
+        assertEquals(10, ((BoundedDataSource) bean).availablePermits());
+    }
+
+    @Test
+    void postProcessor_WithPoolSize_ShouldUseIt() {
+        HikariDataSource hikari = new HikariDataSource();
+        hikari.setMaximumPoolSize(4);
+
+        Object bean = DbConcurrencyConfig.boundedDataSourcePostProcessor(new MockEnvironment())
+                .postProcessAfterInitialization(hikari, "dataSource");
+
+        assertEquals(4, ((BoundedDataSource) bean).availablePermits());
+    }
+}
@@ -0,0 +1,150 @@
+package bartzmoveis.apigetitem.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.Filter;
+
+public class JwtValidationCacheTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T12:00:00Z");
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicInteger verifications = new AtomicInteger();
+
+    // Faz o papel do JwtAuthFilter: "verifica" o token e autentica quando ele não é "invalido"
+    private final Filter jwtAuthFilter = (request, response, chain) -> {
+        verifications.incrementAndGet();
+        String token = ((MockHttpServletRequest) request).getHeader("Authorization").substring(7);
+        if (token.contains("invalido")) {
+            ((MockHttpServletResponse) response).setStatus(401);
+            return;
+        }
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("erp-loja", null, List.of(new SimpleGrantedAuthority("ROLE_ERP"))));
+        chain.doFilter(request, response);
+    };
+
+    private JwtValidationCache filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new JwtValidationCache(jwtAuthFilter, new ObjectMapper(), registry, 100, Duration.ofMinutes(5),
+                Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void doFilter_WithRepeatedToken_ShouldVerifyOnlyOnce() throws Exception {
+        String token = token(NOW.plusSeconds(60));
+
+        perform(token);
+        SecurityContextHolder.clearContext();
+        Authentication cached = perform(token);
+
+        assertEquals(1, verifications.get());
+        assertNotNull(cached);
+        assertEquals("erp-loja", cached.getName());
+        assertEquals(1.0, registry.get("catalog.jwt.cache").tag("result", "hit").counter().count());
+        assertEquals(1.0, registry.get("catalog.jwt.cache").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void doFilter_OnCacheHits_ShouldGiveEachRequestItsOwnAuthentication() throws Exception {
+        String token = token(NOW.plusSeconds(60));
+        perform(token);
+
+        SecurityContextHolder.clearContext();
+        Authentication first = perform(token);
+        SecurityContextHolder.clearContext();
+        Authentication second = perform(token);
+
+        assertNotSame(first, second);
+        assertEquals("erp-loja", second.getName());
+        assertEquals(List.of(new SimpleGrantedAuthority("ROLE_ERP")), List.copyOf(second.getAuthorities()));
+        assertEquals(1, verifications.get());
+    }
+
+    @Test
+    void doFilter_WithExpiredToken_ShouldNotCache() throws Exception {
+        String token = token(NOW.minusSeconds(1));
+
+        perform(token);
+        perform(token);
+
+        assertEquals(2, verifications.get());
+        assertEquals(0, filter.size());
+    }
+
+    @Test
+    void doFilter_WithRejectedToken_ShouldNotCache() throws Exception {
+        perform("invalido");
+        perform("invalido");
+
+        assertEquals(2, verifications.get());
+        assertEquals(0, filter.size());
+    }
+
+    @Test
+    void doFilter_WhenCacheIsFull_ShouldDropOnlyTheOldestToken() throws Exception {
+        filter = new JwtValidationCache(jwtAuthFilter, new ObjectMapper(), registry, 2, Duration.ofMinutes(5),
+                Clock.fixed(NOW, ZoneOffset.UTC));
+        String first = token(NOW.plusSeconds(60));
+        String second = token(NOW.plusSeconds(61));
+        perform(first);
+        perform(second);
+
+        perform(token(NOW.plusSeconds(62)));
+
+        // Só o primeiro saiu: o segundo continua sem passar de novo pela verificação
+        assertEquals(2, filter.size());
+        perform(second);
+        assertEquals(3, verifications.get());
+        perform(first);
+        assertEquals(4, verifications.get());
+    }
+
+    private Authentication perform(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/itens/search");
+        request.addHeader("Authorization", "Bearer " + token);
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        return chain.getRequest() != null ? SecurityContextHolder.getContext().getAuthentication() : null;
+    }
+
+    private static String token(Instant exp) {
+        Base64.Encoder base64 = Base64.getUrlEncoder().withoutPadding();
+        String header = base64.encodeToString("{\"alg\":\"HS256\"}".getBytes(StandardCharsets.UTF_8));
+        String payload = base64.encodeToString(("{\"sub\":\"erp-loja\",\"exp\":" + exp.getEpochSecond() + "}")
+                .getBytes(StandardCharsets.UTF_8));
+        return header + "." + payload + ".assinatura";
+    }
+}
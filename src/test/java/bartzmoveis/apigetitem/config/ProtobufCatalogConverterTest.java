@@ -0,0 +1,56 @@
+package bartzmoveis.apigetitem.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
+
+import bartzmoveis.apigetitem.dto.CorDTO;
+import bartzmoveis.apigetitem.dto.PageDTO;
+
+public class ProtobufCatalogConverterTest {
+
+    // A numeração dos campos é o contrato com quem já decodifica as respostas: mudar quebra os consumidores
+    @Test
+    void schema_ShouldKeepFieldNumbers() {
+        String schema = ProtobufCatalogConverter.schema();
+
+        assertTrue(schema.contains("repeated ItemDTO itens = 1;"), schema);
+        assertTrue(schema.contains("optional string nextCursor = 2;"), schema);
+        assertTrue(schema.contains("optional string codeItem = 1;"), schema);
+        assertTrue(schema.contains("optional string description = 2;"), schema);
+        assertTrue(schema.contains("optional string refComercial = 3;"), schema);
+        assertTrue(schema.contains("repeated CorDTO cores = 1;"), schema);
+        assertTrue(schema.contains("optional string siglaCor = 1;"), schema);
+        assertTrue(schema.contains("optional string descricao = 2;"), schema);
+    }
+
+    @Test
+    void encode_WithPage_ShouldCarryCursor() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        ProtobufCatalogConverter.encode(new PageDTO<>(List.of(new CorDTO("BR", "Branco")), "QlI"), out);
+
+        JsonNode message = new ProtobufMapper().readerFor(JsonNode.class)
+                .with(ProtobufSchemaLoader.std.parseNative(ProtobufCatalogConverter.schema()).forType("CorList"))
+                .readValue(out.toByteArray());
+        assertEquals("Branco", message.get("cores").get(0).get("descricao").asText());
+        assertEquals("QlI", message.get("nextCursor").asText());
+    }
+
+    @Test
+    void encode_WithProjectedRows_ShouldRefuse() {
+        assertThrows(HttpMessageNotWritableException.class,
+                () -> ProtobufCatalogConverter.encode(List.of(Map.of("codeItem", "10.01")), new ByteArrayOutputStream()));
+    }
+}
@@ -0,0 +1,101 @@
+package bartzmoveis.apigetitem.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class RateLimitFilterTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        // 2 fichas, repõe 1 por segundo
+        TokenBuckets buckets = new TokenBuckets(2, 1.0, 100, now::get);
+        filter = new RateLimitFilter(List.of(new RateLimitFilter.Rule("search", List.of("/itens/search"), buckets)),
+                new ObjectMapper(), registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void doFilter_WhenBucketIsEmpty_ShouldReturn429WithRetryAfter() throws Exception {
+        assertEquals(200, perform("/itens/search", "10.0.0.1").getStatus());
+        MockHttpServletResponse second = perform("/itens/search", "10.0.0.1");
+        assertEquals(200, second.getStatus());
+        assertEquals("2", second.getHeader("RateLimit-Limit"));
+        assertEquals("0", second.getHeader("RateLimit-Remaining"));
+
+        MockHttpServletResponse third = perform("/itens/search", "10.0.0.1");
+
+        assertEquals(429, third.getStatus());
+        assertEquals("1", third.getHeader("Retry-After"));
+        assertEquals(1.0, registry.get("catalog.rate_limit.throttled")
+                .tag("rule", "search").tag("client", "ip").counter().count());
+    }
+
+    @Test
+    void doFilter_AfterRefill_ShouldAllowAgain() throws Exception {
+        perform("/itens/search", "10.0.0.1");
+        perform("/itens/search", "10.0.0.1");
+        assertEquals(429, perform("/itens/search", "10.0.0.1").getStatus());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+        assertEquals(200, perform("/itens/search", "10.0.0.1").getStatus());
+    }
+
+    @Test
+    void doFilter_ShouldKeySeparateBucketsByJwtSubject() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("erp-loja", null, List.of()));
+        perform("/itens/search", "10.0.0.1");
+        perform("/itens/search", "10.0.0.1");
+        assertEquals(429, perform("/itens/search", "10.0.0.1").getStatus());
+        assertEquals(1.0, registry.get("catalog.rate_limit.throttled")
+                .tag("rule", "search").tag("client", "sub:erp-loja").counter().count());
+
+        // Outro sistema atrás do mesmo IP tem o próprio balde
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("erp-site", null, List.of()));
+        assertEquals(200, perform("/itens/search", "10.0.0.1").getStatus());
+    }
+
+    @Test
+    void doFilter_OnUnlimitedPath_ShouldNotAddHeaders() throws Exception {
+        MockHttpServletResponse response = perform("/itens", "10.0.0.1");
+
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader("RateLimit-Limit"));
+    }
+
+    private MockHttpServletResponse perform(String path, String ip) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setRemoteAddr(ip);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
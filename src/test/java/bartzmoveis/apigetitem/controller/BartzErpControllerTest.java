@@ -1,25 +1,64 @@
 package bartzmoveis.apigetitem.controller;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
+
+import bartzmoveis.apigetitem.cache.CatalogCache;
+import bartzmoveis.apigetitem.cache.CatalogEventLog;
+import bartzmoveis.apigetitem.cache.CatalogEvents;
+import bartzmoveis.apigetitem.cache.CatalogPage;
+import bartzmoveis.apigetitem.cache.CatalogVersion;
+import bartzmoveis.apigetitem.cache.EncodedBody;
+import bartzmoveis.apigetitem.config.ProtobufCatalogConverter;
 import bartzmoveis.apigetitem.service.ItemService;
+import bartzmoveis.apigetitem.dto.CorDTO;
 import bartzmoveis.apigetitem.dto.ItemDTO;
+import bartzmoveis.apigetitem.dto.ItemDetalheDTO;
+import bartzmoveis.apigetitem.exceptions.Db2BusyException;
 
 @WebMvcTest(ItemController.class)
 @AutoConfigureMockMvc(addFilters = false) // Desabilita o Spring Security
@@ -31,6 +70,12 @@ public class BartzErpControllerTest {
     @MockitoBean
     private ItemService service;
 
+    @MockitoBean
+    private CatalogCache catalog;
+
+    @MockitoBean
+    private CatalogEvents events;
+
     private ItemDTO mockItem;
 
     @BeforeEach
@@ -40,7 +85,7 @@ public class BartzErpControllerTest {
 
     @Test
     void listAll_ShouldReturnItems() throws Exception {
-        when(service.listAll()).thenReturn(Arrays.asList(mockItem));
+        when(catalog.itens()).thenReturn(Arrays.asList(mockItem));
 
         mockMvc.perform(get("/itens"))
                 .andExpect(status().isOk())
@@ -50,7 +95,7 @@ public class BartzErpControllerTest {
 
     @Test
     void listAll_WhenEmpty_ShouldReturn204() throws Exception {
-        when(service.listAll()).thenReturn(Collections.emptyList());
+        when(catalog.itens()).thenReturn(Collections.emptyList());
 
         mockMvc.perform(get("/itens"))
                 .andExpect(status().isNoContent());
@@ -58,7 +103,7 @@ public class BartzErpControllerTest {
 
     @Test
     void searchByCode_WhenExists_ShouldReturn200() throws Exception {
-        when(service.findByCode("10.01")).thenReturn(Arrays.asList(mockItem));
+        when(catalog.findItensByCode("10.01")).thenReturn(Arrays.asList(mockItem));
 
         mockMvc.perform(get("/itens/search").param("codigo", "10.01"))
                 .andExpect(status().isOk())
@@ -68,7 +113,7 @@ public class BartzErpControllerTest {
 
     @Test
     void searchByCode_WhenNotExists_ShouldReturn204() throws Exception {
-        when(service.findByCode("99.99")).thenReturn(Collections.emptyList());
+        when(catalog.findItensByCode("99.99")).thenReturn(Collections.emptyList());
 
         mockMvc.perform(get("/itens/search").param("codigo", "99.99"))
                 .andExpect(status().isNoContent());
@@ -76,11 +121,303 @@ public class BartzErpControllerTest {
 
     @Test
     void searchByDescription_WhenExists_ShouldReturn200() throws Exception {
-        when(service.findByDescription("Armario")).thenReturn(Arrays.asList(mockItem));
+        when(catalog.findItensByDescription("Armario")).thenReturn(Arrays.asList(mockItem));
 
         mockMvc.perform(get("/itens/search").param("descricao", "Armario"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].description", is("Armario")));
     }
+
+    @Test
+    void searchByRefComercial_WhenExists_ShouldReturn200() throws Exception {
+        when(catalog.findItensByRefComercial("REF1")).thenReturn(Arrays.asList(mockItem));
+
+        mockMvc.perform(get("/itens/search").param("referencia", "REF1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].refComercial", is("REF123")));
+    }
+
+    @Test
+    void search_WithFreeText_ShouldReturnRankedTopResults() throws Exception {
+        when(catalog.searchItens("comoda branca", 20)).thenReturn(Arrays.asList(mockItem));
+
+        mockMvc.perform(get("/itens/search").param("q", "comoda branca"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].codeItem", is("10.01")));
+    }
+
+    @Test
+    void search_WithLimitAboveMax_ShouldReturn400() throws Exception {
+        mockMvc.perform(get("/itens/search").param("q", "mesa").param("limit", "5000"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void listAll_WithLimit_ShouldReturnPageWithCursor() throws Exception {
+        when(catalog.pageItens(null, 1)).thenReturn(new CatalogPage<>(Arrays.asList(mockItem), "10.01"));
+
+        mockMvc.perform(get("/itens").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].codeItem", is("10.01")))
+                .andExpect(jsonPath("$.nextCursor", is("MTAuMDE")));
+    }
+
+    @Test
+    void listAll_WithCursor_ShouldContinueAfterDecodedKey() throws Exception {
+        when(catalog.pageItens("10.01", 100)).thenReturn(new CatalogPage<>(Collections.emptyList(), null));
+
+        mockMvc.perform(get("/itens").param("cursor", "MTAuMDE"))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void searchByCode_WithFields_ShouldReturnOnlySelectedFields() throws Exception {
+        when(catalog.findItensByCode("10")).thenReturn(Arrays.asList(mockItem));
+
+        mockMvc.perform(get("/itens/search").param("codigo", "10").param("fields", "codeItem"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].codeItem", is("10.01")))
+                .andExpect(jsonPath("$[0].description").doesNotExist());
+    }
+
+    @Test
+    void listAll_WithInvalidLimit_ShouldReturn400() throws Exception {
+        mockMvc.perform(get("/itens").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void listAll_WithUnknownField_ShouldReturn400() throws Exception {
+        when(catalog.itens()).thenReturn(Arrays.asList(mockItem));
+
+        mockMvc.perform(get("/itens").param("fields", "preco"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void export_AsNdjson_ShouldStreamOneLinePerItem() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<ItemDTO> consumer = invocation.getArgument(0);
+            consumer.accept(mockItem);
+            consumer.accept(new ItemDTO("20.01", "Mesa", null));
+            return null;
+        }).when(service).exportAll(any(Consumer.class));
+
+        MvcResult result = mockMvc.perform(get("/itens/export").param("format", "ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string(
+                        "{\"codeItem\":\"10.01\",\"description\":\"Armario\",\"refComercial\":\"REF123\"}\n"
+                        + "{\"codeItem\":\"20.01\",\"description\":\"Mesa\",\"refComercial\":null}\n"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void export_AsCsv_ShouldQuoteFieldsWithCommas() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<ItemDTO> consumer = invocation.getArgument(0);
+            consumer.accept(new ItemDTO("10.01", "Armario, 2 portas", "REF123"));
+            return null;
+        }).when(service).exportAll(any(Consumer.class));
+
+        MvcResult result = mockMvc.perform(get("/itens/export").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string("ITEM,DESCRICAO,REF_COMERCIAL\r\n10.01,\"Armario, 2 portas\",REF123\r\n"));
+    }
+
+    @Test
+    void export_WithUnknownFormat_ShouldReturn400() throws Exception {
+        mockMvc.perform(get("/itens/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void listAll_ShouldExposeCatalogVersionAsEtag() throws Exception {
+        when(catalog.itensVersion()).thenReturn(new CatalogVersion("abc123", Instant.parse("2024-05-01T10:00:00Z")));
+        when(catalog.itens()).thenReturn(Arrays.asList(mockItem));
+
+        mockMvc.perform(get("/itens"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"abc123\""))
+                .andExpect(header().string("Last-Modified", "Wed, 01 May 2024 10:00:00 GMT"))
+                .andExpect(header().string("Cache-Control", "no-cache"));
+    }
+
+    @Test
+    void listAll_WithMatchingIfNoneMatch_ShouldReturn304WithoutReadingCatalog() throws Exception {
+        when(catalog.itensVersion()).thenReturn(new CatalogVersion("abc123", Instant.parse("2024-05-01T10:00:00Z")));
+
+        mockMvc.perform(get("/itens").header("If-None-Match", "\"abc123\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(catalog, never()).itens();
+    }
+
+    @Test
+    void listAll_WithEncodedBody_ShouldWriteBytesAsIs() throws Exception {
+        byte[] json = "[{\"codeItem\":\"10.01\"}]".getBytes(StandardCharsets.UTF_8);
+        when(catalog.itensBody()).thenReturn(new EncodedBody(1, json, new byte[] {31, -117}));
+
+        mockMvc.perform(get("/itens"))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues("Vary", hasItem("Accept-Encoding")))
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(jsonPath("$[0].codeItem", is("10.01")));
+
+        verify(catalog, never()).itens();
+    }
+
+    @Test
+    void listAll_WithAcceptCbor_ShouldEncodeListWithItsOwnEtag() throws Exception {
+        when(catalog.itensVersion()).thenReturn(new CatalogVersion("abc123", Instant.parse("2024-05-01T10:00:00Z")));
+        when(catalog.itens()).thenReturn(Arrays.asList(mockItem));
+
+        MvcResult result = mockMvc.perform(get("/itens").accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andExpect(header().string("ETag", "\"abc123-cbor\""))
+                .andExpect(header().stringValues("Vary", hasItem("Accept")))
+                .andReturn();
+
+        JsonNode rows = new CBORMapper().readTree(result.getResponse().getContentAsByteArray());
+        assertEquals("10.01", rows.get(0).get("codeItem").asText());
+        // Os bytes pré-serializados do snapshot são JSON e não servem aqui
+        verify(catalog, never()).itensBody();
+    }
+
+    @Test
+    void listAll_WithAcceptProtobuf_ShouldMatchPublishedSchema() throws Exception {
+        when(catalog.itens()).thenReturn(Arrays.asList(mockItem, new ItemDTO("20.01", "Mesa", null)));
+
+        MvcResult result = mockMvc.perform(get("/itens").accept("application/x-protobuf"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-protobuf"))
+                .andReturn();
+
+        // Decodificado só com o .proto publicado, como faria um consumidor
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parseNative(ProtobufCatalogConverter.schema()).forType("ItemList");
+        JsonNode message = new ProtobufMapper().readerFor(JsonNode.class).with(schema)
+                .readValue(result.getResponse().getContentAsByteArray());
+        assertEquals("Armario", message.get("itens").get(0).get("description").asText());
+        assertEquals("20.01", message.get("itens").get(1).get("codeItem").asText());
+    }
+
+    @Test
+    void searchByCode_WithFieldsInProtobuf_ShouldReturn406() throws Exception {
+        when(catalog.findItensByCode("10")).thenReturn(Arrays.asList(mockItem));
+
+        mockMvc.perform(get("/itens/search").param("codigo", "10").param("fields", "codeItem").accept("application/x-protobuf"))
+                .andExpect(status().isNotAcceptable());
+    }
+
+    @Test
+    void listAll_WhenClientAcceptsGzip_ShouldWriteCompressedBytes() throws Exception {
+        byte[] gzip = new byte[] {31, -117, 8, 0};
+        when(catalog.itensBody()).thenReturn(new EncodedBody(1, new byte[] {'[', ']'}, gzip));
+
+        mockMvc.perform(get("/itens").header("Accept-Encoding", "br, gzip;q=0.8"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(content().bytes(gzip));
+    }
+
+    @Test
+    void listAll_WhenGzipped_ShouldUseItsOwnEtag() throws Exception {
+        when(catalog.itensVersion()).thenReturn(new CatalogVersion("abc123", Instant.parse("2024-05-01T10:00:00Z")));
+        when(catalog.itensBody()).thenReturn(new EncodedBody(1, new byte[] {'[', ']'}, new byte[] {31, -117, 8, 0}));
+
+        mockMvc.perform(get("/itens").header("Accept-Encoding", "gzip"))
+                .andExpect(header().string("ETag", "\"abc123-gzip\""));
+        // O ETag do corpo sem compressão não revalida o comprimido
+        mockMvc.perform(get("/itens").header("Accept-Encoding", "gzip").header("If-None-Match", "\"abc123\""))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/itens").header("Accept-Encoding", "gzip").header("If-None-Match", "\"abc123-gzip\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void listAll_WithMalformedQuality_ShouldStillServeGzip() throws Exception {
+        byte[] gzip = new byte[] {31, -117, 8, 0};
+        when(catalog.itensBody()).thenReturn(new EncodedBody(1, new byte[] {'[', ']'}, gzip));
+
+        mockMvc.perform(get("/itens").header("Accept-Encoding", "gzip;q=abc"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"));
+    }
+
+    @Test
+    void findByCodes_ShouldReturnItemsKeyedByCode() throws Exception {
+        when(catalog.findItensByCodes(Arrays.asList("10.01", "99.99"))).thenReturn(Map.of("10.01", mockItem));
+
+        mockMvc.perform(post("/itens/batch").contentType(MediaType.APPLICATION_JSON).content("[\"10.01\", \"99.99\"]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['10.01'].description", is("Armario")))
+                .andExpect(jsonPath("$['99.99']").doesNotExist());
+    }
+
+    @Test
+    void findByCodes_WithTooManyCodes_ShouldReturn400() throws Exception {
+        String body = IntStream.range(0, 1001).mapToObj(i -> "\"" + i + "\"").collect(Collectors.joining(",", "[", "]"));
+
+        mockMvc.perform(post("/itens/batch").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void detalhe_ShouldReturnItemWithItsColors() throws Exception {
+        ItemDetalheDTO detalhe = new ItemDetalheDTO(mockItem, List.of(new CorDTO("BR", "Branco")));
+        when(catalog.findItensDetalhe(List.of("10.01"))).thenReturn(Map.of("10.01", detalhe));
+
+        mockMvc.perform(get("/itens/10.01/detalhe"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.codeItem", is("10.01")))
+                .andExpect(jsonPath("$.cores[0].siglaCor", is("BR")))
+                .andExpect(jsonPath("$.cores[0].descricao", is("Branco")));
+    }
+
+    @Test
+    void detalhe_WhenItemDoesNotExist_ShouldReturn404() throws Exception {
+        when(catalog.findItensDetalhe(List.of("99.99"))).thenReturn(Map.of());
+
+        mockMvc.perform(get("/itens/99.99/detalhe"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void findByCodes_WhenDatabaseIsBusy_ShouldReturn503WithRetryAfter() throws Exception {
+        when(catalog.findItensByCodes(Arrays.asList("10.01"))).thenThrow(new Db2BusyException("DB2 ocupado", 3));
+
+        mockMvc.perform(post("/itens/batch").contentType(MediaType.APPLICATION_JSON).content("[\"10.01\"]"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "3"));
+    }
+
+    @Test
+    void changes_ShouldStreamEventsAfterTheLastEventId() throws Exception {
+        // O log devolve o emitter já com o evento perdido, como na reconexão de um cliente
+        SseEmitter emitter = new SseEmitter();
+        emitter.send(SseEmitter.event().id("k1-8").name("change").data("{\"previous\":\"abc\",\"version\":\"def\"}"));
+        CatalogEventLog log = mock(CatalogEventLog.class);
+        when(events.itens()).thenReturn(log);
+        when(log.subscribe("k1-7")).thenReturn(emitter);
+
+        mockMvc.perform(get("/itens/changes").header("Last-Event-ID", "k1-7"))
+                .andExpect(request().asyncStarted())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(content().string(containsString("id:k1-8\nevent:change\ndata:{\"previous\":\"abc\",\"version\":\"def\"}\n\n")));
+    }
 }
@@ -0,0 +1,52 @@
+package bartzmoveis.apigetitem.controller;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import bartzmoveis.apigetitem.cache.CatalogCache;
+import bartzmoveis.apigetitem.cache.CatalogSnapshot;
+import bartzmoveis.apigetitem.dto.CorDTO;
+import bartzmoveis.apigetitem.dto.ItemDTO;
+
+@WebMvcTest(CatalogController.class)
+@AutoConfigureMockMvc(addFilters = false)
+public class CatalogControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private CatalogCache catalog;
+
+    @Test
+    void refresh_CalledTwiceWithinTheInterval_ShouldReloadOnlyOnce() throws Exception {
+        CatalogSnapshot snapshot = new CatalogSnapshot(List.of(new ItemDTO("10.01", "Armario", "REF1")),
+                List.of(new CorDTO("BR", "Branco")), Instant.now());
+        when(catalog.refresh()).thenReturn(snapshot);
+
+        mockMvc.perform(post("/catalogo/refresh"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalItens").value(1));
+
+        mockMvc.perform(post("/catalogo/refresh"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+
+        verify(catalog, times(1)).refresh();
+    }
+}
@@ -4,9 +4,11 @@ import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collections;
 
@@ -15,9 +17,14 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import bartzmoveis.apigetitem.cache.CatalogCache;
+import bartzmoveis.apigetitem.cache.CatalogEvents;
+import bartzmoveis.apigetitem.cache.CatalogPage;
+import bartzmoveis.apigetitem.cache.CatalogVersion;
 import bartzmoveis.apigetitem.service.CorService;
 import bartzmoveis.apigetitem.dto.CorDTO;
 
@@ -31,6 +38,12 @@ public class CorControllerTest {
     @MockitoBean
     private CorService service;
 
+    @MockitoBean
+    private CatalogCache catalog;
+
+    @MockitoBean
+    private CatalogEvents events;
+
     private CorDTO mockCor;
 
     @BeforeEach
@@ -40,7 +53,7 @@ public class CorControllerTest {
 
     @Test
     void listAll_ShouldReturnColors() throws Exception {
-        when(service.listAll()).thenReturn(Arrays.asList(mockCor));
+        when(catalog.cores()).thenReturn(Arrays.asList(mockCor));
 
         mockMvc.perform(get("/cores"))
                 .andExpect(status().isOk())
@@ -50,7 +63,7 @@ public class CorControllerTest {
 
     @Test
     void listAll_WhenEmpty_ShouldReturn204() throws Exception {
-        when(service.listAll()).thenReturn(Collections.emptyList());
+        when(catalog.cores()).thenReturn(Collections.emptyList());
 
         mockMvc.perform(get("/cores"))
                 .andExpect(status().isNoContent());
@@ -58,7 +71,7 @@ public class CorControllerTest {
 
     @Test
     void findBySiglaCor_WhenExists_ShouldReturn200() throws Exception {
-        when(service.findBySiglaCor("BR")).thenReturn(Arrays.asList(mockCor));
+        when(catalog.findCoresBySigla("BR")).thenReturn(Arrays.asList(mockCor));
 
         mockMvc.perform(get("/cores/search").param("codigo", "BR"))
                 .andExpect(status().isOk())
@@ -68,7 +81,7 @@ public class CorControllerTest {
 
     @Test
     void findBySiglaCor_WhenNotExists_ShouldReturn204() throws Exception {
-        when(service.findBySiglaCor("XX")).thenReturn(Collections.emptyList());
+        when(catalog.findCoresBySigla("XX")).thenReturn(Collections.emptyList());
 
         mockMvc.perform(get("/cores/search").param("codigo", "XX"))
                 .andExpect(status().isNoContent());
@@ -76,11 +89,39 @@ public class CorControllerTest {
 
     @Test
     void searchByDescricao_WhenExists_ShouldReturn200() throws Exception {
-        when(service.findByDescricao("Branco")).thenReturn(Arrays.asList(mockCor));
+        when(catalog.findCoresByDescricao("Branco")).thenReturn(Arrays.asList(mockCor));
 
         mockMvc.perform(get("/cores/search").param("descricao", "Branco"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].descricao", is("Branco")));
     }
+
+    @Test
+    void findBySiglaCor_WithLimit_ShouldReturnPage() throws Exception {
+        when(catalog.pageCoresBySigla("B", null, 10)).thenReturn(new CatalogPage<>(Arrays.asList(mockCor), null));
+
+        mockMvc.perform(get("/cores/search").param("codigo", "B").param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].siglaCor", is("BR")))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void listAll_WithStaleEtag_ShouldReturn200() throws Exception {
+        when(catalog.coresVersion()).thenReturn(new CatalogVersion("v2", Instant.parse("2024-05-01T10:00:00Z")));
+        when(catalog.cores()).thenReturn(Arrays.asList(mockCor));
+
+        mockMvc.perform(get("/cores").header("If-None-Match", "\"v1\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].siglaCor", is("BR")));
+    }
+
+    @Test
+    void findBySiglas_WhenNoneExist_ShouldReturn204() throws Exception {
+        when(catalog.findCoresBySiglas(Arrays.asList("XX"))).thenReturn(Collections.emptyMap());
+
+        mockMvc.perform(post("/cores/batch").contentType(MediaType.APPLICATION_JSON).content("[\"XX\"]"))
+                .andExpect(status().isNoContent());
+    }
 }
@@ -0,0 +1,115 @@
+package bartzmoveis.apigetitem.controller;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import bartzmoveis.apigetitem.cache.CatalogCache;
+import bartzmoveis.apigetitem.cache.CatalogEvents;
+import bartzmoveis.apigetitem.cache.CatalogPage;
+import bartzmoveis.apigetitem.cache.CatalogStream;
+import bartzmoveis.apigetitem.dto.ItemDTO;
+import bartzmoveis.apigetitem.service.ItemService;
+
+@WebMvcTest(value = { ItemController.class, ReactiveCatalogController.class },
+        properties = "catalog.reactive.enabled=true")
+@AutoConfigureMockMvc(addFilters = false) // Desabilita o Spring Security
+public class ReactiveCatalogControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private ItemService service;
+
+    @MockitoBean
+    private CatalogCache catalog;
+
+    @MockitoBean
+    private CatalogEvents events;
+
+    @MockitoBean
+    private CatalogStream stream;
+
+    @Test
+    void itens_WithNdjsonAccept_ShouldStreamOneJsonPerLine() throws Exception {
+        CatalogStream real = new CatalogStream(catalog, 2, 1);
+        when(catalog.pageItens(null, 2)).thenReturn(new CatalogPage<>(
+                List.of(new ItemDTO("10.01", "Armario", "A"), new ItemDTO("10.02", "Mesa", "M")), "10.02"));
+        when(catalog.pageItens("10.02", 2)).thenReturn(new CatalogPage<>(
+                List.of(new ItemDTO("10.03", "Cadeira", "C")), null));
+        when(stream.itens()).thenReturn(real.itens());
+
+        MvcResult started = mockMvc.perform(get("/itens").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+
+        String[] lines = result.getResponse().getContentAsString().trim().split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("{\"codeItem\":\"10.03\",\"description\":\"Cadeira\",\"refComercial\":\"C\"}", lines[2]);
+        real.close();
+    }
+
+    @Test
+    void itens_WithDefaultAccept_ShouldKeepJsonArray() throws Exception {
+        when(catalog.itens()).thenReturn(List.of(new ItemDTO("10.01", "Armario", "A")));
+
+        mockMvc.perform(get("/itens"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].codeItem", is("10.01")));
+
+        mockMvc.perform(get("/itens").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+
+        verify(stream, never()).itens();
+    }
+
+    @Test
+    void stream_ShouldOnlyReadPagesOnDemand() {
+        AtomicInteger pages = new AtomicInteger();
+        CatalogStream real = new CatalogStream(catalog, 1, 1);
+        when(catalog.pageItens(null, 1)).thenAnswer(invocation -> {
+            pages.incrementAndGet();
+            return new CatalogPage<>(List.of(new ItemDTO("10.01", "Armario", "A")), "10.01");
+        });
+        when(catalog.pageItens("10.01", 1)).thenAnswer(invocation -> {
+            pages.incrementAndGet();
+            return new CatalogPage<>(List.of(new ItemDTO("10.02", "Mesa", "M")), "10.02");
+        });
+
+        // O cliente só quer a primeira linha: a segunda página nunca deveria ser lida
+        List<ItemDTO> first = real.itens().take(1, true).collectList().block();
+
+        assertEquals(List.of(new ItemDTO("10.01", "Armario", "A")), first);
+        assertEquals(1, pages.get());
+        real.close();
+    }
+}
@@ -3,26 +3,43 @@ package bartzmoveis.apigetitem.service;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.mock.env.MockEnvironment;
 
 import bartzmoveis.apigetitem.dto.ItemDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @ExtendWith(MockitoExtension.class)
 public class BartzErpServiceTest {
@@ -30,6 +47,15 @@ public class BartzErpServiceTest {
     @Mock
     private JdbcTemplate jdbcTemplate;
 
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Spy
+    private QueryMetrics metrics = new QueryMetrics(registry);
+
+    @Spy
+    private FetchSettings fetch = new FetchSettings(new MockEnvironment()
+            .withProperty("catalog.db.query.item.findByDescription.max-rows", "200"), 0, 0, Duration.ZERO);
+
     @InjectMocks
     private ItemService service;
 
@@ -42,49 +68,204 @@ public class BartzErpServiceTest {
 
     @Test
     @SuppressWarnings("unchecked")
-    void listAll_ShouldReturnAllItems() {
-        when(jdbcTemplate.query(anyString(), any(RowMapper.class)))
+    void listAll_ShouldReturnAllItems() throws Exception {
+        when(jdbcTemplate.query(anyString(), any(PreparedStatementSetter.class), any(RowMapper.class)))
             .thenReturn(Arrays.asList(mockItem));
         
         List<ItemDTO> result = service.listAll();
         
         assertEquals(1, result.size());
         assertEquals("10.01", result.get(0).getCodeItem());
-        verify(jdbcTemplate, times(1)).query(anyString(), any(RowMapper.class));
+        verify(boundStatement()).setFetchSize(ItemService.BULK_FETCH_SIZE);
     }
 
     @Test
     @SuppressWarnings("unchecked")
-    void findByCode_ShouldReturnMatchingItems() {
-        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq("%10.01%")))
+    void findByCode_ShouldReturnMatchingItems() throws Exception {
+        when(jdbcTemplate.query(anyString(), any(PreparedStatementSetter.class), any(RowMapper.class)))
             .thenReturn(Arrays.asList(mockItem));
         
         List<ItemDTO> result = service.findByCode("10.01");
         
         assertEquals(1, result.size());
         assertEquals("10.01", result.get(0).getCodeItem());
+        verify(boundStatement()).setString(1, "%10.01%");
     }
 
     @Test
     @SuppressWarnings("unchecked")
-    void findByDescription_ShouldReturnMatchingItems() {
-        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq("%Branco%")))
+    void findByDescription_ShouldReturnMatchingItems() throws Exception {
+        when(jdbcTemplate.query(anyString(), any(PreparedStatementSetter.class), any(RowMapper.class)))
             .thenReturn(Arrays.asList(mockItem));
         
         List<ItemDTO> result = service.findByDescription("Branco");
         
         assertEquals(1, result.size());
         assertEquals("Armario Branco", result.get(0).getDescription());
+        PreparedStatement ps = boundStatement();
+        verify(ps).setString(1, "%Branco%");
+        verify(ps).setMaxRows(200);
+        verify(ps, never()).setFetchSize(anyInt());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void findByRefComercial_ShouldReturnMatchingItems() throws Exception {
+        when(jdbcTemplate.query(anyString(), any(PreparedStatementSetter.class), any(RowMapper.class)))
+            .thenReturn(Arrays.asList(mockItem));
+        
+        List<ItemDTO> result = service.findByRefComercial("REF1");
+        
+        assertEquals(1, result.size());
+        assertEquals("REF123", result.get(0).getRefComercial());
+        verify(boundStatement()).setString(1, "%REF1%");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void findByDescriptionPage_ShouldUseKeysetAndFetchFirst() throws Exception {
+        when(jdbcTemplate.query(contains("FETCH FIRST 11 ROWS ONLY"), any(PreparedStatementSetter.class), any(RowMapper.class)))
+            .thenReturn(Arrays.asList(mockItem));
+        
+        List<ItemDTO> result = service.findByDescriptionPage("Branco", "10.01", 11);
+        
+        assertEquals(1, result.size());
+        PreparedStatement ps = boundStatement();
+        verify(ps).setString(1, "%Branco%");
+        verify(ps).setString(2, "10.01");
+        verify(ps).setFetchSize(11);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void findByCodes_ShouldSplitLargeListsIntoChunks() {
+        List<String> codes = IntStream.range(0, ItemService.IN_CHUNK_SIZE + 1).mapToObj(String::valueOf).toList();
+        when(jdbcTemplate.query(anyString(), any(PreparedStatementSetter.class), any(RowMapper.class)))
+            .thenReturn(Arrays.asList(mockItem));
+        
+        List<ItemDTO> result = service.findByCodes(codes);
+        
+        assertEquals(2, result.size());
+        verify(jdbcTemplate, times(2)).query(contains("WHERE ITEM IN (?"), any(PreparedStatementSetter.class), any(RowMapper.class));
     }
 
     @Test
     @SuppressWarnings("unchecked")
     void findByCode_WhenNoResults_ShouldReturnEmptyList() {
-        when(jdbcTemplate.query(anyString(), any(RowMapper.class), anyString()))
+        when(jdbcTemplate.query(anyString(), any(PreparedStatementSetter.class), any(RowMapper.class)))
             .thenReturn(Collections.emptyList());
         
         List<ItemDTO> result = service.findByCode("99.99");
         
         assertTrue(result.isEmpty());
     }
+
+    @Test
+    void exportAll_ShouldHandRowsToConsumerWithBoundedFetchSize() throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        PreparedStatement ps = mock(PreparedStatement.class);
+        stubColumns(rs);
+        when(rs.getString(1)).thenReturn("10.01");
+        when(rs.getString(2)).thenReturn("Armario Branco");
+        when(rs.getString(3)).thenReturn("REF123");
+        doAnswer(invocation -> {
+            invocation.<PreparedStatementSetter>getArgument(1).setValues(ps);
+            invocation.<RowCallbackHandler>getArgument(2).processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(PreparedStatementSetter.class), any(RowCallbackHandler.class));
+
+        List<ItemDTO> exported = new ArrayList<>();
+        service.exportAll(exported::add);
+
+        assertEquals(1, exported.size());
+        assertEquals(mockItem, exported.get(0));
+        verify(ps).setFetchSize(ItemService.EXPORT_FETCH_SIZE);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void findByCode_ShouldRecordQueryMappingAndRowMetrics() throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        stubColumns(rs);
+        when(rs.getString(1)).thenReturn("10.01");
+        when(jdbcTemplate.query(anyString(), any(PreparedStatementSetter.class), any(RowMapper.class))).thenAnswer(invocation ->
+            List.of(invocation.<RowMapper<ItemDTO>>getArgument(2).mapRow(rs, 0),
+                    invocation.<RowMapper<ItemDTO>>getArgument(2).mapRow(rs, 1)));
+
+        service.findByCode("10.01");
+
+        assertEquals(1, registry.get("catalog.db.query").tag("operation", "item.findByCode").timer().count());
+        assertEquals(1, registry.get("catalog.db.mapping").tag("operation", "item.findByCode").timer().count());
+        assertEquals(2.0, registry.get("catalog.db.rows").tag("operation", "item.findByCode").summary().totalAmount());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void listAll_ShouldResolveColumnIndexesOncePerResultSet() throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        stubColumns(rs);
+        when(rs.getString(1)).thenReturn("10.01", "10.02");
+        when(jdbcTemplate.query(anyString(), any(PreparedStatementSetter.class), any(RowMapper.class))).thenAnswer(invocation ->
+            List.of(invocation.<RowMapper<ItemDTO>>getArgument(2).mapRow(rs, 0),
+                    invocation.<RowMapper<ItemDTO>>getArgument(2).mapRow(rs, 1)));
+
+        List<ItemDTO> result = service.listAll();
+
+        assertEquals("10.02", result.get(1).getCodeItem());
+        verify(rs, times(1)).findColumn("ITEM");
+        verify(rs, never()).getString("ITEM");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void listAll_WithConfiguredFetchSize_ShouldOverrideServiceDefault() throws Exception {
+        FetchSettings configured = new FetchSettings(new MockEnvironment()
+                .withProperty("catalog.db.query.item.listAll.fetch-size", "5000")
+                .withProperty("catalog.db.query.item.listAll.query-timeout", "PT60S"), 0, 0, Duration.ofSeconds(5));
+        ItemService tuned = new ItemService(jdbcTemplate, metrics, configured);
+        when(jdbcTemplate.query(anyString(), any(PreparedStatementSetter.class), any(RowMapper.class)))
+            .thenReturn(Arrays.asList(mockItem));
+
+        tuned.listAll();
+
+        PreparedStatement ps = boundStatement();
+        verify(ps).setFetchSize(5000);
+        verify(ps).setQueryTimeout(60);
+        assertEquals(5, configured.queryTimeout("item.findByCode"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void listAll_WithGlobalMaxRows_ShouldStillReadTheWholeTable() throws Exception {
+        FetchSettings limited = new FetchSettings(new MockEnvironment(), 0, 100, Duration.ZERO);
+        ItemService tuned = new ItemService(jdbcTemplate, metrics, limited);
+        when(jdbcTemplate.query(anyString(), any(PreparedStatementSetter.class), any(RowMapper.class)))
+            .thenReturn(Arrays.asList(mockItem));
+
+        tuned.listAll();
+        verify(boundStatement(), never()).setMaxRows(anyInt());
+
+        tuned.findByCodes(List.of("10.01"));
+        verify(boundStatement(), never()).setMaxRows(anyInt());
+
+        tuned.findByDescription("armario");
+        verify(boundStatement()).setMaxRows(100);
+    }
+
+    private static void stubColumns(ResultSet rs) throws SQLException {
+        when(rs.findColumn("ITEM")).thenReturn(1);
+        when(rs.findColumn("DESCRICAO")).thenReturn(2);
+        when(rs.findColumn("REF_COMERCIAL")).thenReturn(3);
+    }
+
+    // Aplica o PreparedStatementSetter da última consulta a um statement falso, para
+    // conferir os parâmetros, o fetch size e o max rows que chegariam ao driver
+    @SuppressWarnings("unchecked")
+    private PreparedStatement boundStatement() throws SQLException {
+        ArgumentCaptor<PreparedStatementSetter> setter = ArgumentCaptor.forClass(PreparedStatementSetter.class);
+        verify(jdbcTemplate, atLeastOnce()).query(anyString(), setter.capture(), any(RowMapper.class));
+        PreparedStatement ps = mock(PreparedStatement.class);
+        setter.getValue().setValues(ps);
+        return ps;
+    }
 }
@@ -0,0 +1,87 @@
+package bartzmoveis.apigetitem.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.mock.env.MockEnvironment;
+
+import bartzmoveis.apigetitem.dto.CatalogChangeDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class ChangeLogServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private final FetchSettings fetch = new FetchSettings(new MockEnvironment(), 0, 0, Duration.ofSeconds(5));
+
+    private ChangeLogService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ChangeLogService(jdbcTemplate, new QueryMetrics(new SimpleMeterRegistry()), fetch, true, "SCHEMA.CATALOGO_ALTERACOES");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void latestSequence_WhenTableIsEmpty_ShouldReturnZero() {
+        when(jdbcTemplate.query(contains("MAX(SEQ)"), any(PreparedStatementSetter.class), any(RowMapper.class)))
+            .thenReturn(List.of(0L));
+
+        assertEquals(0, service.latestSequence());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void changesSince_ShouldReadAfterWatermarkInOrder() throws Exception {
+        when(jdbcTemplate.query(contains("WHERE SEQ > ? ORDER BY SEQ FETCH FIRST 1000 ROWS ONLY"), any(PreparedStatementSetter.class), any(RowMapper.class)))
+            .thenReturn(Arrays.asList(new CatalogChangeDTO(42, "ITEM", "10.01")));
+
+        List<CatalogChangeDTO> result = service.changesSince(41, 1000);
+
+        assertEquals(1, result.size());
+        assertEquals("10.01", result.get(0).getKey());
+        PreparedStatement ps = boundStatement();
+        verify(ps).setObject(1, 41L);
+        verify(ps).setQueryTimeout(5);
+    }
+
+    @Test
+    void constructor_WithUnsafeTableName_ShouldFail() {
+        assertThrows(IllegalArgumentException.class, () ->
+            new ChangeLogService(jdbcTemplate, new QueryMetrics(new SimpleMeterRegistry()), fetch, true, "X; DROP TABLE Y"));
+    }
+
+    // Aplica o PreparedStatementSetter da consulta a um statement falso, para conferir os
+    // parâmetros e o query-timeout que chegariam ao driver
+    @SuppressWarnings("unchecked")
+    private PreparedStatement boundStatement() throws SQLException {
+        ArgumentCaptor<PreparedStatementSetter> setter = ArgumentCaptor.forClass(PreparedStatementSetter.class);
+        verify(jdbcTemplate).query(anyString(), setter.capture(), any(RowMapper.class));
+        PreparedStatement ps = mock(PreparedStatement.class);
+        setter.getValue().setValues(ps);
+        return ps;
+    }
+}
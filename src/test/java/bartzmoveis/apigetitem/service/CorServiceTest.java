@@ -4,11 +4,16 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -16,13 +21,18 @@ import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.mock.env.MockEnvironment;
 
 import bartzmoveis.apigetitem.dto.CorDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @ExtendWith(MockitoExtension.class)
 public class CorServiceTest {
@@ -30,6 +40,12 @@ public class CorServiceTest {
     @Mock
     private JdbcTemplate jdbcTemplate;
 
+    @Spy
+    private QueryMetrics metrics = new QueryMetrics(new SimpleMeterRegistry());
+
+    @Spy
+    private FetchSettings fetch = new FetchSettings(new MockEnvironment(), 0, 0, Duration.ZERO);
+
     @InjectMocks
     private CorService service;
 
@@ -42,49 +58,76 @@ public class CorServiceTest {
 
     @Test
     @SuppressWarnings("unchecked")
-    void listAll_ShouldReturnAllColors() {
-        when(jdbcTemplate.query(anyString(), any(RowMapper.class)))
+    void listAll_ShouldReturnAllColors() throws Exception {
+        when(jdbcTemplate.query(anyString(), any(PreparedStatementSetter.class), any(RowMapper.class)))
             .thenReturn(Arrays.asList(mockCor));
         
         List<CorDTO> result = service.listAll();
         
         assertEquals(1, result.size());
         assertEquals("BR", result.get(0).getSiglaCor());
-        verify(jdbcTemplate, times(1)).query(anyString(), any(RowMapper.class));
+        verify(jdbcTemplate, times(1)).query(anyString(), any(PreparedStatementSetter.class), any(RowMapper.class));
+        verify(boundStatement()).setFetchSize(CorService.BULK_FETCH_SIZE);
     }
 
     @Test
     @SuppressWarnings("unchecked")
-    void findBySiglaCor_ShouldReturnMatchingColors() {
-        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq("%BR%")))
+    void findBySiglaCor_ShouldReturnMatchingColors() throws Exception {
+        when(jdbcTemplate.query(anyString(), any(PreparedStatementSetter.class), any(RowMapper.class)))
             .thenReturn(Arrays.asList(mockCor));
         
         List<CorDTO> result = service.findBySiglaCor("BR");
         
         assertEquals(1, result.size());
         assertEquals("BR", result.get(0).getSiglaCor());
+        verify(boundStatement()).setString(1, "%BR%");
     }
 
     @Test
     @SuppressWarnings("unchecked")
-    void findByDescricao_ShouldReturnMatchingColors() {
-        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq("%Branco%")))
+    void findByDescricao_ShouldReturnMatchingColors() throws Exception {
+        when(jdbcTemplate.query(anyString(), any(PreparedStatementSetter.class), any(RowMapper.class)))
             .thenReturn(Arrays.asList(mockCor));
         
         List<CorDTO> result = service.findByDescricao("Branco");
         
         assertEquals(1, result.size());
         assertEquals("Branco", result.get(0).getDescricao());
+        verify(boundStatement()).setString(1, "%Branco%");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void listPage_WithoutCursor_ShouldStartFromEmptyKey() throws Exception {
+        when(jdbcTemplate.query(contains("ORDER BY SIGLA_COR FETCH FIRST 5 ROWS ONLY"), any(PreparedStatementSetter.class), any(RowMapper.class)))
+            .thenReturn(Arrays.asList(mockCor));
+        
+        List<CorDTO> result = service.listPage(null, 5);
+        
+        assertEquals(1, result.size());
+        PreparedStatement ps = boundStatement();
+        verify(ps).setString(1, "");
+        verify(ps).setFetchSize(5);
     }
 
     @Test
     @SuppressWarnings("unchecked")
     void findBySiglaCor_WhenNoResults_ShouldReturnEmptyList() {
-        when(jdbcTemplate.query(anyString(), any(RowMapper.class), anyString()))
+        when(jdbcTemplate.query(anyString(), any(PreparedStatementSetter.class), any(RowMapper.class)))
             .thenReturn(Collections.emptyList());
         
         List<CorDTO> result = service.findBySiglaCor("XX");
         
         assertTrue(result.isEmpty());
     }
+
+    // Aplica o PreparedStatementSetter da última consulta a um statement falso
+    @SuppressWarnings("unchecked")
+    private PreparedStatement boundStatement() throws SQLException {
+        ArgumentCaptor<PreparedStatementSetter> setter = ArgumentCaptor.forClass(PreparedStatementSetter.class);
+        verify(jdbcTemplate, atLeastOnce()).query(anyString(), setter.capture(), any(RowMapper.class));
+        PreparedStatement ps = mock(PreparedStatement.class);
+        setter.getValue().setValues(ps);
+        return ps;
+    }
 }